@@ -0,0 +1,65 @@
+package hot.spring.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import hot.spring.audit.AuditJournal;
+import hot.spring.service.HotSpringDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/* Cost of an audit append on the request thread, with four threads appending at once and
+ * the writer thread persisting to a real journal. If the writer cannot keep up, producers
+ * start waiting and the time per append climbs; gc.alloc.rate.norm should stay at 0. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AuditJournalBenchmark {
+
+	private Path directory;
+	private AuditJournal journal;
+	private HotSpringDeletedEvent event;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("audit-benchmark");
+		journal = new AuditJournal(directory, DataSize.ofMegabytes(256), 65536,
+			Duration.ofSeconds(1), new SimpleMeterRegistry());
+		journal.start();
+		event = new HotSpringDeletedEvent(12345L, 678L);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		journal.stop();
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public void append() {
+		journal.onHotSpringDeleted(event);
+	}
+}
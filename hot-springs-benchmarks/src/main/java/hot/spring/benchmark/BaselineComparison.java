@@ -0,0 +1,143 @@
+package hot.spring.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/* Compares a JMH JSON result with a saved baseline and fails if any benchmark got slower, or
+ * allocates more per operation, by more than a threshold.
+ *
+ * Baselines are JMH results copied into baselines/ after a run on a quiet machine:
+ *   mvn compile exec:exec@jmh
+ *   cp target/jmh-result.json baselines/jmh-baseline.json
+ * and later runs are checked with
+ *   mvn exec:java -Dexec.mainClass=hot.spring.benchmark.BaselineComparison
+ *     -Dexec.args="baselines/jmh-baseline.json target/jmh-result.json 10"
+ * where the last argument is the allowed regression in percent (default 10).
+ *
+ * Only AverageTime and SampleTime scores (lower is better) and gc.alloc.rate.norm are
+ * compared. Benchmarks missing from either file are listed but do not fail the check. */
+
+public class BaselineComparison {
+
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+	private record Score(double time, String unit, Double bytesPerOp) {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BaselineComparison <baseline.json> <result.json> "
+				+ "[threshold percent]");
+			System.exit(2);
+		}
+
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+		Map<String, Score> baseline = read(new File(args[0]));
+		Map<String, Score> result = read(new File(args[1]));
+		List<String> regressions = new ArrayList<>();
+
+		for (Map.Entry<String, Score> entry : new TreeMap<>(result).entrySet()) {
+			String name = entry.getKey();
+			Score now = entry.getValue();
+			Score before = baseline.get(name);
+
+			if (Objects.isNull(before)) {
+				System.out.printf("%-70s new%n", name);
+				continue;
+			}
+
+			double timeChange = change(before.time(), now.time());
+			String line = String.format("%-70s %10.3f -> %10.3f %s (%+.1f%%)", name,
+				before.time(), now.time(), now.unit(), timeChange);
+
+			if (timeChange > threshold) {
+				regressions.add(name + " time " + String.format("%+.1f%%", timeChange));
+			}
+
+			if (Objects.nonNull(before.bytesPerOp()) && Objects.nonNull(now.bytesPerOp())) {
+				double allocationChange = change(before.bytesPerOp(), now.bytesPerOp());
+				line += String.format("  %.0f -> %.0f B/op (%+.1f%%)", before.bytesPerOp(),
+					now.bytesPerOp(), allocationChange);
+
+				if (allocationChange > threshold) {
+					regressions.add(name + " allocation "
+						+ String.format("%+.1f%%", allocationChange));
+				}
+			}
+
+			System.out.println(line);
+		}
+
+		baseline.keySet().stream()
+			.filter(name -> !result.containsKey(name))
+			.sorted()
+			.forEach(name -> System.out.printf("%-70s missing from result%n", name));
+
+		if (!regressions.isEmpty()) {
+			System.out.println();
+			System.out.println("Regressions above " + threshold + "%:");
+			regressions.forEach(regression -> System.out.println("  " + regression));
+			System.exit(1);
+		}
+	}
+
+	private static double change(double before, double now) {
+		return before == 0 ? 0 : (now - before) / before * 100;
+	}
+
+	/* benchmark name plus its @Param values, e.g. DtoMappingBenchmark.skinnyDipperData
+	 * {hotSprings=100} */
+
+	private static Map<String, Score> read(File file) throws IOException {
+		Map<String, Score> scores = new LinkedHashMap<>();
+
+		for (JsonNode run : new ObjectMapper().readTree(file)) {
+			String mode = run.path("mode").asText();
+
+			if (!mode.equals("avgt") && !mode.equals("sample")) {
+				continue;
+			}
+
+			String benchmark = run.path("benchmark").asText();
+			String name = benchmark.substring(benchmark.lastIndexOf('.',
+				benchmark.lastIndexOf('.') - 1) + 1);
+			Map<String, String> params = new TreeMap<>();
+			run.path("params").fields()
+				.forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+
+			if (!params.isEmpty()) {
+				name += " " + params;
+			}
+
+			JsonNode primary = run.path("primaryMetric");
+			Double bytesPerOp = null;
+
+			Iterator<Map.Entry<String, JsonNode>> metrics =
+				run.path("secondaryMetrics").fields();
+
+			while (metrics.hasNext()) {
+				Map.Entry<String, JsonNode> metric = metrics.next();
+
+				/* older JMH versions prefix profiler metrics with a middle dot */
+				if (metric.getKey().replace("\u00b7", "").equals(ALLOCATION)) {
+					bytesPerOp = metric.getValue().path("score").asDouble();
+				}
+			}
+
+			scores.put(name, new Score(primary.path("score").asDouble(),
+				primary.path("scoreUnit").asText(), bytesPerOp));
+		}
+
+		return scores;
+	}
+}
@@ -0,0 +1,28 @@
+package hot.spring.benchmark;
+
+import java.io.OutputStream;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/* Sends written bytes to a Blackhole, so writing a response costs nothing beyond the
+ * serializer itself. */
+
+public class BlackholeOutputStream extends OutputStream {
+
+	private final Blackhole blackhole;
+
+	public BlackholeOutputStream(Blackhole blackhole) {
+		this.blackhole = blackhole;
+	}
+
+	@Override
+	public void write(int b) {
+		blackhole.consume(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		blackhole.consume(b);
+		blackhole.consume(len);
+	}
+}
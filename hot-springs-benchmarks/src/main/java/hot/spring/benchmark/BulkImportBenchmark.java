@@ -0,0 +1,145 @@
+package hot.spring.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.controller.model.BulkImportResult;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.service.HotSpringBulkImporter;
+
+/* Bulk import throughput on in-memory H2, in rows per second.
+ *
+ * The database is first filled by DatasetGenerator, so the inserts go into tables and
+ * indexes of a realistic size. Each operation then imports IMPORT_ROWS hot springs from an
+ * NDJSON body through HotSpringBulkImporter, as the bulk endpoint does, so parsing,
+ * validation, the JDBC batches and the index updates after each commit are all included.
+ * JMH divides by IMPORT_ROWS, so the score is rows per second. */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkImportBenchmark {
+
+	private static final int IMPORT_ROWS = 10_000;
+
+	@Param({"100", "500", "2000"})
+	private int batchSize;
+
+	@Param({"5000"})
+	private int commitInterval;
+
+	/* hot springs generated before the imports, ten per skinny dipper */
+	@Param({"100000"})
+	private int existingHotSprings;
+
+	private ConfigurableApplicationContext context;
+	private HotSpringBulkImporter importer;
+	private ObjectReader reader;
+	private Long skinnyDipperId;
+	private byte[] ndjson;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		context = new SpringApplicationBuilder(HotSpringApplication.class)
+			.run("--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--spring.datasource.url=jdbc:h2:mem:bulk-import;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.hibernate.ddl-auto=create-drop",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=always",
+				"--hot-spring.audit.directory=target/audit-bulk-import-benchmark");
+
+		DatasetGenerator.Dataset dataset = new DatasetGenerator(
+			context.getBean(DataSource.class), 42).generate(existingHotSprings / 10, 10);
+		skinnyDipperId = dataset.firstSkinnyDipperId();
+
+		importer = context.getBean(HotSpringBulkImporter.class);
+		ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+		reader = objectMapper.readerFor(HotSpringData.class);
+		ndjson = ndjson(objectMapper);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(IMPORT_ROWS)
+	public BulkImportResult importRows() throws IOException {
+		try (MappingIterator<HotSpringData> rows = reader.readValues(ndjson)) {
+			BulkImportResult result =
+				importer.importHotSprings(skinnyDipperId, rows, batchSize, commitInterval);
+
+			if (result.getImported() != IMPORT_ROWS) {
+				throw new IllegalStateException("Imported " + result.getImported() + " of "
+					+ IMPORT_ROWS + " rows: " + result.getErrors());
+			}
+
+			return result;
+		}
+	}
+
+	private static byte[] ndjson(ObjectMapper objectMapper) throws IOException {
+		Random random = new Random(7);
+		StringBuilder body = new StringBuilder();
+
+		for (int i = 0; i < IMPORT_ROWS; i++) {
+			HotSpringData hotSpring = new HotSpringData();
+			hotSpring.setHotSpringName("Imported Spring " + i);
+			hotSpring.setLatitude(BigDecimal.valueOf(32 + random.nextDouble() * 17)
+				.setScale(7, RoundingMode.HALF_UP));
+			hotSpring.setLongitude(BigDecimal.valueOf(-124 + random.nextDouble() * 20)
+				.setScale(7, RoundingMode.HALF_UP));
+			hotSpring.setCounty("Owyhee County");
+			hotSpring.setDirections("Imported by the bulk import benchmark");
+
+			Set<String> details = new LinkedHashSet<>();
+			details.add(random.nextBoolean() ? "natural" : "commercial");
+			details.add(random.nextBoolean() ? "free" : "entrance fee");
+			details.add(EntityFixtures.DETAILS.get(random.nextInt(
+				EntityFixtures.DETAILS.size())));
+			hotSpring.setDetails(details);
+
+			body.append(objectMapper.writeValueAsString(hotSpring)).append('\n');
+		}
+
+		return body.toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
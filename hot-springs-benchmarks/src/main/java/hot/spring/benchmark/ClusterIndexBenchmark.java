@@ -0,0 +1,86 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hot.spring.service.HotSpringClusterIndex;
+
+/* Cluster requests and incremental updates against the precomputed cluster levels, with the
+ * same western United States spread as MapSnapshotBenchmark. Each request is a viewport of
+ * about 4 x 3 map tiles, as a browser window would show, so its time should not depend on
+ * how many hot springs there are. moveHotSpring is the cost added to every save: one cell
+ * out and one cell in per zoom level. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterIndexBenchmark {
+
+	@Param({"100000", "1000000"})
+	private int hotSprings;
+
+	private HotSpringClusterIndex index;
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		index = new HotSpringClusterIndex(16);
+		random = new Random(42);
+
+		for (long id = 1; id <= hotSprings; id++) {
+			index.put(id, randomLatitude(), randomLongitude());
+		}
+	}
+
+	@Benchmark
+	public List<HotSpringClusterIndex.Cluster> region() {
+		return index.clusters(30.0, -135.0, 52.0, -90.0, 5);
+	}
+
+	@Benchmark
+	public List<HotSpringClusterIndex.Cluster> state() {
+		return index.clusters(42.0, -117.2, 45.5, -111.5, 8);
+	}
+
+	@Benchmark
+	public List<HotSpringClusterIndex.Cluster> city() {
+		return index.clusters(43.55, -116.4, 43.75, -116.05, 12);
+	}
+
+	@Benchmark
+	public List<HotSpringClusterIndex.Cluster> street() {
+		return index.clusters(43.61, -116.22, 43.62, -116.2, 16);
+	}
+
+	@Benchmark
+	public void moveHotSpring() {
+		index.put(1L + random.nextInt(hotSprings), randomLatitude(), randomLongitude());
+	}
+
+	private BigDecimal randomLatitude() {
+		return BigDecimal.valueOf(32 + random.nextDouble() * 17).setScale(7, RoundingMode.HALF_UP);
+	}
+
+	private BigDecimal randomLongitude() {
+		return BigDecimal.valueOf(-124 + random.nextDouble() * 20).setScale(7, RoundingMode.HALF_UP);
+	}
+}
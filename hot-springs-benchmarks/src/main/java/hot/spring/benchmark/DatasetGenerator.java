@@ -0,0 +1,237 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/* Fills the hot spring tables with a synthetic but plausible dataset: skinnyDippers
+ * skinny dippers with hotSpringsPerDipper hot springs each. The same seed always produces
+ * the same rows.
+ *
+ * Hot springs are scattered around real hot spring regions of the western US, so nearby
+ * searches find neighbors. Details follow rough real-world frequencies: most springs are
+ * natural, about half are free, each has exactly one rating, and free/entrance fee and
+ * natural/commercial rarely appear together.
+ *
+ * Rows are written with plain JDBC batches and explicit IDs following the current maximum,
+ * so the generator can also add to an existing database. The detail table must already be
+ * filled (data.sql). About 1 GB of heap per million hot springs is needed for in-memory
+ * H2. */
+
+@Slf4j
+public class DatasetGenerator {
+
+	private static final int BATCH_SIZE = 1000;
+
+	private static final String INSERT_SKINNY_DIPPER = "INSERT INTO skinny_dipper "
+		+ "(skinny_dipper_id, skinny_dipper_name, skinny_dipper_email, version) "
+		+ "VALUES (?, ?, ?, 0)";
+
+	private static final String INSERT_HOT_SPRING = "INSERT INTO hot_spring "
+		+ "(hot_spring_id, hot_spring_name, latitude, longitude, county, directions, "
+		+ "skinny_dipper_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+	private static final String INSERT_HOT_SPRING_DETAIL = "INSERT INTO hot_spring_detail "
+		+ "(hot_spring_id, detail_id) VALUES (?, ?)";
+
+	/* latitude, longitude and spread in degrees of areas with many hot springs */
+	private static final double[][] REGIONS = {
+		{44.1, -115.0, 1.2},	// central Idaho
+		{42.6, -115.8, 0.8},	// Owyhee
+		{44.0, -122.0, 0.9},	// Oregon Cascades
+		{41.5, -120.0, 1.0},	// northeastern California
+		{37.6, -118.8, 0.7},	// Long Valley
+		{39.5, -117.0, 1.5},	// central Nevada
+		{38.5, -106.5, 1.0},	// Colorado Rockies
+		{44.6, -110.6, 0.5},	// Yellowstone
+		{35.9, -106.6, 0.8},	// Jemez Mountains
+		{33.3, -116.0, 0.9},	// southern California desert
+	};
+
+	private static final String[] COUNTIES = {"Boise County", "Valley County",
+		"Owyhee County", "Lane County", "Modoc County", "Mono County", "Nye County",
+		"Chaffee County", "Park County", "Sandoval County", "Imperial County",
+		"Custer County", "Elmore County", "Harney County", "Inyo County"};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Random random;
+
+	public DatasetGenerator(DataSource dataSource, long seed) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.random = new Random(seed);
+	}
+
+	public record Dataset(long firstSkinnyDipperId, int skinnyDippers,
+		long firstHotSpringId, long hotSprings) {
+	}
+
+	public Dataset generate(int skinnyDippers, int hotSpringsPerDipper) {
+		Map<String, Long> detailIds = detailIds();
+		long firstSkinnyDipperId = maxId("skinny_dipper", "skinny_dipper_id") + 1;
+		long firstHotSpringId = maxId("hot_spring", "hot_spring_id") + 1;
+		long hotSpringId = firstHotSpringId;
+		long started = System.nanoTime();
+
+		List<Object[]> dipperRows = new ArrayList<>(BATCH_SIZE);
+		List<Object[]> hotSpringRows = new ArrayList<>(BATCH_SIZE);
+		List<Object[]> detailRows = new ArrayList<>(BATCH_SIZE * 4);
+
+		for (int d = 0; d < skinnyDippers; d++) {
+			long skinnyDipperId = firstSkinnyDipperId + d;
+			dipperRows.add(new Object[] {skinnyDipperId, "Skinny Dipper " + skinnyDipperId,
+				"dipper" + skinnyDipperId + "@example.com"});
+
+			for (int h = 0; h < hotSpringsPerDipper; h++, hotSpringId++) {
+				hotSpringRows.add(hotSpringRow(hotSpringId, skinnyDipperId));
+
+				for (String detail : details()) {
+					detailRows.add(new Object[] {hotSpringId, detailIds.get(detail)});
+				}
+
+				if (hotSpringRows.size() >= BATCH_SIZE) {
+					flush(dipperRows, hotSpringRows, detailRows);
+				}
+			}
+
+			if (dipperRows.size() >= BATCH_SIZE) {
+				flush(dipperRows, hotSpringRows, detailRows);
+			}
+
+			if ((d + 1) % 10_000 == 0) {
+				log.info("Generated {} of {} skinny dippers", d + 1, skinnyDippers);
+			}
+		}
+
+		flush(dipperRows, hotSpringRows, detailRows);
+		restartIdentities(firstSkinnyDipperId + skinnyDippers, hotSpringId);
+
+		long hotSprings = hotSpringId - firstHotSpringId;
+		log.info("Generated {} skinny dippers and {} hot springs in {} s", skinnyDippers,
+			hotSprings, (System.nanoTime() - started) / 1_000_000_000);
+
+		return new Dataset(firstSkinnyDipperId, skinnyDippers, firstHotSpringId, hotSprings);
+	}
+
+	/* dipper rows first: hot springs reference them */
+	private void flush(List<Object[]> dipperRows, List<Object[]> hotSpringRows,
+			List<Object[]> detailRows) {
+		batch(INSERT_SKINNY_DIPPER, dipperRows);
+		batch(INSERT_HOT_SPRING, hotSpringRows);
+		batch(INSERT_HOT_SPRING_DETAIL, detailRows);
+	}
+
+	private void batch(String sql, List<Object[]> rows) {
+		if (!rows.isEmpty()) {
+			jdbcTemplate.batchUpdate(sql, rows);
+			rows.clear();
+		}
+	}
+
+	private Object[] hotSpringRow(long hotSpringId, long skinnyDipperId) {
+		double[] region = REGIONS[random.nextInt(REGIONS.length)];
+		double latitude = clamp(region[0] + random.nextGaussian() * region[2], -90, 90);
+		double longitude = clamp(region[1] + random.nextGaussian() * region[2], -180, 180);
+
+		return new Object[] {hotSpringId, "Hot Spring " + hotSpringId,
+			BigDecimal.valueOf(latitude).setScale(7, RoundingMode.HALF_UP),
+			BigDecimal.valueOf(longitude).setScale(7, RoundingMode.HALF_UP),
+			COUNTIES[random.nextInt(COUNTIES.length)],
+			"Park at the pullout near mile " + random.nextInt(120)
+				+ " and walk " + (1 + random.nextInt(30)) / 10.0 + " miles along the creek.",
+			skinnyDipperId};
+	}
+
+	private Set<String> details() {
+		Set<String> details = new LinkedHashSet<>();
+		boolean natural = chance(0.75);
+		boolean free = chance(natural ? 0.65 : 0.1);
+
+		details.add(natural ? "natural" : "commercial");
+		details.add(free ? "free" : "entrance fee");
+
+		addIf(details, "public", free ? 0.8 : 0.3);
+		addIf(details, "hike-in", natural ? 0.4 : 0.02);
+		addIf(details, "camping available", 0.35);
+		addIf(details, "overnight access", natural ? 0.5 : 0.2);
+		addIf(details, "day-use only", natural ? 0.2 : 0.6);
+		addIf(details, "skinny dipping friendly", natural ? 0.6 : 0.1);
+		addIf(details, "family friendly", natural ? 0.3 : 0.8);
+		addIf(details, "lifeguard on duty", natural ? 0 : 0.3);
+		addIf(details, "safe", 0.6);
+		addIf(details, "!TOO DANGEROUS! DO NOT ATTEMPT!", 0.02);
+
+		double rating = random.nextDouble();
+		details.add(rating < 0.15 ? "A Rating" : rating < 0.45 ? "B Rating"
+			: rating < 0.8 ? "C Rating" : rating < 0.95 ? "D Rating" : "F Rating");
+
+		return details;
+	}
+
+	private void addIf(Set<String> details, String detail, double probability) {
+		if (chance(probability)) {
+			details.add(detail);
+		}
+	}
+
+	private boolean chance(double probability) {
+		return random.nextDouble() < probability;
+	}
+
+	private static double clamp(double value, double min, double max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private Map<String, Long> detailIds() {
+		Map<String, Long> detailIds = new HashMap<>();
+
+		jdbcTemplate.query("SELECT detail_id, detail FROM detail", row -> {
+			detailIds.put(row.getString("detail"), row.getLong("detail_id"));
+		});
+
+		List<String> missing = EntityFixtures.DETAILS.stream()
+			.filter(detail -> !detailIds.containsKey(detail))
+			.toList();
+
+		if (!missing.isEmpty()) {
+			throw new IllegalStateException("The detail table is missing " + missing
+				+ ". Load data.sql before generating hot springs.");
+		}
+
+		return detailIds;
+	}
+
+	private long maxId(String table, String column) {
+		Long max = jdbcTemplate.queryForObject(
+			"SELECT MAX(" + column + ") FROM " + table, Long.class);
+		return Objects.isNull(max) ? 0 : max;
+	}
+
+	/* MySQL moves AUTO_INCREMENT past explicit IDs by itself; H2 identity columns do not,
+	 * and the application's next insert would collide with a generated row. */
+
+	private void restartIdentities(long nextSkinnyDipperId, long nextHotSpringId) {
+		String database = jdbcTemplate.execute((ConnectionCallback<String>)
+			connection -> connection.getMetaData().getDatabaseProductName());
+
+		if ("H2".equals(database)) {
+			jdbcTemplate.execute("ALTER TABLE skinny_dipper ALTER COLUMN skinny_dipper_id "
+				+ "RESTART WITH " + nextSkinnyDipperId);
+			jdbcTemplate.execute("ALTER TABLE hot_spring ALTER COLUMN hot_spring_id "
+				+ "RESTART WITH " + nextHotSpringId);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package hot.spring.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.service.DetailDictionary;
+import hot.spring.service.HotSpringDetailBitmapIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+
+/* The detail filter "free AND natural AND skinny dipping friendly AND NOT too dangerous"
+ * answered by the bitmap index and by the equivalent JPQL join on in-memory H2, over a
+ * DatasetGenerator dataset. firstPage is what the filter endpoint serves, the first 100
+ * matching IDs; allMatches counts every match. Both sides return IDs only, so the
+ * difference is the filter itself and not loading rows. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetailFilterBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+	private static final int HOT_SPRINGS_PER_DIPPER = 10;
+
+	private static final String FILTER_QUERY = "select h.hotSpringId from HotSpring h "
+		+ "join h.details d where d.detailId in :allOf "
+		+ "and h.hotSpringId not in (select n.hotSpringId from HotSpring n "
+		+ "join n.details nd where nd.detailId in :noneOf) "
+		+ "group by h.hotSpringId having count(d) = :allCount order by h.hotSpringId";
+
+	@Param({"10000", "100000"})
+	private int hotSprings;
+
+	private ConfigurableApplicationContext context;
+	private HotSpringDetailBitmapIndex bitmapIndex;
+	private EntityManager entityManager;
+	private List<Long> allOf;
+	private List<Long> noneOf;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(HotSpringApplication.class)
+			.run("--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--spring.datasource.url=jdbc:h2:mem:detail-filter;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.hibernate.ddl-auto=create-drop",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=always",
+				"--hot-spring.audit.directory=target/audit-detail-filter-benchmark");
+
+		new DatasetGenerator(context.getBean(DataSource.class), 42)
+			.generate(hotSprings / HOT_SPRINGS_PER_DIPPER, HOT_SPRINGS_PER_DIPPER);
+
+		/* the index was loaded when the context started, before the rows were generated */
+		bitmapIndex = context.getBean(HotSpringDetailBitmapIndex.class);
+		bitmapIndex.load();
+
+		DetailDictionary detailDictionary = context.getBean(DetailDictionary.class);
+		allOf = List.of(detailDictionary.detailId("free"),
+			detailDictionary.detailId("natural"),
+			detailDictionary.detailId("skinny dipping friendly"));
+		noneOf = List.of(detailDictionary.detailId("!TOO DANGEROUS! DO NOT ATTEMPT!"));
+
+		entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		entityManager.close();
+		context.close();
+	}
+
+	@Benchmark
+	public List<Long> bitmapFirstPage() {
+		return HotSpringDetailBitmapIndex.page(bitmapIndex.filter(allOf, List.of(), noneOf),
+			null, PAGE_SIZE);
+	}
+
+	@Benchmark
+	public List<Long> jpqlFirstPage() {
+		return filterQuery().setMaxResults(PAGE_SIZE).getResultList();
+	}
+
+	@Benchmark
+	public int bitmapAllMatches() {
+		return bitmapIndex.filter(allOf, List.of(), noneOf).getCardinality();
+	}
+
+	@Benchmark
+	public int jpqlAllMatches() {
+		return filterQuery().getResultList().size();
+	}
+
+	private TypedQuery<Long> filterQuery() {
+		entityManager.clear();
+
+		return entityManager.createQuery(FILTER_QUERY, Long.class)
+			.setParameter("allOf", allOf)
+			.setParameter("noneOf", noneOf)
+			.setParameter("allCount", (long) allOf.size());
+	}
+}
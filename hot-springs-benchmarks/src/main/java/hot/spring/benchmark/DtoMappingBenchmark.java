@@ -0,0 +1,67 @@
+package hot.spring.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.entity.HotSpring;
+import hot.spring.entity.SkinnyDipper;
+
+/* Entity to DTO conversion: the copying constructors every response goes through. Run with
+ * -prof gc to see the bytes allocated per conversion (gc.alloc.rate.norm). */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int hotSprings;
+
+	@Param({"5"})
+	private int detailsPerSpring;
+
+	private SkinnyDipper skinnyDipper;
+	private List<HotSpring> hotSpringList;
+
+	@Setup
+	public void setUp() {
+		skinnyDipper = EntityFixtures.skinnyDipper(1, hotSprings, detailsPerSpring);
+		hotSpringList = new ArrayList<>(skinnyDipper.getHotSprings());
+	}
+
+	/* GET /skinny_dipper/{id}: one dipper with all of its hot springs */
+	@Benchmark
+	public SkinnyDipperData skinnyDipperData() {
+		return new SkinnyDipperData(skinnyDipper);
+	}
+
+	/* GET /filter and /export: a page of hot springs, each with its owner */
+	@Benchmark
+	public List<HotSpringData> hotSpringDataList() {
+		List<HotSpringData> data = new ArrayList<>(hotSpringList.size());
+
+		for (HotSpring hotSpring : hotSpringList) {
+			data.add(new HotSpringData(hotSpring));
+		}
+
+		return data;
+	}
+}
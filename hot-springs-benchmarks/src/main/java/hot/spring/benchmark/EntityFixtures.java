@@ -0,0 +1,80 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import hot.spring.entity.Detail;
+import hot.spring.entity.HotSpring;
+import hot.spring.entity.SkinnyDipper;
+
+/* Detached entity graphs for benchmarks that do not need a database. The same seed always
+ * builds the same graph. */
+
+public final class EntityFixtures {
+
+	/* the rows of data.sql, in insert order, so detail N has ID N + 1 */
+	public static final List<String> DETAILS = List.of("camping available",
+		"overnight access", "safe", "skinny dipping friendly", "commercial", "family friendly",
+		"natural", "free", "entrance fee", "day-use only", "lifeguard on duty", "hike-in",
+		"public", "A Rating", "B Rating", "C Rating", "D Rating", "F Rating",
+		"!TOO DANGEROUS! DO NOT ATTEMPT!");
+
+	private EntityFixtures() {
+	}
+
+	public static List<Detail> details() {
+		List<Detail> details = new ArrayList<>();
+
+		for (int i = 0; i < DETAILS.size(); i++) {
+			Detail detail = new Detail();
+			detail.setDetailId((long) i + 1);
+			detail.setDetail(DETAILS.get(i));
+			details.add(detail);
+		}
+
+		return details;
+	}
+
+	/* A skinny dipper owning hotSpringCount hot springs with detailsPerSpring details each. */
+
+	public static SkinnyDipper skinnyDipper(long seed, int hotSpringCount,
+			int detailsPerSpring) {
+		Random random = new Random(seed);
+		List<Detail> details = details();
+
+		SkinnyDipper skinnyDipper = new SkinnyDipper();
+		skinnyDipper.setSkinnyDipperId(seed);
+		skinnyDipper.setSkinnyDipperName("Skinny Dipper " + seed);
+		skinnyDipper.setSkinnyDipperEmail("dipper" + seed + "@example.com");
+		skinnyDipper.setVersion(0L);
+
+		for (int i = 0; i < hotSpringCount; i++) {
+			HotSpring hotSpring = new HotSpring();
+			hotSpring.setHotSpringId(seed * 1_000_000 + i);
+			hotSpring.setHotSpringName("Hot Spring " + seed + "-" + i);
+			hotSpring.setLatitude(coordinate(random, 32, 49));
+			hotSpring.setLongitude(coordinate(random, -124, -104));
+			hotSpring.setCounty("County " + random.nextInt(60));
+			hotSpring.setDirections("Turn off the highway at mile marker " + random.nextInt(200)
+				+ " and follow the creek upstream.");
+			hotSpring.setVersion(0L);
+			hotSpring.setSkinnyDipper(skinnyDipper);
+
+			while (hotSpring.getDetails().size() < Math.min(detailsPerSpring, details.size())) {
+				hotSpring.getDetails().add(details.get(random.nextInt(details.size())));
+			}
+
+			skinnyDipper.getHotSprings().add(hotSpring);
+		}
+
+		return skinnyDipper;
+	}
+
+	private static BigDecimal coordinate(Random random, double min, double max) {
+		return BigDecimal.valueOf(min + random.nextDouble() * (max - min))
+			.setScale(7, RoundingMode.HALF_UP);
+	}
+}
@@ -0,0 +1,130 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.NearbyHotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.service.HotSpringService;
+
+/* HotSpringService calls against in-memory H2, without HTTP. The response cache is turned
+ * off by default so every call reaches the database; -p cache=true measures the cached
+ * path instead. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotSpringServiceBenchmark {
+
+	@Param({"100"})
+	private int hotSprings;
+
+	@Param({"false"})
+	private boolean cache;
+
+	private ConfigurableApplicationContext context;
+	private HotSpringService hotSpringService;
+	private Long skinnyDipperId;
+	private List<Long> hotSpringIds;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(HotSpringApplication.class)
+			.run("--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--spring.datasource.url=jdbc:h2:mem:service-benchmark;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.hibernate.ddl-auto=create-drop",
+				"--spring.jpa.show-sql=false",
+				"--spring.sql.init.mode=always",
+				"--hot-spring.audit.directory=target/audit-service-benchmark",
+				"--hot-spring.cache.maximum-size=" + (cache ? 10000 : 0));
+
+		hotSpringService = context.getBean(HotSpringService.class);
+
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Benchmark");
+		skinnyDipper.setSkinnyDipperEmail("benchmark@example.com");
+		skinnyDipperId = hotSpringService.saveSkinnyDipper(skinnyDipper).getSkinnyDipperId();
+
+		hotSpringIds = new ArrayList<>();
+
+		for (int i = 0; i < hotSprings; i++) {
+			hotSpringIds.add(hotSpringService.savetHotSpring(skinnyDipperId, hotSpring(i))
+				.getHotSpringId());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public SkinnyDipperData retrieveSkinnyDipperById() {
+		return hotSpringService.retrieveSkinnyDipperById(skinnyDipperId);
+	}
+
+	@Benchmark
+	public HotSpringData retrieveHotSpringById() {
+		return hotSpringService.retrieveHotSpringById(skinnyDipperId, nextHotSpringId());
+	}
+
+	@Benchmark
+	public List<NearbyHotSpringData> retrieveNearbyHotSprings() {
+		return hotSpringService.retrieveNearbyHotSprings(42.76, -115.74, 50.0, 10);
+	}
+
+	@Benchmark
+	public HotSpringData updateHotSpring() {
+		Long hotSpringId = nextHotSpringId();
+		HotSpringData hotSpring = hotSpring(hotSpringId.intValue());
+		hotSpring.setHotSpringId(hotSpringId);
+
+		return hotSpringService.savetHotSpring(skinnyDipperId, hotSpring);
+	}
+
+	private Long nextHotSpringId() {
+		next = (next + 1) % hotSpringIds.size();
+		return hotSpringIds.get(next);
+	}
+
+	private static HotSpringData hotSpring(int i) {
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringName("Benchmark Spring " + i);
+		hotSpring.setLatitude(BigDecimal.valueOf(42.7612866 + (i % 100) * 0.001));
+		hotSpring.setLongitude(BigDecimal.valueOf(-115.7392492 - (i % 100) * 0.001));
+		hotSpring.setCounty("Owyhee County");
+		hotSpring.setDirections("Benchmark directions " + System.nanoTime());
+		hotSpring.setDetails(new HashSet<>(List.of("natural", "free",
+			EntityFixtures.DETAILS.get(i % EntityFixtures.DETAILS.size()))));
+		return hotSpring;
+	}
+}
@@ -0,0 +1,112 @@
+package hot.spring.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/* Adds a fixed delay to every statement execution and commit, as if the database were on a
+ * slow network. The delay is a plain sleep while the connection is held, which is what a
+ * thread waiting on a remote MySQL does.
+ *
+ * Added to the application by the load tests; the delay is benchmark.injected-latency. */
+
+@Configuration
+public class InjectedLatencyConfiguration {
+
+	public static final String LATENCY_PROPERTY = "benchmark.injected-latency";
+
+	private static final Set<String> DELAYED_METHODS = Set.of("execute", "executeQuery",
+		"executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch", "commit");
+
+	@Bean
+	public static BeanPostProcessor injectedLatencyPostProcessor(Environment environment) {
+		Duration latency = environment.getProperty(LATENCY_PROPERTY, Duration.class,
+			Duration.ZERO);
+
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !latency.isZero()) {
+					return new DelayingDataSource(dataSource, latency);
+				}
+
+				return bean;
+			}
+		};
+	}
+
+	static class DelayingDataSource extends DelegatingDataSource {
+		private final long delayMillis;
+
+		DelayingDataSource(DataSource target, Duration latency) {
+			super(target);
+			this.delayMillis = latency.toMillis();
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return proxy(Connection.class, super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password)
+				throws SQLException {
+			return proxy(Connection.class, super.getConnection(username, password));
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> T proxy(Class<T> type, T target) {
+			InvocationHandler handler = (proxy, method, args) -> invoke(target, method, args);
+
+			return (T) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] {type}, handler);
+		}
+
+		private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			if (DELAYED_METHODS.contains(method.getName())) {
+				Thread.sleep(delayMillis);
+			}
+
+			Object result;
+
+			try {
+				result = method.invoke(target, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+
+			/* statements created by a connection are wrapped too, so their executes are
+			 * delayed */
+			if (result instanceof CallableStatement statement) {
+				return proxy(CallableStatement.class, statement);
+			}
+
+			if (result instanceof PreparedStatement statement) {
+				return proxy(PreparedStatement.class, statement);
+			}
+
+			if (result instanceof Statement statement) {
+				return proxy(Statement.class, statement);
+			}
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package hot.spring.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hot.spring.controller.model.SkinnyDipperData;
+
+/* Jackson serialization of SkinnyDipperData graphs, with an ObjectMapper configured the way
+ * Spring MVC configures its message converter. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int hotSprings;
+
+	private ObjectMapper objectMapper;
+	private SkinnyDipperData skinnyDipper;
+	private byte[] json;
+
+	@Setup
+	public void setUp() throws IOException {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		skinnyDipper = new SkinnyDipperData(EntityFixtures.skinnyDipper(1, hotSprings, 5));
+		json = objectMapper.writeValueAsBytes(skinnyDipper);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return objectMapper.writeValueAsBytes(skinnyDipper);
+	}
+
+	/* what the message converter does: the DTO is written straight to the response stream */
+	@Benchmark
+	public void serializeToStream(Blackhole blackhole) throws IOException {
+		objectMapper.writeValue(new BlackholeOutputStream(blackhole), skinnyDipper);
+	}
+
+	@Benchmark
+	public SkinnyDipperData deserialize() throws IOException {
+		return objectMapper.readValue(json, SkinnyDipperData.class);
+	}
+}
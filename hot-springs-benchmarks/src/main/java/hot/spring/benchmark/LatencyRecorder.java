@@ -0,0 +1,66 @@
+package hot.spring.benchmark;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/* Records request latencies in nanoseconds. One recorder per client thread, so recording is
+ * just an array store; the recorders are merged once the run is over. */
+
+public class LatencyRecorder {
+
+	private long[] latencies = new long[1024];
+	private int count;
+	private long errors;
+
+	public void record(long latencyNanos) {
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, count * 2);
+		}
+
+		latencies[count++] = latencyNanos;
+	}
+
+	public void recordError() {
+		errors++;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public long errors() {
+		return errors;
+	}
+
+	public static LatencyRecorder merge(Collection<LatencyRecorder> recorders) {
+		LatencyRecorder merged = new LatencyRecorder();
+		int total = recorders.stream().mapToInt(LatencyRecorder::count).sum();
+		merged.latencies = new long[Math.max(1, total)];
+
+		for (LatencyRecorder recorder : recorders) {
+			System.arraycopy(recorder.latencies, 0, merged.latencies, merged.count,
+				recorder.count);
+			merged.count += recorder.count;
+			merged.errors += recorder.errors;
+		}
+
+		Arrays.sort(merged.latencies, 0, merged.count);
+		return merged;
+	}
+
+	/* Nearest-rank percentile in milliseconds. Only meaningful on a merged recorder, whose
+	 * latencies are sorted. */
+
+	public double percentileMillis(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		int rank = (int) Math.ceil(percentile / 100 * count);
+		return latencies[Math.max(0, rank - 1)] / 1_000_000.0;
+	}
+
+	public double maxMillis() {
+		return count == 0 ? 0 : latencies[count - 1] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,577 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.KeysetPage;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.controller.model.SkinnyDipperData.HotSpringResponse;
+
+/* End-to-end load test of every HotSpringController endpoint, run from a single JVM with no
+ * external services.
+ *
+ * Unless --base-url points at a running server, the driver
+ *   1. starts the application without a web server against in-memory H2 (or --jdbc-url),
+ *      and fills it with DatasetGenerator,
+ *   2. restarts it with a web server on a random port, so every in-memory index is loaded
+ *      from the generated rows the same way it is in production,
+ *   3. samples existing skinny dippers and hot springs through the paged listing,
+ *   4. runs --clients closed-loop clients for --warmup, then for --duration, and prints
+ *      throughput and p50/p95/p99 latency for each endpoint.
+ *
+ * Each request is a write with probability --write-ratio, and the endpoint is then picked
+ * by weight within the reads or the writes. Weights can be changed with --mix, for example
+ * --mix=nearby:0,filter:40. The full listing, NDJSON stream and export read every row, so
+ * only one client runs one of them at a time; the others fall back to a read by ID. The
+ * driver only deletes skinny dippers it created itself, and never calls DELETE
+ * /skinny_dipper, which always answers 405.
+ *
+ * Typical runs (about 1 GB of heap per million hot springs):
+ *   mvn compile exec:java -Dexec.mainClass=hot.spring.benchmark.LoadDriver
+ *     -Dexec.args="--hot-springs=10000"
+ *   ... -Dexec.args="--hot-springs=1000000 --clients=64 --write-ratio=0.05"
+ *   ... -Dexec.args="--jdbc-url=jdbc:mysql://localhost:3306/hot_springs_load
+ *     --username=hot_springs --password=hot_springs --hot-springs=100000"
+ *   ... -Dexec.args="--base-url=http://localhost:8080/hot_spring"
+ *
+ * Other options: --hot-springs-per-dipper (10), --seed (42), --clients (32), --warmup
+ * (PT10S), --duration (PT60S), --write-ratio (0.1), --sample (1000). */
+
+public class LoadDriver {
+
+	private static final String H2_URL = "jdbc:h2:mem:load-driver;DB_CLOSE_DELAY=-1";
+
+	private static final Map<String, Integer> READ_WEIGHTS = weights(
+		"dipper-by-id", 30, "dipper-page", 10, "dipper-hot-springs", 5, "hot-spring-by-id", 30,
+		"nearby", 15, "filter", 10, "search", 10, "map", 5, "clusters", 5, "aggregates", 2,
+		"cache-stats", 1, "dipper-list-all", 1, "dipper-ndjson", 1, "export", 1);
+
+	private static final Map<String, Integer> WRITE_WEIGHTS = weights(
+		"create-dipper", 20, "update-dipper", 15, "create-hot-spring", 25,
+		"update-hot-spring", 25, "bulk-import", 5, "delete-dipper", 10);
+
+	private static final Set<String> FULL_READS =
+		Set.of("dipper-list-all", "dipper-ndjson", "export");
+
+	private static final List<List<String>> FILTERS = List.of(
+		List.of("all=free", "all=natural"),
+		List.of("all=natural", "none=!TOO DANGEROUS! DO NOT ATTEMPT!"),
+		List.of("any=A Rating", "any=B Rating", "all=public"),
+		List.of("all=camping available", "none=entrance fee"),
+		List.of("all=skinny dipping friendly", "all=hike-in", "any=overnight access"));
+
+	private final HttpClient httpClient = LoadHarness.httpClient();
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	private final ApplicationArguments arguments;
+	private final int clients;
+	private final double writeRatio;
+	private final Duration warmup;
+	private final Duration duration;
+	private final Map<String, Integer> readWeights = new LinkedHashMap<>(READ_WEIGHTS);
+	private final Map<String, Integer> writeWeights = new LinkedHashMap<>(WRITE_WEIGHTS);
+
+	/* only one full read in flight, so a big dataset is not read by every client at once */
+	private final Semaphore fullRead = new Semaphore(1);
+
+	private final List<SkinnyDipperData> sampledDippers = new ArrayList<>();
+	private final List<HotSpringData> sampledHotSprings = new ArrayList<>();
+	private final ConcurrentLinkedQueue<Long> createdDippers = new ConcurrentLinkedQueue<>();
+	private final Map<String, AtomicLong> errorsByStatus = new ConcurrentHashMap<>();
+
+	private String baseUrl;
+
+	private record Operation(String name, HttpRequest request) {
+	}
+
+	public LoadDriver(ApplicationArguments arguments) {
+		this.arguments = arguments;
+		clients = Integer.parseInt(option("clients", "32"));
+		writeRatio = Double.parseDouble(option("write-ratio", "0.1"));
+		warmup = DurationStyle.detectAndParse(option("warmup", "PT10S"));
+		duration = DurationStyle.detectAndParse(option("duration", "PT60S"));
+
+		for (String entry : option("mix", "").split(",")) {
+			if (entry.isBlank()) {
+				continue;
+			}
+
+			String[] parts = entry.split(":");
+			String name = parts[0].trim();
+			int weight = Integer.parseInt(parts[1].trim());
+
+			if (readWeights.containsKey(name)) {
+				readWeights.put(name, weight);
+			}
+			else if (writeWeights.containsKey(name)) {
+				writeWeights.put(name, weight);
+			}
+			else {
+				throw new IllegalArgumentException("Unknown operation in --mix: " + name
+					+ ", expected one of " + readWeights.keySet() + writeWeights.keySet());
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new LoadDriver(new DefaultApplicationArguments(args)).run();
+	}
+
+	public void run() throws Exception {
+		if (arguments.containsOption("base-url")) {
+			baseUrl = option("base-url", null);
+			drive();
+			return;
+		}
+
+		generate();
+
+		try (ConfigurableApplicationContext context = start(true, List.of())) {
+			baseUrl = LoadHarness.baseUrl(context);
+			drive();
+		}
+	}
+
+	private void generate() {
+		boolean h2 = !arguments.containsOption("jdbc-url");
+		int hotSprings = Integer.parseInt(option("hot-springs", "10000"));
+		int perDipper = Integer.parseInt(option("hot-springs-per-dipper", "10"));
+		long seed = Long.parseLong(option("seed", "42"));
+
+		/* a fresh H2 database needs its tables and details; MySQL keeps its own */
+		List<String> setup = h2
+			? List.of("--spring.jpa.hibernate.ddl-auto=create",
+				"--spring.sql.init.mode=always")
+			: List.of();
+
+		try (ConfigurableApplicationContext context = start(false, setup)) {
+			new DatasetGenerator(context.getBean(DataSource.class), seed)
+				.generate(Math.max(1, hotSprings / perDipper), perDipper);
+		}
+	}
+
+	private ConfigurableApplicationContext start(boolean web, List<String> extra) {
+		List<String> args = new ArrayList<>(List.of(
+			"--spring.main.web-application-type=" + (web ? "servlet" : "none"),
+			"--spring.jpa.show-sql=false",
+			"--hot-spring.audit.directory=target/audit-load-driver",
+			"--spring.datasource.url=" + option("jdbc-url", H2_URL)));
+
+		if (arguments.containsOption("jdbc-url")) {
+			args.add("--spring.datasource.username=" + option("username", "hot_springs"));
+			args.add("--spring.datasource.password=" + option("password", "hot_springs"));
+		}
+		else {
+			args.add("--spring.datasource.username=sa");
+			args.add("--spring.datasource.password=");
+		}
+
+		args.addAll(extra);
+
+		return LoadHarness.start(new SpringApplicationBuilder(HotSpringApplication.class),
+			args.toArray(String[]::new));
+	}
+
+	private void drive() throws Exception {
+		sample(Integer.parseInt(option("sample", "1000")));
+
+		System.out.printf("Sampled %d skinny dippers and %d hot springs from %s%n",
+			sampledDippers.size(), sampledHotSprings.size(), baseUrl);
+
+		run(warmup, 0);
+		errorsByStatus.clear();
+
+		long start = System.nanoTime();
+		Map<String, LatencyRecorder> results = run(duration, 1);
+		report(results, (System.nanoTime() - start) / 1e9);
+	}
+
+	/* Reads up to limit skinny dippers, with their hot springs, through the keyset listing. */
+
+	private void sample(int limit) throws Exception {
+		Long afterId = null;
+
+		while (sampledDippers.size() < limit) {
+			String url = baseUrl + "/skinny_dipper?limit=" + Math.min(1000, limit)
+				+ (Objects.isNull(afterId) ? "" : "&afterId=" + afterId);
+			HttpResponse<byte[]> response = httpClient.send(
+				HttpRequest.newBuilder(URI.create(url)).build(),
+				HttpResponse.BodyHandlers.ofByteArray());
+
+			KeysetPage<SkinnyDipperData> page = objectMapper.readValue(response.body(),
+				new TypeReference<KeysetPage<SkinnyDipperData>>() {});
+
+			for (SkinnyDipperData skinnyDipper : page.getContent()) {
+				sampledDippers.add(skinnyDipper);
+
+				for (HotSpringResponse hotSpring : skinnyDipper.getHotSprings()) {
+					sampledHotSprings.add(toHotSpringData(hotSpring, skinnyDipper));
+				}
+			}
+
+			afterId = page.getNextAfterId();
+
+			if (Objects.isNull(afterId)) {
+				break;
+			}
+		}
+
+		if (sampledDippers.isEmpty() || sampledHotSprings.isEmpty()) {
+			throw new IllegalStateException("Found no hot springs at " + baseUrl
+				+ " to run against");
+		}
+	}
+
+	private Map<String, LatencyRecorder> run(Duration runFor, long seedOffset)
+			throws Exception {
+		long seed = Long.parseLong(option("seed", "42")) + seedOffset * 1_000_003;
+
+		List<Map<String, LatencyRecorder>> results = LoadHarness.runClients(clients, runFor,
+			(client, deadline) -> {
+				Random random = new Random(seed + client);
+				Map<String, LatencyRecorder> recorders = new HashMap<>();
+
+				while (System.nanoTime() < deadline) {
+					Operation operation = nextOperation(random);
+					LatencyRecorder recorder = recorders.computeIfAbsent(operation.name(),
+						name -> new LatencyRecorder());
+
+					try {
+						execute(operation, recorder);
+					}
+					finally {
+						if (FULL_READS.contains(operation.name())) {
+							fullRead.release();
+						}
+					}
+				}
+
+				return recorders;
+			});
+
+		Map<String, List<LatencyRecorder>> byOperation = new TreeMap<>();
+
+		for (Map<String, LatencyRecorder> result : results) {
+			result.forEach((name, recorder) ->
+				byOperation.computeIfAbsent(name, key -> new ArrayList<>()).add(recorder));
+		}
+
+		Map<String, LatencyRecorder> merged = new TreeMap<>();
+		byOperation.forEach((name, recorders) ->
+			merged.put(name, LatencyRecorder.merge(recorders)));
+		return merged;
+	}
+
+	private void execute(Operation operation, LatencyRecorder recorder) {
+		long start = System.nanoTime();
+
+		try {
+			HttpResponse<byte[]> response = httpClient.send(operation.request(),
+				HttpResponse.BodyHandlers.ofByteArray());
+			long latency = System.nanoTime() - start;
+
+			if (response.statusCode() / 100 != 2) {
+				recorder.recordError();
+				errorsByStatus.computeIfAbsent(operation.name() + " " + response.statusCode(),
+					key -> new AtomicLong()).incrementAndGet();
+				return;
+			}
+
+			recorder.record(latency);
+
+			if (operation.name().equals("create-dipper")) {
+				createdDippers.add(objectMapper.readTree(response.body())
+					.path("skinnyDipperId").asLong());
+			}
+		}
+		catch (Exception e) {
+			recorder.recordError();
+			errorsByStatus.computeIfAbsent(operation.name() + " "
+				+ e.getClass().getSimpleName(), key -> new AtomicLong()).incrementAndGet();
+		}
+	}
+
+	private Operation nextOperation(Random random) throws Exception {
+		boolean write = random.nextDouble() < writeRatio;
+		String name = pick(write ? writeWeights : readWeights, random);
+
+		if (FULL_READS.contains(name) && !fullRead.tryAcquire()) {
+			name = "dipper-by-id";
+		}
+
+		if (name.equals("delete-dipper") && createdDippers.isEmpty()) {
+			name = "create-dipper";
+		}
+
+		return new Operation(name, request(name, random));
+	}
+
+	private HttpRequest request(String name, Random random) throws Exception {
+		SkinnyDipperData dipper = sampledDippers.get(random.nextInt(sampledDippers.size()));
+		HotSpringData hotSpring =
+			sampledHotSprings.get(random.nextInt(sampledHotSprings.size()));
+		String hotSpringUrl = "/skinny_dipper/"
+			+ hotSpring.getSkinnyDipper().getSkinnyDipperId() + "/hot_spring/"
+			+ hotSpring.getHotSpringId();
+
+		return switch (name) {
+			case "dipper-by-id" -> get("/skinny_dipper/" + dipper.getSkinnyDipperId());
+			case "dipper-page" -> get("/skinny_dipper?limit=50&afterId="
+				+ (dipper.getSkinnyDipperId() - 1));
+			case "dipper-hot-springs" -> get("/skinny_dipper/" + dipper.getSkinnyDipperId()
+				+ "/hot_spring?limit=100&fields=hotSpringName,latitude,longitude");
+			case "dipper-list-all" -> get("/skinny_dipper");
+			case "dipper-ndjson" -> HttpRequest.newBuilder(uri("/skinny_dipper"))
+				.header("Accept", "application/x-ndjson").build();
+			case "hot-spring-by-id" -> get(hotSpringUrl);
+			case "nearby" -> get("/nearby?lat=" + hotSpring.getLatitude() + "&lon="
+				+ hotSpring.getLongitude() + "&radiusKm=50&limit=20");
+			case "filter" -> get("/filter?limit=50&" + String.join("&",
+				FILTERS.get(random.nextInt(FILTERS.size())).stream()
+					.map(LoadDriver::encodeParameter).toList()));
+			case "search" -> get("/search?q=" + URLEncoder.encode(
+				typeahead(hotSpring, random), StandardCharsets.UTF_8));
+			case "export" ->
+				get("/export?format=" + (random.nextBoolean() ? "csv" : "geojson"));
+			case "map" -> get(mapViewport(hotSpring));
+			case "clusters" -> get(clusterViewport(hotSpring, random));
+			case "aggregates" -> get("/aggregates/" + URLEncoder.encode(
+				Objects.toString(hotSpring.getCounty(), "unknown"), StandardCharsets.UTF_8)
+				.replace("+", "%20"));
+			case "cache-stats" -> get("/cache/stats");
+			case "create-dipper" -> send("POST", "/skinny_dipper", newDipper());
+			case "update-dipper" -> send("PUT",
+				"/skinny_dipper/" + dipper.getSkinnyDipperId(), renamed(dipper, random));
+			case "create-hot-spring" -> send("POST", "/skinny_dipper/"
+				+ dipper.getSkinnyDipperId() + "/hot_spring", newHotSpring(random));
+			case "update-hot-spring" ->
+				send("PUT", hotSpringUrl, redirected(hotSpring, random));
+			case "bulk-import" -> send("POST", "/skinny_dipper/" + dipper.getSkinnyDipperId()
+				+ "/hot_spring/bulk", newHotSprings(random, 20));
+			case "delete-dipper" -> HttpRequest.newBuilder(
+				uri("/skinny_dipper/" + createdDippers.poll())).DELETE().build();
+			default -> throw new IllegalStateException("Unknown operation " + name);
+		};
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(uri(path)).build();
+	}
+
+	private HttpRequest send(String method, String path, Object body) throws Exception {
+		return HttpRequest.newBuilder(uri(path))
+			.header("Content-Type", "application/json")
+			.method(method, HttpRequest.BodyPublishers.ofByteArray(
+				objectMapper.writeValueAsBytes(body)))
+			.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create(baseUrl + path);
+	}
+
+	private static String encodeParameter(String parameter) {
+		int equals = parameter.indexOf('=');
+		return parameter.substring(0, equals + 1)
+			+ URLEncoder.encode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+	}
+
+	/* a map window of about 200 by 250 km around the hot spring */
+	private static String mapViewport(HotSpringData hotSpring) {
+		double lat = hotSpring.getLatitude().doubleValue();
+		double lon = hotSpring.getLongitude().doubleValue();
+
+		return "/map?minLat=" + Math.max(-90, lat - 1) + "&maxLat=" + Math.min(90, lat + 1)
+			+ "&minLon=" + Math.max(-180, lon - 1.5) + "&maxLon=" + Math.min(180, lon + 1.5);
+	}
+
+	/* a window of about 4 by 3 map tiles around the hot spring at a random zoom, some of
+	 * them past the highest cluster zoom */
+	private static String clusterViewport(HotSpringData hotSpring, Random random) {
+		double lat = hotSpring.getLatitude().doubleValue();
+		double lon = hotSpring.getLongitude().doubleValue();
+		int zoom = 3 + random.nextInt(16);
+		double halfWidth = 2 * 360.0 / (1 << zoom);
+		double halfHeight = halfWidth * 0.75;
+
+		return "/clusters?zoom=" + zoom + "&minLat=" + Math.max(-90, lat - halfHeight)
+			+ "&maxLat=" + Math.min(90, lat + halfHeight) + "&minLon="
+			+ Math.max(-180, lon - halfWidth) + "&maxLon=" + Math.min(180, lon + halfWidth);
+	}
+
+	/* the county plus the start of the name, as if typed into a search box */
+	private static String typeahead(HotSpringData hotSpring, Random random) {
+		String name = hotSpring.getHotSpringName();
+		int typed = Math.min(name.length(), 3 + random.nextInt(6));
+		return hotSpring.getCounty().split(" ")[0] + " " + name.substring(0, typed);
+	}
+
+	private SkinnyDipperData newDipper() {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		String name = "load-" + UUID.randomUUID();
+		skinnyDipper.setSkinnyDipperName(name);
+		skinnyDipper.setSkinnyDipperEmail(name + "@example.com");
+		return skinnyDipper;
+	}
+
+	private SkinnyDipperData renamed(SkinnyDipperData dipper, Random random) {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Skinny Dipper " + random.nextInt(1_000_000));
+		skinnyDipper.setSkinnyDipperEmail(dipper.getSkinnyDipperEmail());
+		return skinnyDipper;
+	}
+
+	private HotSpringData newHotSpring(Random random) {
+		HotSpringData template =
+			sampledHotSprings.get(random.nextInt(sampledHotSprings.size()));
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringName("Load Spring " + random.nextInt(1_000_000));
+		hotSpring.setLatitude(jitter(template.getLatitude(), random));
+		hotSpring.setLongitude(jitter(template.getLongitude(), random));
+		hotSpring.setCounty(template.getCounty());
+		hotSpring.setDirections("Added by the load driver");
+		hotSpring.setDetails(template.getDetails());
+		return hotSpring;
+	}
+
+	private List<HotSpringData> newHotSprings(Random random, int count) {
+		List<HotSpringData> hotSprings = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			hotSprings.add(newHotSpring(random));
+		}
+
+		return hotSprings;
+	}
+
+	private HotSpringData redirected(HotSpringData sampled, Random random) {
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringName(sampled.getHotSpringName());
+		hotSpring.setLatitude(sampled.getLatitude());
+		hotSpring.setLongitude(sampled.getLongitude());
+		hotSpring.setCounty(sampled.getCounty());
+		hotSpring.setDirections("Updated directions " + random.nextInt(1_000_000));
+		hotSpring.setDetails(sampled.getDetails());
+		return hotSpring;
+	}
+
+	private static BigDecimal jitter(BigDecimal coordinate, Random random) {
+		return coordinate.add(BigDecimal.valueOf((random.nextDouble() - 0.5) * 0.02))
+			.setScale(7, RoundingMode.HALF_UP);
+	}
+
+	private static HotSpringData toHotSpringData(HotSpringResponse response,
+			SkinnyDipperData owner) {
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringId(response.getHotSpringId());
+		hotSpring.setHotSpringName(response.getHotSpringName());
+		hotSpring.setLatitude(response.getLatitude());
+		hotSpring.setLongitude(response.getLongitude());
+		hotSpring.setCounty(response.getCounty());
+		hotSpring.setDirections(response.getDirections());
+		hotSpring.setDetails(response.getDetails());
+
+		HotSpringData.HotSpringSkinnyDipper skinnyDipper =
+			new HotSpringData.HotSpringSkinnyDipper();
+		skinnyDipper.setSkinnyDipperId(owner.getSkinnyDipperId());
+		hotSpring.setSkinnyDipper(skinnyDipper);
+		return hotSpring;
+	}
+
+	private void report(Map<String, LatencyRecorder> results, double seconds) {
+		System.out.printf("%nclients=%d write-ratio=%.2f duration=%.1fs%n", clients,
+			writeRatio, seconds);
+		System.out.printf("%-18s %9s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests",
+			"errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+		long total = 0;
+
+		for (Map.Entry<String, LatencyRecorder> entry : results.entrySet()) {
+			LatencyRecorder recorder = entry.getValue();
+			total += recorder.count();
+
+			System.out.printf("%-18s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+				recorder.count(), recorder.errors(), recorder.count() / seconds,
+				recorder.percentileMillis(50), recorder.percentileMillis(95),
+				recorder.percentileMillis(99), recorder.maxMillis());
+		}
+
+		System.out.printf("%-18s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+
+		if (!errorsByStatus.isEmpty()) {
+			System.out.println();
+			System.out.println("Errors:");
+			new TreeMap<>(errorsByStatus).forEach((key, count) ->
+				System.out.printf("  %-40s %d%n", key, count.get()));
+		}
+	}
+
+	private String option(String name, String defaultValue) {
+		return LoadHarness.option(arguments, name, defaultValue);
+	}
+
+	private static Map<String, Integer> weights(Object... namesAndWeights) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+
+		for (int i = 0; i < namesAndWeights.length; i += 2) {
+			weights.put((String) namesAndWeights[i], (Integer) namesAndWeights[i + 1]);
+		}
+
+		return weights;
+	}
+
+	private static String pick(Map<String, Integer> weights, Random random) {
+		int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+
+		if (total <= 0) {
+			throw new IllegalArgumentException("Every operation has weight 0: " + weights);
+		}
+
+		int target = random.nextInt(total);
+
+		for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+			target -= entry.getValue();
+
+			if (target < 0) {
+				return entry.getKey();
+			}
+		}
+
+		throw new IllegalStateException("Unreachable");
+	}
+}
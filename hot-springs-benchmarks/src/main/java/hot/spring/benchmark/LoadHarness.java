@@ -0,0 +1,134 @@
+package hot.spring.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/* What the load tests have in common: reading their options, the HTTP client, starting an
+ * application on a random port and running client threads until a deadline. */
+
+public final class LoadHarness {
+
+	private LoadHarness() {
+	}
+
+	/* One client's work, until System.nanoTime() reaches deadline. Clients are numbered
+	 * from 0. */
+
+	@FunctionalInterface
+	public interface ClientLoop<T> {
+		T run(int client, long deadline) throws Exception;
+	}
+
+	public static String option(ApplicationArguments arguments, String name,
+			String defaultValue) {
+		List<String> values = arguments.getOptionValues(name);
+		return Objects.isNull(values) || values.isEmpty() ? defaultValue : values.get(0);
+	}
+
+	public static HttpClient.Builder httpClientBuilder() {
+		return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1);
+	}
+
+	public static HttpClient httpClient() {
+		return httpClientBuilder().build();
+	}
+
+	/* Runs the application on a random port, without the banner and with warnings only,
+	 * plus args. They are command line arguments, so they override application.yaml. */
+
+	public static ConfigurableApplicationContext start(SpringApplicationBuilder application,
+			String... args) {
+		List<String> arguments = new ArrayList<>(List.of("--server.port=0",
+			"--spring.main.banner-mode=off",
+			"--logging.level.root=WARN"));
+		arguments.addAll(Arrays.asList(args));
+
+		return application.run(arguments.toArray(String[]::new));
+	}
+
+	public static int port(ConfigurableApplicationContext context) {
+		return ((WebServerApplicationContext) context).getWebServer().getPort();
+	}
+
+	public static String baseUrl(ConfigurableApplicationContext context) {
+		return "http://localhost:" + port(context) + "/hot_spring";
+	}
+
+	/* Runs each client on its own thread for runFor and returns what the clients returned,
+	 * in client order. */
+
+	public static <T> List<T> runClients(int clients, Duration runFor, ClientLoop<T> loop)
+			throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		long deadline = System.nanoTime() + runFor.toNanos();
+		List<Future<T>> futures = new ArrayList<>();
+
+		try {
+			for (int client = 0; client < clients; client++) {
+				int number = client;
+				futures.add(executor.submit(() -> loop.run(number, deadline)));
+			}
+
+			List<T> results = new ArrayList<>();
+
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+
+			return results;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/* Closed loop: each client GETs the next URL as soon as the previous response is in,
+	 * starting from its own offset into urls. Anything but 200 counts as an error. */
+
+	public static LatencyRecorder getInLoop(HttpClient httpClient, List<String> urls,
+			int clients, Duration runFor) throws Exception {
+		List<LatencyRecorder> recorders = runClients(clients, runFor, (client, deadline) -> {
+			LatencyRecorder recorder = new LatencyRecorder();
+
+			for (int i = client; System.nanoTime() < deadline; i++) {
+				HttpRequest request =
+					HttpRequest.newBuilder(URI.create(urls.get(i % urls.size()))).build();
+				long start = System.nanoTime();
+
+				try {
+					HttpResponse<Void> response =
+						httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+
+					if (response.statusCode() == 200) {
+						recorder.record(System.nanoTime() - start);
+					}
+					else {
+						recorder.recordError();
+					}
+				}
+				catch (Exception e) {
+					recorder.recordError();
+				}
+			}
+
+			return recorder;
+		});
+
+		return LatencyRecorder.merge(recorders);
+	}
+}
@@ -0,0 +1,78 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hot.spring.service.HotSpringMapSnapshot;
+
+/* Map viewport queries against the columnar snapshot, with hot springs spread over the
+ * western United States. A city-sized viewport matches a few hundred hot springs, a state
+ * a few percent and the whole map all of them. The time per query should stay in the low
+ * milliseconds even for the whole map, and gc.alloc.rate.norm should only count the
+ * response arrays, not anything per scanned hot spring. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapSnapshotBenchmark {
+
+	@Param({"100000", "1000000"})
+	private int hotSprings;
+
+	private HotSpringMapSnapshot snapshot;
+	private long naturalMask;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		snapshot = new HotSpringMapSnapshot();
+		naturalMask = HotSpringMapSnapshot.detailBit(7L);
+		Random random = new Random(42);
+
+		for (long id = 1; id <= hotSprings; id++) {
+			BigDecimal latitude = BigDecimal.valueOf(32 + random.nextDouble() * 17)
+				.setScale(7, RoundingMode.HALF_UP);
+			BigDecimal longitude = BigDecimal.valueOf(-124 + random.nextDouble() * 20)
+				.setScale(7, RoundingMode.HALF_UP);
+
+			snapshot.put(id, latitude, longitude, random.nextLong() & 0x3ffffL);
+		}
+	}
+
+	@Benchmark
+	public HotSpringMapSnapshot.Viewport city() {
+		return snapshot.query(43.5, -116.5, 43.8, -116.0, 0, 0, 50000);
+	}
+
+	@Benchmark
+	public HotSpringMapSnapshot.Viewport state() {
+		return snapshot.query(42.0, -117.2, 49.0, -111.0, 0, 0, 500000);
+	}
+
+	@Benchmark
+	public HotSpringMapSnapshot.Viewport wholeMap() {
+		return snapshot.query(-90, -180, 90, 180, 0, 0, 1000000);
+	}
+
+	@Benchmark
+	public HotSpringMapSnapshot.Viewport stateNaturalOnly() {
+		return snapshot.query(42.0, -117.2, 49.0, -111.0, naturalMask, 0, 500000);
+	}
+}
@@ -0,0 +1,326 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.net.CookieManager;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.Server;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/* Runs the read replica routing (hot-spring.read-replicas) against two in-memory H2
+ * databases in this JVM, one standing in for the primary and one for the replica.
+ *
+ * The replica is served over H2's TCP server, so stopping the server looks like a replica
+ * going down. It is kept up to date by copying every table from the primary each --lag, so
+ * it lags behind the primary like a real replica. The test
+ *   1. creates a skinny dipper and reads it back at once, from a client without cookies and
+ *      from one that keeps the write cookie: the first read should reach the stale replica
+ *      and get 404, the second should stay on the primary and get 200,
+ *   2. runs --clients closed-loop readers for --duration and prints how many connections
+ *      each pool handed out; nearly all should come from the replica,
+ *   3. stops the replica and reads again: there should be no errors, the reads fall back to
+ *      the primary,
+ *   4. starts the replica again and reads until the health check sends reads back to it.
+ *
+ *   mvn compile exec:java -Dexec.mainClass=hot.spring.benchmark.ReadReplicaLoadTest
+ *
+ * Options: --lag (PT1S), --clients (16), --hot-springs (50), --duration (PT10S). */
+
+public class ReadReplicaLoadTest {
+
+	private static final String PRIMARY_URL =
+		"jdbc:h2:mem:replica-test-primary;DB_CLOSE_DELAY=-1";
+	private static final String REPLICA_DATABASE = "replica-test-replica";
+	private static final String REPLICA_URL =
+		"jdbc:h2:mem:" + REPLICA_DATABASE + ";DB_CLOSE_DELAY=-1";
+	private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+	/* the application's read-your-writes cookie is kept by one client and not the other */
+	private final HttpClient httpClient = LoadHarness.httpClient();
+
+	private final HttpClient cookieClient = LoadHarness.httpClientBuilder()
+		.cookieHandler(new CookieManager())
+		.build();
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	private final Duration lag;
+	private final int clients;
+	private final int hotSpringCount;
+	private final Duration duration;
+
+	private Server replicaServer;
+	private int replicaPort;
+	private String baseUrl;
+
+	public ReadReplicaLoadTest(ApplicationArguments arguments) {
+		lag = DurationStyle.detectAndParse(LoadHarness.option(arguments, "lag", "PT1S"));
+		clients = Integer.parseInt(LoadHarness.option(arguments, "clients", "16"));
+		hotSpringCount = Integer.parseInt(LoadHarness.option(arguments, "hot-springs", "50"));
+		duration =
+			DurationStyle.detectAndParse(LoadHarness.option(arguments, "duration", "PT10S"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		new ReadReplicaLoadTest(new DefaultApplicationArguments(args)).run();
+	}
+
+	public void run() throws Exception {
+		/* held open for the whole run, so the in-memory replica outlives the TCP server */
+		try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+			replicaPort = freePort();
+			startReplicaServer();
+
+			try (ConfigurableApplicationContext context = start()) {
+				baseUrl = LoadHarness.baseUrl(context);
+				ScheduledExecutorService replicator = startReplication(replica);
+
+				try {
+					test(context.getBean(MeterRegistry.class));
+				}
+				finally {
+					replicator.shutdownNow();
+				}
+			}
+			finally {
+				replicaServer.stop();
+			}
+		}
+	}
+
+	private void test(MeterRegistry meterRegistry) throws Exception {
+		System.out.printf("%nReplica lag %dms, read-your-writes PT5S%n", lag.toMillis());
+
+		int withoutCookie = readAfterWrite(httpClient);
+		int withCookie = readAfterWrite(cookieClient);
+
+		System.out.printf("Read right after a write, no cookie:   %d (404 expected, the "
+			+ "replica is behind)%n", withoutCookie);
+		System.out.printf("Read right after a write, with cookie: %d (200 expected, read "
+			+ "from the primary)%n", withCookie);
+
+		List<String> urls = seed();
+		Thread.sleep(2 * lag.toMillis());
+
+		System.out.printf("%n%-22s %8s %8s %10s %10s %10s %10s%n", "phase", "requests",
+			"errors", "p50 ms", "p99 ms", "primary", "replica");
+
+		phase("replica up", urls, duration, meterRegistry);
+
+		replicaServer.stop();
+		phase("replica down", urls, duration, meterRegistry);
+
+		startReplicaServer();
+		Thread.sleep(2 * HEALTH_CHECK_INTERVAL.toMillis());
+		phase("replica back", urls, duration, meterRegistry);
+
+		Counter fallbacks =
+			meterRegistry.find("hot_spring.datasource.replica_fallbacks").counter();
+		System.out.printf("%nRead-only transactions that fell back to the primary: %.0f%n",
+			Objects.isNull(fallbacks) ? 0 : fallbacks.count());
+	}
+
+	/* Creates a skinny dipper and immediately reads it back with the same client. */
+
+	private int readAfterWrite(HttpClient client) throws Exception {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		String name = "replica-" + System.nanoTime();
+		skinnyDipper.setSkinnyDipperName(name);
+		skinnyDipper.setSkinnyDipperEmail(name + "@example.com");
+
+		skinnyDipper = post(client, baseUrl + "/skinny_dipper", skinnyDipper,
+			SkinnyDipperData.class);
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/skinny_dipper/"
+			+ skinnyDipper.getSkinnyDipperId())).build();
+
+		return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	private void phase(String name, List<String> urls, Duration runFor,
+			MeterRegistry meterRegistry) throws Exception {
+		long primaryBefore = connections(meterRegistry, "primary");
+		long replicaBefore = connections(meterRegistry, "replica-1");
+
+		LatencyRecorder latencies = LoadHarness.getInLoop(httpClient, urls, clients, runFor);
+
+		System.out.printf("%-22s %8d %8d %10.2f %10.2f %10d %10d%n", name, latencies.count(),
+			latencies.errors(), latencies.percentileMillis(50), latencies.percentileMillis(99),
+			connections(meterRegistry, "primary") - primaryBefore,
+			connections(meterRegistry, "replica-1") - replicaBefore);
+	}
+
+	/* connections handed out by a pool, from the pool's own metrics */
+	private static long connections(MeterRegistry meterRegistry, String pool) {
+		Timer usage =
+			meterRegistry.find("hikaricp.connections.usage").tag("pool", pool).timer();
+		return Objects.isNull(usage) ? 0 : usage.count();
+	}
+
+	private ConfigurableApplicationContext start() {
+		return LoadHarness.start(new SpringApplicationBuilder(HotSpringApplication.class),
+			"--logging.level.hot.spring.datasource=INFO",
+			"--spring.datasource.url=" + PRIMARY_URL,
+			"--spring.datasource.username=sa",
+			"--spring.datasource.password=",
+			"--spring.jpa.hibernate.ddl-auto=create-drop",
+			"--spring.jpa.show-sql=false",
+			"--spring.sql.init.mode=always",
+			"--hot-spring.cache.maximum-size=0",
+			"--hot-spring.audit.directory=target/audit-read-replica",
+			"--hot-spring.read-replicas.enabled=true",
+			"--hot-spring.read-replicas.replicas[0].url=jdbc:h2:tcp://localhost:"
+				+ replicaPort + "/mem:" + REPLICA_DATABASE,
+			"--hot-spring.read-replicas.health-check-interval=" + HEALTH_CHECK_INTERVAL,
+			"--hot-spring.read-replicas.read-your-writes=PT5S");
+	}
+
+	private void startReplicaServer() throws SQLException {
+		replicaServer = Server.createTcpServer("-tcpPort", String.valueOf(replicaPort))
+			.start();
+	}
+
+	/* Gives the replica a copy of every table the application created on the primary, as
+	 * linked tables in a SOURCE schema, then refreshes all of them in one transaction every
+	 * lag. Readers on the replica see the previous copy until the refresh commits. */
+
+	private ScheduledExecutorService startReplication(Connection replica) throws SQLException {
+		List<String> tables = new ArrayList<>();
+
+		try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+				Statement statement = primary.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT TABLE_NAME FROM "
+					+ "INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' "
+					+ "AND TABLE_TYPE = 'BASE TABLE'")) {
+			while (resultSet.next()) {
+				tables.add(resultSet.getString(1));
+			}
+		}
+
+		try (Statement statement = replica.createStatement()) {
+			statement.execute("CREATE SCHEMA IF NOT EXISTS SOURCE");
+
+			for (String table : tables) {
+				statement.execute("CREATE LINKED TABLE SOURCE.\"" + table
+					+ "\"('org.h2.Driver', '" + PRIMARY_URL + "', 'sa', '', 'PUBLIC', '"
+					+ table + "') READONLY");
+				statement.execute("CREATE TABLE PUBLIC.\"" + table
+					+ "\" AS SELECT * FROM SOURCE.\"" + table + "\" WITH NO DATA");
+			}
+		}
+
+		replica.setAutoCommit(false);
+		refresh(replica, tables);
+
+		ScheduledExecutorService replicator = Executors.newSingleThreadScheduledExecutor();
+		replicator.scheduleWithFixedDelay(() -> {
+			try {
+				refresh(replica, tables);
+			}
+			catch (SQLException e) {
+				System.err.println("Replication failed: " + e.getMessage());
+			}
+		}, lag.toMillis(), lag.toMillis(), TimeUnit.MILLISECONDS);
+
+		return replicator;
+	}
+
+	private static void refresh(Connection replica, List<String> tables) throws SQLException {
+		try (Statement statement = replica.createStatement()) {
+			for (String table : tables) {
+				statement.execute("DELETE FROM PUBLIC.\"" + table + "\"");
+				statement.execute("INSERT INTO PUBLIC.\"" + table
+					+ "\" SELECT * FROM SOURCE.\"" + table + "\"");
+			}
+
+			replica.commit();
+		}
+		catch (SQLException e) {
+			replica.rollback();
+			throw e;
+		}
+	}
+
+	/* One skinny dipper with hotSpringCount hot springs; returns the hot spring URLs. */
+
+	private List<String> seed() throws Exception {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Replica Test");
+		skinnyDipper.setSkinnyDipperEmail("replica.test@example.com");
+
+		skinnyDipper = post(httpClient, baseUrl + "/skinny_dipper", skinnyDipper,
+			SkinnyDipperData.class);
+		String hotSpringsUrl = baseUrl + "/skinny_dipper/" + skinnyDipper.getSkinnyDipperId()
+			+ "/hot_spring";
+		List<String> urls = new ArrayList<>();
+
+		for (int i = 0; i < hotSpringCount; i++) {
+			HotSpringData hotSpring = new HotSpringData();
+			hotSpring.setHotSpringName("Replica Test Spring " + i);
+			hotSpring.setLatitude(new BigDecimal("44.2279114"));
+			hotSpring.setLongitude(new BigDecimal("-115.9391232"));
+			hotSpring.setCounty("Boise County");
+			hotSpring.setDirections("Seeded by the read replica test");
+			hotSpring.setDetails(Set.of("natural", "free"));
+
+			hotSpring = post(httpClient, hotSpringsUrl, hotSpring, HotSpringData.class);
+			urls.add(hotSpringsUrl + "/" + hotSpring.getHotSpringId());
+		}
+
+		return urls;
+	}
+
+	private <T> T post(HttpClient client, String url, Object body, Class<T> type)
+			throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+			.build();
+
+		HttpResponse<byte[]> response =
+			client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+		if (response.statusCode() != 201) {
+			throw new IllegalStateException("Seeding " + url + " returned "
+				+ response.statusCode() + ": " + new String(response.body()));
+		}
+
+		return objectMapper.readValue(response.body(), type);
+	}
+
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
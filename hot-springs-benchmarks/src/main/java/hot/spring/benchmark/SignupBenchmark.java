@@ -0,0 +1,107 @@
+package hot.spring.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DuplicateKeyException;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.service.HotSpringService;
+
+/* Skinny dipper signups per second, with the email filter on (the uniqueness SELECT is
+ * skipped for new emails) and off (every signup runs the SELECT first, as before).
+ *
+ * In-memory H2 makes a round trip almost free, which hides most of the saving, so the
+ * signups also run with a fixed delay per statement (InjectedLatencyConfiguration):
+ *   mvn compile exec:exec@jmh -Djmh.args="SignupBenchmark"
+ *
+ * duplicateSignup measures the rejected path: the email is already taken, the filter
+ * says "maybe", the SELECT confirms it and no INSERT is attempted. */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SignupBenchmark {
+
+	@Param({"true", "false"})
+	private boolean emailFilter;
+
+	@Param({"0ms", "1ms"})
+	private String latency;
+
+	private final AtomicLong next = new AtomicLong();
+
+	private ConfigurableApplicationContext context;
+	private HotSpringService hotSpringService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(HotSpringApplication.class,
+				InjectedLatencyConfiguration.class)
+			.run("--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--spring.datasource.url=jdbc:h2:mem:signup-benchmark;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.hikari.maximum-pool-size=8",
+				"--spring.jpa.hibernate.ddl-auto=create-drop",
+				"--spring.sql.init.mode=always",
+				"--hot-spring.audit.directory=target/audit-signup-benchmark",
+				"--hot-spring.email-filter.enabled=" + emailFilter,
+				"--" + InjectedLatencyConfiguration.LATENCY_PROPERTY + "=" + latency);
+
+		hotSpringService = context.getBean(HotSpringService.class);
+		hotSpringService.saveSkinnyDipper(dipper("taken@example.com"));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public SkinnyDipperData signup() {
+		return hotSpringService.saveSkinnyDipper(
+			dipper("signup-" + next.incrementAndGet() + "@example.com"));
+	}
+
+	@Benchmark
+	public boolean duplicateSignup() {
+		try {
+			hotSpringService.saveSkinnyDipper(dipper("taken@example.com"));
+			return false;
+		}
+		catch (DuplicateKeyException e) {
+			return true;
+		}
+	}
+
+	private static SkinnyDipperData dipper(String email) {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Signup Benchmark");
+		skinnyDipper.setSkinnyDipperEmail(email);
+		return skinnyDipper;
+	}
+}
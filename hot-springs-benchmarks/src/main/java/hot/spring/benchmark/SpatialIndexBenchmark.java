@@ -0,0 +1,119 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hot.spring.service.HotSpringSpatialIndex;
+
+/* Nearby searches through the grid index against a linear scan of the same points.
+ *
+ * Hot springs are scattered around the same western United States regions as
+ * DatasetGenerator, and the searches start at other points drawn from those regions, so
+ * some land in dense areas and some in empty ones. The indexed searches should stay flat as
+ * the number of hot springs grows, while the scans grow linearly with it. */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpatialIndexBenchmark {
+
+	private static final int QUERY_POINTS = 1024;
+	private static final double RADIUS_KM = 50;
+
+	/* latitude, longitude and spread in degrees, as in DatasetGenerator */
+	private static final double[][] REGIONS = {
+		{44.1, -115.0, 1.2},
+		{42.6, -115.8, 0.8},
+		{44.0, -122.0, 0.9},
+		{41.5, -120.0, 1.0},
+		{37.6, -118.8, 0.7},
+		{39.5, -117.0, 1.5},
+		{38.5, -106.5, 1.0},
+		{44.6, -110.6, 0.5},
+		{35.9, -106.6, 0.8},
+		{33.3, -116.0, 0.9},
+	};
+
+	@Param({"10000", "100000", "1000000"})
+	private int hotSprings;
+
+	private HotSpringSpatialIndex index;
+	private double[][] queries;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		index = new HotSpringSpatialIndex(0.1);
+		Random random = new Random(42);
+
+		for (long id = 1; id <= hotSprings; id++) {
+			double[] point = randomPoint(random);
+			index.put(id, BigDecimal.valueOf(point[0]).setScale(7, RoundingMode.HALF_UP),
+				BigDecimal.valueOf(point[1]).setScale(7, RoundingMode.HALF_UP));
+		}
+
+		queries = new double[QUERY_POINTS][];
+
+		for (int i = 0; i < QUERY_POINTS; i++) {
+			queries[i] = randomPoint(random);
+		}
+	}
+
+	@Benchmark
+	public List<HotSpringSpatialIndex.Neighbor> nearestTen() {
+		double[] query = nextQuery();
+		return index.nearest(query[0], query[1], null, 10);
+	}
+
+	@Benchmark
+	public List<HotSpringSpatialIndex.Neighbor> scanNearestTen() {
+		double[] query = nextQuery();
+		return index.scanAll(query[0], query[1], null, 10);
+	}
+
+	@Benchmark
+	public List<HotSpringSpatialIndex.Neighbor> withinRadius() {
+		double[] query = nextQuery();
+		return index.nearest(query[0], query[1], RADIUS_KM, 100);
+	}
+
+	@Benchmark
+	public List<HotSpringSpatialIndex.Neighbor> scanWithinRadius() {
+		double[] query = nextQuery();
+		return index.scanAll(query[0], query[1], RADIUS_KM, 100);
+	}
+
+	private double[] nextQuery() {
+		next = (next + 1) & (QUERY_POINTS - 1);
+		return queries[next];
+	}
+
+	private static double[] randomPoint(Random random) {
+		double[] region = REGIONS[random.nextInt(REGIONS.length)];
+		double latitude = Math.max(-90, Math.min(90,
+			region[0] + random.nextGaussian() * region[2]));
+		double longitude = Math.max(-180, Math.min(180,
+			region[1] + random.nextGaussian() * region[2]));
+
+		return new double[] {latitude, longitude};
+	}
+}
@@ -0,0 +1,190 @@
+package hot.spring.benchmark;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+
+/* Compares Tomcat platform threads with virtual threads when the database is slow.
+ *
+ * The application is started twice in this JVM against in-memory H2, once per thread mode,
+ * with a fixed delay added to every statement (InjectedLatencyConfiguration) and the
+ * response cache turned off so every request reaches the database. A fixed number of
+ * clients then fetch hot springs by ID in a closed loop, and throughput and latency
+ * percentiles are printed for each mode.
+ *
+ * Virtual threads only remove the Tomcat thread limit; requests still wait for a pooled
+ * connection. The pool defaults to one connection per client here so the thread model is
+ * what is measured. With a pool smaller than server.tomcat.threads.max both modes are
+ * limited by the pool and come out the same.
+ *
+ * Both modules must be built with -Pjava21 for the virtual mode to run:
+ *   mvn -Pjava21 install (in hot-springs)
+ *   mvn -Pjava21 compile exec:java -Dexec.args="--clients=400 --latency=20ms"
+ *
+ * Options: --clients (400), --latency (20ms), --pool-size (clients), --tomcat-threads
+ * (200), --hot-springs (50), --warmup (PT5S), --duration (PT20S). */
+
+public class ThreadModeLoadTest {
+
+	private static final String VIRTUAL_THREAD_CONFIGURATION =
+		"hot.spring.VirtualThreadConfiguration";
+
+	private final HttpClient httpClient = LoadHarness.httpClient();
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	private final int clients;
+	private final Duration latency;
+	private final int poolSize;
+	private final int tomcatThreads;
+	private final int hotSpringCount;
+	private final Duration warmup;
+	private final Duration duration;
+
+	private record Result(String mode, int requests, long errors, double seconds,
+		LatencyRecorder latencies) {
+	}
+
+	public ThreadModeLoadTest(ApplicationArguments arguments) {
+		clients = Integer.parseInt(LoadHarness.option(arguments, "clients", "400"));
+		latency =
+			DurationStyle.detectAndParse(LoadHarness.option(arguments, "latency", "20ms"));
+		poolSize = Integer.parseInt(
+			LoadHarness.option(arguments, "pool-size", String.valueOf(clients)));
+		tomcatThreads =
+			Integer.parseInt(LoadHarness.option(arguments, "tomcat-threads", "200"));
+		hotSpringCount = Integer.parseInt(LoadHarness.option(arguments, "hot-springs", "50"));
+		warmup = DurationStyle.detectAndParse(LoadHarness.option(arguments, "warmup", "PT5S"));
+		duration =
+			DurationStyle.detectAndParse(LoadHarness.option(arguments, "duration", "PT20S"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		new ThreadModeLoadTest(new DefaultApplicationArguments(args)).run();
+	}
+
+	public void run() throws Exception {
+		List<Result> results = new ArrayList<>();
+		results.add(runMode(false));
+
+		if (ClassUtils.isPresent(VIRTUAL_THREAD_CONFIGURATION, null)) {
+			results.add(runMode(true));
+		}
+		else {
+			System.out.println("hot-springs was not built with -Pjava21, skipping virtual "
+				+ "threads");
+		}
+
+		System.out.printf("%nclients=%d latency=%dms pool=%d tomcat-threads=%d duration=%s%n",
+			clients, latency.toMillis(), poolSize, tomcatThreads, duration);
+		System.out.printf("%-10s %10s %8s %10s %10s %10s %10s%n", "mode", "requests", "errors",
+			"req/s", "p50 ms", "p99 ms", "max ms");
+
+		for (Result result : results) {
+			System.out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f%n", result.mode(),
+				result.requests(), result.errors(), result.requests() / result.seconds(),
+				result.latencies().percentileMillis(50), result.latencies().percentileMillis(99),
+				result.latencies().maxMillis());
+		}
+	}
+
+	private Result runMode(boolean virtualThreads) throws Exception {
+		String mode = virtualThreads ? "virtual" : "platform";
+
+		try (ConfigurableApplicationContext context = start(mode, virtualThreads)) {
+			List<String> urls = seed(LoadHarness.baseUrl(context));
+
+			LoadHarness.getInLoop(httpClient, urls, clients, warmup);
+			long start = System.nanoTime();
+			LatencyRecorder latencies =
+				LoadHarness.getInLoop(httpClient, urls, clients, duration);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			return new Result(mode, latencies.count(), latencies.errors(), seconds, latencies);
+		}
+	}
+
+	private ConfigurableApplicationContext start(String mode, boolean virtualThreads) {
+		SpringApplicationBuilder application = new SpringApplicationBuilder(
+			HotSpringApplication.class, InjectedLatencyConfiguration.class);
+
+		return LoadHarness.start(application,
+			"--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+			"--spring.datasource.username=sa",
+			"--spring.datasource.password=",
+			"--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+			"--spring.jpa.hibernate.ddl-auto=create-drop",
+			"--spring.jpa.show-sql=false",
+			"--spring.sql.init.mode=always",
+			"--server.tomcat.threads.max=" + tomcatThreads,
+			"--hot-spring.cache.maximum-size=0",
+			"--hot-spring.audit.directory=target/audit-" + mode,
+			"--hot-spring.virtual-threads.enabled=" + virtualThreads,
+			"--" + InjectedLatencyConfiguration.LATENCY_PROPERTY + "="
+				+ latency.toMillis() + "ms");
+	}
+
+	/* One skinny dipper with hotSpringCount hot springs; returns the hot spring URLs. */
+
+	private List<String> seed(String baseUrl) throws Exception {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Load Test");
+		skinnyDipper.setSkinnyDipperEmail("load.test@example.com");
+
+		skinnyDipper = post(baseUrl + "/skinny_dipper", skinnyDipper, SkinnyDipperData.class);
+		String hotSpringsUrl = baseUrl + "/skinny_dipper/" + skinnyDipper.getSkinnyDipperId()
+			+ "/hot_spring";
+		List<String> urls = new ArrayList<>();
+
+		for (int i = 0; i < hotSpringCount; i++) {
+			HotSpringData hotSpring = new HotSpringData();
+			hotSpring.setHotSpringName("Load Test Spring " + i);
+			hotSpring.setLatitude(new BigDecimal("42.7612866"));
+			hotSpring.setLongitude(new BigDecimal("-115.7392492"));
+			hotSpring.setCounty("Owyhee County");
+			hotSpring.setDirections("Seeded by the load test");
+			hotSpring.setDetails(Set.of("natural", "free", "hike-in"));
+
+			hotSpring = post(hotSpringsUrl, hotSpring, HotSpringData.class);
+			urls.add(hotSpringsUrl + "/" + hotSpring.getHotSpringId());
+		}
+
+		return urls;
+	}
+
+	private <T> T post(String url, Object body, Class<T> type) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+			.build();
+
+		HttpResponse<byte[]> response =
+			httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+		if (response.statusCode() != 201) {
+			throw new IllegalStateException("Seeding " + url + " returned "
+				+ response.statusCode() + ": " + new String(response.body()));
+		}
+
+		return objectMapper.readValue(response.body(), type);
+	}
+}
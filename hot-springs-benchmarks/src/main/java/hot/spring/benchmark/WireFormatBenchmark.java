@@ -0,0 +1,130 @@
+package hot.spring.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import hot.spring.controller.WireFormatConfiguration;
+import hot.spring.controller.model.SkinnyDipperData;
+
+/* CPU and bytes on the wire of each response format, so clients can pick the cheapest one.
+ *
+ * A SkinnyDipperData graph is written and read back as JSON, CBOR and Smile, each plain or
+ * gzipped the way server.compression gzips it. The ObjectMappers are set up like the
+ * message converters in WireFormatConfiguration. JMH reports the time; the message sizes
+ * are printed by main, without running JMH:
+ *
+ *   mvn compile exec:java -Dexec.mainClass=hot.spring.benchmark.WireFormatBenchmark */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+	private static final String[] FORMATS = {"json", "cbor", "smile"};
+	private static final int[] SIZES = {10, 100, 1000};
+
+	@Param({"json", "cbor", "smile"})
+	private String format;
+
+	@Param({"none", "gzip"})
+	private String compression;
+
+	@Param({"10", "100", "1000"})
+	private int hotSprings;
+
+	private ObjectMapper objectMapper;
+	private boolean gzip;
+	private SkinnyDipperData skinnyDipper;
+	private byte[] message;
+
+	@Setup
+	public void setUp() throws IOException {
+		objectMapper = objectMapper(format);
+		gzip = "gzip".equals(compression);
+		skinnyDipper = new SkinnyDipperData(EntityFixtures.skinnyDipper(1, hotSprings, 5));
+		message = write(objectMapper, skinnyDipper, gzip);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return write(objectMapper, skinnyDipper, gzip);
+	}
+
+	@Benchmark
+	public SkinnyDipperData deserialize() throws IOException {
+		try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(message))
+				: new ByteArrayInputStream(message)) {
+			return objectMapper.readValue(in, SkinnyDipperData.class);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		System.out.printf("%12s %8s %12s %12s %8s%n", "hot springs", "format", "bytes",
+			"gzip bytes", "vs json");
+
+		for (int size : SIZES) {
+			SkinnyDipperData skinnyDipper =
+				new SkinnyDipperData(EntityFixtures.skinnyDipper(1, size, 5));
+			long json = write(objectMapper("json"), skinnyDipper, false).length;
+
+			for (String format : FORMATS) {
+				ObjectMapper objectMapper = objectMapper(format);
+				long plain = write(objectMapper, skinnyDipper, false).length;
+				long gzipped = write(objectMapper, skinnyDipper, true).length;
+
+				System.out.printf("%12d %8s %12d %12d %7.0f%%%n", size, format, plain, gzipped,
+					100.0 * plain / json);
+			}
+		}
+	}
+
+	private static ObjectMapper objectMapper(String format) {
+		return switch (format) {
+			case "json" -> Jackson2ObjectMapperBuilder.json().build();
+			case "cbor" -> Jackson2ObjectMapperBuilder.json()
+				.factory(new CBORFactory())
+				.build();
+			case "smile" -> Jackson2ObjectMapperBuilder.json()
+				.factory(WireFormatConfiguration.smileFactory())
+				.build();
+			default -> throw new IllegalArgumentException("Unknown format " + format);
+		};
+	}
+
+	/* GZIPOutputStream at its default level, which is the level Tomcat compresses with */
+	private static byte[] write(ObjectMapper objectMapper, SkinnyDipperData skinnyDipper,
+			boolean gzip) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+			objectMapper.writeValue(out, skinnyDipper);
+		}
+
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,298 @@
+package hot.spring.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import hot.spring.HotSpringApplication;
+import hot.spring.reactive.HotSpringReactiveApplication;
+
+/* Compares the blocking read endpoints (Tomcat and JPA) with the reactive ones (Netty and
+ * R2DBC) under many concurrent slow clients.
+ *
+ * The blocking application creates the schema in in-memory H2 and DatasetGenerator fills
+ * it; the reactive application then reads the same database through H2's R2DBC driver.
+ * Each application is driven in turn by the same open set of clients. A client sends a
+ * request, reads the response one network buffer at a time with a pause in between (a
+ * phone on a bad connection), and sends the next one. Clients are asynchronous, so tens
+ * of thousands of them need only a few threads here; what differs is how many threads
+ * the server needs to keep up with them, which is printed as the JVM's peak thread count.
+ *
+ * The response cache is off so every blocking request reaches the database, as every
+ * reactive one does.
+ *
+ *   mvn install (in hot-springs and in hot-springs-reactive)
+ *   mvn -Preactive compile exec:java
+ *     -Dexec.mainClass=hot.spring.benchmark.ReactiveComparisonLoadTest
+ *     -Dexec.args="--clients=20000 --read-pause=20ms"
+ *
+ * Options: --clients (10000), --read-pause (20ms), --list-percent (5), --dippers (200),
+ * --per-dipper (10), --pool-size (50), --tomcat-threads (200), --warmup (PT10S),
+ * --duration (PT30S). */
+
+public class ReactiveComparisonLoadTest {
+
+	private static final String H2_DATABASE = "reactive-comparison";
+
+	private static final int RECORDER_STRIPES = 64;
+
+	private final HttpClient httpClient = LoadHarness.httpClient();
+
+	private final ScheduledExecutorService readScheduler =
+		Executors.newScheduledThreadPool(4);
+
+	private final int clients;
+	private final Duration readPause;
+	private final int listPercent;
+	private final int dippers;
+	private final int perDipper;
+	private final int poolSize;
+	private final int tomcatThreads;
+	private final Duration warmup;
+	private final Duration duration;
+
+	private DatasetGenerator.Dataset dataset;
+
+	private record Result(String api, int requests, long errors, double seconds,
+		LatencyRecorder latencies, int peakThreads) {
+	}
+
+	public ReactiveComparisonLoadTest(ApplicationArguments arguments) {
+		clients = Integer.parseInt(LoadHarness.option(arguments, "clients", "10000"));
+		readPause =
+			DurationStyle.detectAndParse(LoadHarness.option(arguments, "read-pause", "20ms"));
+		listPercent = Integer.parseInt(LoadHarness.option(arguments, "list-percent", "5"));
+		dippers = Integer.parseInt(LoadHarness.option(arguments, "dippers", "200"));
+		perDipper = Integer.parseInt(LoadHarness.option(arguments, "per-dipper", "10"));
+		poolSize = Integer.parseInt(LoadHarness.option(arguments, "pool-size", "50"));
+		tomcatThreads =
+			Integer.parseInt(LoadHarness.option(arguments, "tomcat-threads", "200"));
+		warmup =
+			DurationStyle.detectAndParse(LoadHarness.option(arguments, "warmup", "PT10S"));
+		duration =
+			DurationStyle.detectAndParse(LoadHarness.option(arguments, "duration", "PT30S"));
+	}
+
+	public static void main(String[] args) throws Exception {
+		new ReactiveComparisonLoadTest(new DefaultApplicationArguments(args)).run();
+	}
+
+	public void run() throws Exception {
+		List<Result> results = new ArrayList<>();
+
+		try (ConfigurableApplicationContext blocking = startBlocking()) {
+			dataset = new DatasetGenerator(blocking.getBean(DataSource.class), 42)
+				.generate(dippers, perDipper);
+			results.add(drive("blocking", blocking));
+		}
+
+		/* the in-memory database outlives the blocking application (DB_CLOSE_DELAY=-1) */
+		try (ConfigurableApplicationContext reactive = startReactive()) {
+			results.add(drive("reactive", reactive));
+		}
+
+		readScheduler.shutdown();
+
+		System.out.printf("%nclients=%d read-pause=%dms list=%d%% dippers=%d per-dipper=%d "
+			+ "pool=%d tomcat-threads=%d duration=%s%n", clients, readPause.toMillis(),
+			listPercent, dippers, perDipper, poolSize, tomcatThreads, duration);
+		System.out.printf("%-10s %10s %8s %10s %10s %10s %10s %8s%n", "api", "requests",
+			"errors", "req/s", "p50 ms", "p99 ms", "max ms", "threads");
+
+		for (Result result : results) {
+			System.out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f %8d%n", result.api(),
+				result.requests(), result.errors(), result.requests() / result.seconds(),
+				result.latencies().percentileMillis(50), result.latencies().percentileMillis(99),
+				result.latencies().maxMillis(), result.peakThreads());
+		}
+	}
+
+	private ConfigurableApplicationContext startBlocking() {
+		return LoadHarness.start(new SpringApplicationBuilder(HotSpringApplication.class),
+			"--spring.autoconfigure.exclude="
+				+ "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration,"
+				+ "org.springframework.boot.autoconfigure.r2dbc."
+				+ "R2dbcTransactionManagerAutoConfiguration,"
+				+ "org.springframework.boot.autoconfigure.data.r2dbc."
+				+ "R2dbcDataAutoConfiguration,"
+				+ "org.springframework.boot.autoconfigure.data.r2dbc."
+				+ "R2dbcRepositoriesAutoConfiguration",
+			"--spring.datasource.url=jdbc:h2:mem:" + H2_DATABASE + ";DB_CLOSE_DELAY=-1",
+			"--spring.datasource.username=sa",
+			"--spring.datasource.password=",
+			"--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+			"--spring.jpa.hibernate.ddl-auto=create",
+			"--spring.sql.init.mode=always",
+			"--server.tomcat.threads.max=" + tomcatThreads,
+			"--server.tomcat.max-connections=" + Math.max(8192, clients + 1000),
+			"--hot-spring.cache.maximum-size=0",
+			"--hot-spring.audit.directory=target/audit-reactive-comparison");
+	}
+
+	private ConfigurableApplicationContext startReactive() {
+		return LoadHarness.start(HotSpringReactiveApplication.builder(),
+			"--spring.autoconfigure.exclude="
+				+ "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+				+ "org.springframework.boot.autoconfigure.jdbc."
+				+ "DataSourceTransactionManagerAutoConfiguration,"
+				+ "org.springframework.boot.autoconfigure.orm.jpa."
+				+ "HibernateJpaAutoConfiguration,"
+				+ "org.springframework.boot.autoconfigure.data.jpa."
+				+ "JpaRepositoriesAutoConfiguration",
+			"--spring.r2dbc.url=r2dbc:h2:mem:///" + H2_DATABASE
+				+ "?options=DB_CLOSE_DELAY=-1",
+			"--spring.r2dbc.username=sa",
+			"--spring.r2dbc.password=",
+			"--spring.r2dbc.pool.max-size=" + poolSize);
+	}
+
+	private Result drive(String api, ConfigurableApplicationContext context) {
+		String baseUrl = LoadHarness.baseUrl(context);
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		run(baseUrl, warmup);
+		threads.resetPeakThreadCount();
+
+		long start = System.nanoTime();
+		LatencyRecorder latencies = run(baseUrl, duration);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		return new Result(api, latencies.count(), latencies.errors(), seconds, latencies,
+			threads.getPeakThreadCount());
+	}
+
+	/* Starts every client and waits until all of them have finished their last request. */
+
+	private LatencyRecorder run(String baseUrl, Duration runFor) {
+		long deadline = System.nanoTime() + runFor.toNanos();
+		List<LatencyRecorder> recorders = new ArrayList<>();
+		List<CompletableFuture<Void>> clientLoops = new ArrayList<>(clients);
+
+		for (int stripe = 0; stripe < RECORDER_STRIPES; stripe++) {
+			recorders.add(new LatencyRecorder());
+		}
+
+		for (int client = 0; client < clients; client++) {
+			clientLoops.add(
+				loop(baseUrl, deadline, recorders.get(client % RECORDER_STRIPES)));
+		}
+
+		CompletableFuture.allOf(clientLoops.toArray(CompletableFuture[]::new)).join();
+		return LatencyRecorder.merge(recorders);
+	}
+
+	private CompletableFuture<Void> loop(String baseUrl, long deadline,
+			LatencyRecorder recorder) {
+		if (System.nanoTime() >= deadline) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + nextPath()))
+			.timeout(Duration.ofMinutes(1))
+			.build();
+		long start = System.nanoTime();
+
+		return httpClient.sendAsync(request, info -> new SlowBodySubscriber())
+			.handle((response, error) -> {
+				synchronized (recorder) {
+					if (Objects.isNull(error) && response.statusCode() == 200) {
+						recorder.record(System.nanoTime() - start);
+					}
+					else {
+						recorder.recordError();
+					}
+				}
+
+				return null;
+			})
+			.thenCompose(ignored -> loop(baseUrl, deadline, recorder));
+	}
+
+	private String nextPath() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int skinnyDippers = dataset.skinnyDippers();
+		int dipper = random.nextInt(skinnyDippers);
+		long skinnyDipperId = dataset.firstSkinnyDipperId() + dipper;
+		int roll = random.nextInt(100);
+
+		if (roll < listPercent) {
+			return "/skinny_dipper";
+		}
+
+		if (perDipper == 0 || roll < listPercent + (100 - listPercent) / 2) {
+			return "/skinny_dipper/" + skinnyDipperId;
+		}
+
+		long hotSpringId = dataset.firstHotSpringId() + (long) dipper * perDipper
+			+ random.nextInt(perDipper);
+		return "/skinny_dipper/" + skinnyDipperId + "/hot_spring/" + hotSpringId;
+	}
+
+	/* Takes one buffer of the response body at a time and waits read-pause before asking
+	 * for the next. The HTTP client stops reading the socket while no buffer is requested,
+	 * so the server sees a client that drains the response slowly. */
+
+	private final class SlowBodySubscriber implements HttpResponse.BodySubscriber<Long> {
+		private final CompletableFuture<Long> body = new CompletableFuture<>();
+		private Flow.Subscription subscription;
+		private long bytes;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> buffers) {
+			for (ByteBuffer buffer : buffers) {
+				bytes += buffer.remaining();
+			}
+
+			if (readPause.isZero()) {
+				subscription.request(1);
+			}
+			else {
+				readScheduler.schedule(() -> subscription.request(1), readPause.toNanos(),
+					TimeUnit.NANOSECONDS);
+			}
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			body.completeExceptionally(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			body.complete(bytes);
+		}
+
+		@Override
+		public CompletableFuture<Long> getBody() {
+			return body;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package hot.spring.reactive;
+
+import java.util.Map;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+
+/* Read-only, non-blocking copy of the hot spring read endpoints: WebFlux on Netty with R2DBC
+ * against the schema the hot-springs application creates. A slow client only holds a
+ * connection and whatever rows it has not read yet, not a thread.
+ *
+ * Everything in this module is conditional on a reactive web application, because the
+ * hot-springs application scans hot.spring and would otherwise pick these beans up when
+ * both are on one classpath (as in the load tests). For the same reason the settings are
+ * read from hot-springs-reactive.yaml instead of application.yaml. */
+
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class HotSpringReactiveApplication {
+
+	public static final String CONFIG_NAME = "hot-springs-reactive";
+
+	public static void main(String[] args) {
+		builder().run(args);
+	}
+
+	public static SpringApplicationBuilder builder() {
+		return new SpringApplicationBuilder(HotSpringReactiveApplication.class)
+			.web(WebApplicationType.REACTIVE)
+			.properties(Map.of("spring.config.name", CONFIG_NAME));
+	}
+
+	/* Netty even when Tomcat is on the classpath too, which Spring Boot would prefer */
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+}
@@ -0,0 +1,85 @@
+package hot.spring.reactive.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.HotSpringData.HotSpringSkinnyDipper;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.controller.model.SkinnyDipperData.HotSpringResponse;
+import hot.spring.reactive.dao.HotSpringRow;
+
+/* Folds the join rows of one skinny dipper or one hot spring into the same response objects
+ * the servlet controller returns, so both APIs produce identical JSON. */
+
+final class HotSpringDataAssembler {
+
+	private HotSpringDataAssembler() {
+	}
+
+	/* all rows must belong to the same skinny dipper */
+	static SkinnyDipperData toSkinnyDipperData(List<HotSpringRow> rows) {
+		HotSpringRow first = rows.get(0);
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperId(first.skinnyDipperId());
+		skinnyDipper.setSkinnyDipperName(first.skinnyDipperName());
+		skinnyDipper.setSkinnyDipperEmail(first.skinnyDipperEmail());
+
+		Map<Long, HotSpringResponse> hotSprings = new LinkedHashMap<>();
+
+		for (HotSpringRow row : rows) {
+			if (Objects.isNull(row.hotSpringId())) {
+				continue;
+			}
+
+			HotSpringResponse hotSpring = hotSprings.computeIfAbsent(row.hotSpringId(),
+				id -> toHotSpringResponse(row));
+
+			if (Objects.nonNull(row.detail())) {
+				hotSpring.getDetails().add(row.detail());
+			}
+		}
+
+		skinnyDipper.getHotSprings().addAll(hotSprings.values());
+		return skinnyDipper;
+	}
+
+	/* all rows must belong to the same hot spring */
+	static HotSpringData toHotSpringData(List<HotSpringRow> rows) {
+		HotSpringRow first = rows.get(0);
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringId(first.hotSpringId());
+		hotSpring.setHotSpringName(first.hotSpringName());
+		hotSpring.setLongitude(first.longitude());
+		hotSpring.setLatitude(first.latitude());
+		hotSpring.setCounty(first.county());
+		hotSpring.setDirections(first.directions());
+
+		HotSpringSkinnyDipper skinnyDipper = new HotSpringSkinnyDipper();
+		skinnyDipper.setSkinnyDipperId(first.skinnyDipperId());
+		skinnyDipper.setSkinnyDipperName(first.skinnyDipperName());
+		skinnyDipper.setSkinnyDipperEmail(first.skinnyDipperEmail());
+		hotSpring.setSkinnyDipper(skinnyDipper);
+
+		for (HotSpringRow row : rows) {
+			if (Objects.nonNull(row.detail())) {
+				hotSpring.getDetails().add(row.detail());
+			}
+		}
+
+		return hotSpring;
+	}
+
+	private static HotSpringResponse toHotSpringResponse(HotSpringRow row) {
+		HotSpringResponse hotSpring = new HotSpringResponse();
+		hotSpring.setHotSpringId(row.hotSpringId());
+		hotSpring.setHotSpringName(row.hotSpringName());
+		hotSpring.setLongitude(row.longitude());
+		hotSpring.setLatitude(row.latitude());
+		hotSpring.setCounty(row.county());
+		hotSpring.setDirections(row.directions());
+		return hotSpring;
+	}
+}
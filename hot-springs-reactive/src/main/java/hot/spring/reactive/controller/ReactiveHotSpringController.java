@@ -0,0 +1,88 @@
+package hot.spring.reactive.controller;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.reactive.dao.HotSpringRow;
+import hot.spring.reactive.dao.ReactiveHotSpringDao;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/* The read endpoints of HotSpringController, at the same paths and with the same JSON, but
+ * without a thread per request. Writes stay on the servlet application. */
+
+@RestController
+@RequestMapping("/hot_spring")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveHotSpringController {
+
+	@Autowired
+	private ReactiveHotSpringDao reactiveHotSpringDao;
+
+	/* Streamed as a JSON array, or as newline delimited JSON with
+	 * Accept: application/x-ndjson. A skinny dipper is written as soon as their last row has
+	 * been read, and rows are only read as fast as the client takes the response, so a slow
+	 * client never makes the whole list sit in memory. */
+
+	@GetMapping(value = "/skinny_dipper",
+		produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public Flux<SkinnyDipperData> retrieveAllSkinnyDippers() {
+		log.info("Retrieve all skinny dippers called.");
+
+		return reactiveHotSpringDao.findAllRows()
+			.bufferUntilChanged(HotSpringRow::skinnyDipperId)
+			.map(HotSpringDataAssembler::toSkinnyDipperData);
+	}
+
+	@GetMapping("/skinny_dipper/{skinnyDipperId}")
+	public Mono<SkinnyDipperData> retrieveSkinnyDipperById(
+			@PathVariable Long skinnyDipperId) {
+		log.info("Retrieving skinny dipper with ID = {}", skinnyDipperId);
+
+		return reactiveHotSpringDao.findRowsBySkinnyDipperId(skinnyDipperId)
+			.map(HotSpringDataAssembler::toSkinnyDipperData)
+			.switchIfEmpty(Mono.error(() -> new NoSuchElementException(
+				"Skinny dipper with ID =" + skinnyDipperId + " was not found.")));
+	}
+
+	@GetMapping("/skinny_dipper/{skinnyDipperId}/hot_spring/{hotSpringId}")
+	public Mono<HotSpringData> retrieveHotSpringById(@PathVariable Long skinnyDipperId,
+			@PathVariable Long hotSpringId) {
+		log.info("Retrieving hot spring with ID = {} for skinny dipper with ID = {}",
+			hotSpringId, skinnyDipperId);
+
+		return reactiveHotSpringDao.findRowsByHotSpringId(hotSpringId)
+			.map(HotSpringDataAssembler::toHotSpringData)
+			.switchIfEmpty(Mono.error(() -> new NoSuchElementException(
+				"Hot spring with ID = " + hotSpringId + " does not exist.")))
+			.flatMap(hotSpring -> checkOwner(hotSpring, skinnyDipperId));
+	}
+
+	/* same answers as HotSpringService.retrieveHotSpringById for a hot spring that belongs to
+	 * someone else */
+	private Mono<HotSpringData> checkOwner(HotSpringData hotSpring, Long skinnyDipperId) {
+		if (Objects.equals(hotSpring.getSkinnyDipper().getSkinnyDipperId(), skinnyDipperId)) {
+			return Mono.just(hotSpring);
+		}
+
+		return reactiveHotSpringDao.existsSkinnyDipperById(skinnyDipperId)
+			.flatMap(exists -> Mono.<HotSpringData>error(exists
+				? new IllegalStateException("Hot spring with ID = "
+					+ hotSpring.getHotSpringId() + " is not owned by skinny dipper with ID = "
+					+ skinnyDipperId)
+				: new NoSuchElementException(
+					"Skinny dipper with ID =" + skinnyDipperId + " was not found.")));
+	}
+}
@@ -0,0 +1,71 @@
+package hot.spring.reactive.controller.error;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.NoSuchElementException;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebExchange;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/* The error responses of GlobalControllerErrorHandler for the reactive endpoints: same
+ * statuses and the same JSON body. */
+
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveControllerErrorHandler {
+
+	@Data
+	public static class ExceptionMessage {
+		private String message;
+		private String statusReason;
+		private int statusCode;
+		private String timestamp;
+		private String uri;
+	}
+
+	@ExceptionHandler(NoSuchElementException.class)
+	@ResponseStatus(code = HttpStatus.NOT_FOUND)
+	public ExceptionMessage handleNoSuchElementException(NoSuchElementException ex,
+			ServerWebExchange exchange) {
+		return buildExceptionMessage(ex, HttpStatus.NOT_FOUND, exchange, false);
+	}
+
+	@ExceptionHandler({ IllegalStateException.class, IllegalArgumentException.class })
+	@ResponseStatus(code = HttpStatus.BAD_REQUEST)
+	public ExceptionMessage handleBadRequest(RuntimeException ex, ServerWebExchange exchange) {
+		return buildExceptionMessage(ex, HttpStatus.BAD_REQUEST, exchange, false);
+	}
+
+	@ExceptionHandler(Exception.class)
+	@ResponseStatus(code = HttpStatus.INTERNAL_SERVER_ERROR)
+	public ExceptionMessage handleException(Exception ex, ServerWebExchange exchange) {
+		return buildExceptionMessage(ex, HttpStatus.INTERNAL_SERVER_ERROR, exchange, true);
+	}
+
+	private ExceptionMessage buildExceptionMessage(Exception ex, HttpStatus status,
+			ServerWebExchange exchange, boolean stackTrace) {
+		if (stackTrace) {
+			log.error("Exception: ", ex);
+		}
+		else {
+			log.error("Exception: {}", ex.toString());
+		}
+
+		ExceptionMessage excMsg = new ExceptionMessage();
+		excMsg.setMessage(ex.toString());
+		excMsg.setStatusCode(status.value());
+		excMsg.setStatusReason(status.getReasonPhrase());
+		excMsg.setTimestamp(ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME));
+		excMsg.setUri(exchange.getRequest().getPath().value());
+
+		return excMsg;
+	}
+}
@@ -0,0 +1,12 @@
+package hot.spring.reactive.dao;
+
+import java.math.BigDecimal;
+
+/* One row of the skinny dipper, hot spring and detail join. The hot spring columns are null
+ * for a skinny dipper without hot springs, and detail is null for a hot spring without
+ * details. */
+
+public record HotSpringRow(Long skinnyDipperId, String skinnyDipperName,
+	String skinnyDipperEmail, Long hotSpringId, String hotSpringName, BigDecimal longitude,
+	BigDecimal latitude, String county, String directions, String detail) {
+}
@@ -0,0 +1,85 @@
+package hot.spring.reactive.dao;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/* The reads behind the reactive endpoints, as plain SQL over R2DBC.
+ *
+ * Each read is one left join of skinny_dipper, hot_spring, hot_spring_detail and detail,
+ * ordered so that all rows of a skinny dipper (and of each of their hot springs) are next
+ * to each other. The rows are emitted as the driver reads them and only pulled from the
+ * database as fast as the subscriber asks for them. */
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveHotSpringDao {
+
+	private static final String SELECT = "select s.skinny_dipper_id, s.skinny_dipper_name, "
+		+ "s.skinny_dipper_email, h.hot_spring_id, h.hot_spring_name, h.longitude, "
+		+ "h.latitude, h.county, h.directions, d.detail "
+		+ "from skinny_dipper s "
+		+ "left join hot_spring h on h.skinny_dipper_id = s.skinny_dipper_id "
+		+ "left join hot_spring_detail hd on hd.hot_spring_id = h.hot_spring_id "
+		+ "left join detail d on d.detail_id = hd.detail_id ";
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	/* every skinny dipper, ordered by ID */
+	public Flux<HotSpringRow> findAllRows() {
+		return databaseClient.sql(SELECT + "order by s.skinny_dipper_id, h.hot_spring_id")
+			.map(ReactiveHotSpringDao::toRow)
+			.all();
+	}
+
+	public Mono<List<HotSpringRow>> findRowsBySkinnyDipperId(Long skinnyDipperId) {
+		return databaseClient.sql(SELECT + "where s.skinny_dipper_id = :skinnyDipperId "
+				+ "order by h.hot_spring_id")
+			.bind("skinnyDipperId", skinnyDipperId)
+			.map(ReactiveHotSpringDao::toRow)
+			.all()
+			.collectList()
+			.filter(rows -> !rows.isEmpty());
+	}
+
+	public Mono<List<HotSpringRow>> findRowsByHotSpringId(Long hotSpringId) {
+		return databaseClient.sql(SELECT + "where h.hot_spring_id = :hotSpringId")
+			.bind("hotSpringId", hotSpringId)
+			.map(ReactiveHotSpringDao::toRow)
+			.all()
+			.collectList()
+			.filter(rows -> !rows.isEmpty());
+	}
+
+	public Mono<Boolean> existsSkinnyDipperById(Long skinnyDipperId) {
+		return databaseClient.sql("select count(*) from skinny_dipper "
+				+ "where skinny_dipper_id = :skinnyDipperId")
+			.bind("skinnyDipperId", skinnyDipperId)
+			.map(row -> row.get(0, Long.class))
+			.one()
+			.map(count -> Objects.nonNull(count) && count > 0);
+	}
+
+	private static HotSpringRow toRow(Readable row) {
+		return new HotSpringRow(row.get("skinny_dipper_id", Long.class),
+			row.get("skinny_dipper_name", String.class),
+			row.get("skinny_dipper_email", String.class),
+			row.get("hot_spring_id", Long.class),
+			row.get("hot_spring_name", String.class),
+			row.get("longitude", BigDecimal.class),
+			row.get("latitude", BigDecimal.class),
+			row.get("county", String.class),
+			row.get("directions", String.class),
+			row.get("detail", String.class));
+	}
+}
@@ -2,8 +2,10 @@ package hot.spring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 //@SpringBootApplication(exclude = DataSourceAutoConfiguration.class)
 @SpringBootApplication
+@EnableScheduling
 //annotations can be applied at class level, method level, for individual fields
 public class HotSpringApplication {
 
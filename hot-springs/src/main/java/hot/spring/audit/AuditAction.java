@@ -0,0 +1,43 @@
+package hot.spring.audit;
+
+import java.util.Objects;
+
+/* What happened to which kind of entity. Stored as one byte per journal record, so codes
+ * must never be reused or renumbered. */
+
+public enum AuditAction {
+	SKINNY_DIPPER_CREATED(1),
+	SKINNY_DIPPER_UPDATED(2),
+	SKINNY_DIPPER_DELETED(3),
+	HOT_SPRING_CREATED(4),
+	HOT_SPRING_UPDATED(5),
+	HOT_SPRING_DELETED(6);
+
+	private static final AuditAction[] BY_CODE = new AuditAction[7];
+
+	static {
+		for (AuditAction action : values()) {
+			BY_CODE[action.code] = action;
+		}
+	}
+
+	private final byte code;
+
+	AuditAction(int code) {
+		this.code = (byte) code;
+	}
+
+	public byte code() {
+		return code;
+	}
+
+	public static AuditAction fromCode(byte code) {
+		AuditAction action = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+
+		if (Objects.isNull(action)) {
+			throw new IllegalStateException("Unknown audit action code " + code);
+		}
+
+		return action;
+	}
+}
@@ -0,0 +1,270 @@
+package hot.spring.audit;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.service.HotSpringDeletedEvent;
+import hot.spring.service.HotSpringSavedEvent;
+import hot.spring.service.SkinnyDipperDeletedEvent;
+import hot.spring.service.SkinnyDipperSavedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/* Append-only journal of every committed create, update and delete of a skinny dipper or
+ * hot spring.
+ *
+ * The listeners run on the request thread after commit. They only copy four numbers into
+ * a preallocated ring buffer and return: no allocation, no lock, no I/O, and never a wait.
+ * A single writer thread drains the ring into the memory-mapped journal (AuditJournalFile)
+ * and forces it to disk at least every flush-interval while there is unflushed data. A
+ * failed write or force is logged and retried; it never ends the writer.
+ *
+ * The ring is a multi-producer, single-consumer queue. A producer claims a sequence with
+ * a compare-and-set, fills the slot and publishes it by storing sequence + 1 in the slot's
+ * marker; the writer reads slots in sequence order and stops at the first one that is not
+ * published yet. If the writer has fallen a whole ring behind, for example because the disk
+ * is failing, the record is dropped and counted as hot_spring.audit.dropped instead of
+ * holding up the request.
+ *
+ * An idle writer parks until a producer wakes it, or until the next force is due.
+ *
+ * Read the journal with AuditJournalReader. */
+
+@Component
+@Slf4j
+public class AuditJournal {
+
+	private static final long RETRY_PARK_NANOS = Duration.ofSeconds(1).toNanos();
+
+	private final Path directory;
+	private final long segmentSize;
+	private final long flushIntervalNanos;
+	private final int capacity;
+	private final int mask;
+
+	private final long[] timestamps;
+	private final byte[] actions;
+	private final long[] entityIds;
+	private final long[] skinnyDipperIds;
+	private final AtomicLongArray published;
+
+	private final AtomicLong claimed = new AtomicLong();
+	private volatile long written;
+	private volatile boolean running;
+
+	/* set by the writer before it parks, so producers only unpark it when it needs it */
+	private volatile boolean sleeping;
+
+	private final Counter dropped;
+
+	private AuditJournalFile file;
+	private FileChannel lockChannel;
+	private FileLock lock;
+	private Thread writer;
+
+	public AuditJournal(@Value("${hot-spring.audit.directory:audit}") Path directory,
+			@Value("${hot-spring.audit.segment-size:64MB}") DataSize segmentSize,
+			@Value("${hot-spring.audit.buffer-capacity:65536}") int bufferCapacity,
+			@Value("${hot-spring.audit.flush-interval:PT1S}") Duration flushInterval,
+			MeterRegistry meterRegistry) {
+		if (bufferCapacity < 2 || Integer.bitCount(bufferCapacity) != 1) {
+			throw new IllegalArgumentException(
+				"Audit buffer capacity must be a power of two, was " + bufferCapacity);
+		}
+
+		this.directory = directory;
+		this.segmentSize = segmentSize.toBytes();
+		this.flushIntervalNanos = flushInterval.toNanos();
+		this.capacity = bufferCapacity;
+		this.mask = bufferCapacity - 1;
+
+		timestamps = new long[capacity];
+		actions = new byte[capacity];
+		entityIds = new long[capacity];
+		skinnyDipperIds = new long[capacity];
+		published = new AtomicLongArray(capacity);
+
+		dropped = Counter.builder("hot_spring.audit.dropped")
+			.description("Audit records dropped because the journal writer was a ring behind")
+			.register(meterRegistry);
+		Gauge.builder("hot_spring.audit.backlog", this,
+				journal -> journal.claimed.get() - journal.written)
+			.description("Audit records waiting for the journal writer")
+			.register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		/* one writer per directory, also across processes */
+		Files.createDirectories(directory);
+		lockChannel = FileChannel.open(directory.resolve("journal.lock"),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		lock = lockChannel.tryLock();
+
+		if (Objects.isNull(lock)) {
+			lockChannel.close();
+			throw new IllegalStateException("Audit journal " + directory.toAbsolutePath()
+				+ " is in use by another process");
+		}
+
+		file = new AuditJournalFile(directory, segmentSize);
+		running = true;
+
+		writer = new Thread(this::drain, "audit-journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws IOException, InterruptedException {
+		running = false;
+		LockSupport.unpark(writer);
+		writer.join(Duration.ofSeconds(10).toMillis());
+
+		lock.release();
+		lockChannel.close();
+	}
+
+	@TransactionalEventListener
+	public void onSkinnyDipperSaved(SkinnyDipperSavedEvent event) {
+		Long skinnyDipperId = event.skinnyDipper().getSkinnyDipperId();
+
+		append(event.created() ? AuditAction.SKINNY_DIPPER_CREATED
+			: AuditAction.SKINNY_DIPPER_UPDATED, skinnyDipperId, skinnyDipperId);
+	}
+
+	@TransactionalEventListener
+	public void onSkinnyDipperDeleted(SkinnyDipperDeletedEvent event) {
+		append(AuditAction.SKINNY_DIPPER_DELETED, event.skinnyDipperId(),
+			event.skinnyDipperId());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		HotSpringData hotSpring = event.hotSpring();
+
+		append(Objects.isNull(event.previousSkinnyDipperId()) ? AuditAction.HOT_SPRING_CREATED
+			: AuditAction.HOT_SPRING_UPDATED, hotSpring.getHotSpringId(),
+			hotSpring.getSkinnyDipper().getSkinnyDipperId());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		append(AuditAction.HOT_SPRING_DELETED, event.hotSpringId(), event.skinnyDipperId());
+	}
+
+	void append(AuditAction action, long entityId, long skinnyDipperId) {
+		long sequence;
+
+		/* only claim a slot the writer is done with; a full ring drops the record */
+		do {
+			sequence = claimed.get();
+
+			if (sequence - written >= capacity) {
+				dropped.increment();
+				return;
+			}
+		}
+		while (!claimed.compareAndSet(sequence, sequence + 1));
+
+		int slot = (int) (sequence & mask);
+		timestamps[slot] = System.currentTimeMillis();
+		actions[slot] = action.code();
+		entityIds[slot] = entityId;
+		skinnyDipperIds[slot] = skinnyDipperId;
+
+		/* volatile store: the writer sees the fields above once it sees the marker, and
+		 * either it sees the marker before parking or this thread sees it sleeping */
+		published.set(slot, sequence + 1);
+
+		if (sleeping) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	private void drain() {
+		long lastForce = System.nanoTime();
+		boolean dirty = false;
+
+		while (true) {
+			long sequence = written;
+			int slot = (int) (sequence & mask);
+			boolean available = published.get(slot) == sequence + 1;
+
+			if (available) {
+				try {
+					file.append(timestamps[slot], actions[slot], entityIds[slot],
+						skinnyDipperIds[slot]);
+					written = sequence + 1;
+					dirty = true;
+				}
+				catch (IOException | RuntimeException e) {
+					/* the record stays in the ring; producers wait if the ring fills up */
+					log.error("Audit journal write failed, retrying", e);
+					LockSupport.parkNanos(RETRY_PARK_NANOS);
+				}
+			}
+			else if (!running && sequence == claimed.get()) {
+				break;
+			}
+
+			if (dirty && System.nanoTime() - lastForce >= flushIntervalNanos) {
+				try {
+					file.force();
+					dirty = false;
+				}
+				catch (RuntimeException e) {
+					/* still dirty, so the force is tried again after the next interval */
+					log.error("Audit journal force failed, retrying", e);
+				}
+
+				lastForce = System.nanoTime();
+			}
+
+			if (!available) {
+				awaitRecord(written, dirty
+					? Math.max(1, flushIntervalNanos - (System.nanoTime() - lastForce)) : 0);
+			}
+		}
+
+		file.close();
+		log.info("Audit journal closed at sequence {}", file.nextSequence());
+	}
+
+	/* Parks until the record at sequence is published, stop is called or timeoutNanos have
+	 * passed; 0 waits without a timeout. */
+
+	private void awaitRecord(long sequence, long timeoutNanos) {
+		sleeping = true;
+
+		if (running && published.get((int) (sequence & mask)) != sequence + 1) {
+			if (timeoutNanos > 0) {
+				LockSupport.parkNanos(this, timeoutNanos);
+			}
+			else {
+				LockSupport.park(this);
+			}
+		}
+
+		sleeping = false;
+	}
+}
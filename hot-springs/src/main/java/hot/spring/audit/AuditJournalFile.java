@@ -0,0 +1,201 @@
+package hot.spring.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/* The on-disk format of the audit journal, and the memory-mapped segment it is written to.
+ *
+ * The journal is a directory of segment files named audit-<first sequence>.journal. Each
+ * segment is a fixed size, preallocated and mapped into memory. It starts with a 16 byte
+ * header (magic, record size, first sequence) followed by fixed-size records:
+ *
+ *   long sequence | long epoch millis | byte action | long entity ID | long skinny dipper ID
+ *   | int CRC32C of the preceding 33 bytes
+ *
+ * Sequences start at 1 and have no gaps, so the first all-zero record marks the end of the
+ * data. A record with a bad checksum at the end of the last segment was torn by a crash and
+ * is overwritten when the journal is reopened.
+ *
+ * Only used by the writer thread, so it is not thread safe. */
+
+@Slf4j
+class AuditJournalFile implements Closeable {
+
+	static final int MAGIC = 0x48534A31;
+	static final int HEADER_SIZE = 16;
+	static final int RECORD_SIZE = 37;
+	static final int CHECKED_SIZE = RECORD_SIZE - Integer.BYTES;
+
+	private final Path directory;
+	private final long segmentSize;
+	private final byte[] scratch = new byte[CHECKED_SIZE];
+	private final ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+	private final CRC32C crc = new CRC32C();
+
+	private MappedByteBuffer segment;
+	private long nextSequence;
+
+	AuditJournalFile(Path directory, long segmentSize) throws IOException {
+		if (segmentSize < HEADER_SIZE + RECORD_SIZE || segmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Audit journal segment size must be between "
+				+ (HEADER_SIZE + RECORD_SIZE) + " bytes and 2 GB, was " + segmentSize);
+		}
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(directory);
+
+		List<Path> segments = segments(directory);
+
+		if (segments.isEmpty()) {
+			openSegment(1);
+		}
+		else {
+			reopen(segments.get(segments.size() - 1));
+		}
+	}
+
+	long nextSequence() {
+		return nextSequence;
+	}
+
+	long append(long timestampMillis, byte action, long entityId, long skinnyDipperId)
+			throws IOException {
+		if (segment.remaining() < RECORD_SIZE) {
+			segment.force();
+			openSegment(nextSequence);
+		}
+
+		long sequence = nextSequence++;
+
+		scratchBuffer.clear();
+		scratchBuffer.putLong(sequence)
+			.putLong(timestampMillis)
+			.put(action)
+			.putLong(entityId)
+			.putLong(skinnyDipperId);
+
+		crc.reset();
+		crc.update(scratch, 0, CHECKED_SIZE);
+
+		segment.put(scratch, 0, CHECKED_SIZE);
+		segment.putInt((int) crc.getValue());
+		return sequence;
+	}
+
+	void force() {
+		segment.force();
+	}
+
+	@Override
+	public void close() {
+		force();
+	}
+
+	private void openSegment(long firstSequence) throws IOException {
+		Path path = directory.resolve(segmentName(firstSequence));
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+
+		segment.putInt(MAGIC).putInt(RECORD_SIZE).putLong(firstSequence);
+		nextSequence = firstSequence;
+		log.info("Audit journal writing to {}", path);
+	}
+
+	/* Continues the last segment after its last valid record. */
+
+	private void reopen(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+		}
+
+		long firstSequence = readHeader(segment, path);
+		nextSequence = firstSequence;
+
+		while (segment.remaining() >= RECORD_SIZE
+				&& readRecord(segment, nextSequence, crc) != null) {
+			nextSequence++;
+		}
+
+		/* step back over the record that ended the scan, so it gets overwritten */
+		segment.position((int) (HEADER_SIZE + (nextSequence - firstSequence) * RECORD_SIZE));
+
+		log.info("Audit journal continuing {} at sequence {}", path, nextSequence);
+	}
+
+	static String segmentName(long firstSequence) {
+		return String.format("audit-%020d.journal", firstSequence);
+	}
+
+	static List<Path> segments(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return List.of();
+		}
+
+		try (Stream<Path> files = Files.list(directory)) {
+			return files
+				.filter(path -> path.getFileName().toString().matches("audit-\\d{20}\\.journal"))
+				.sorted()
+				.toList();
+		}
+	}
+
+	static long readHeader(ByteBuffer buffer, Path path) {
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+			throw new IllegalStateException(path + " is not an audit journal segment");
+		}
+
+		int recordSize = buffer.getInt();
+
+		if (recordSize != RECORD_SIZE) {
+			throw new IllegalStateException(path + " has " + recordSize
+				+ " byte records, expected " + RECORD_SIZE);
+		}
+
+		return buffer.getLong();
+	}
+
+	/* Reads the record at the buffer's position if it is the expected sequence and its
+	 * checksum matches; otherwise returns null. The position moves past the record either
+	 * way. */
+
+	static AuditRecord readRecord(ByteBuffer buffer, long expectedSequence, CRC32C crc) {
+		int start = buffer.position();
+		long sequence = buffer.getLong();
+		long timestampMillis = buffer.getLong();
+		byte action = buffer.get();
+		long entityId = buffer.getLong();
+		long skinnyDipperId = buffer.getLong();
+		int checksum = buffer.getInt();
+
+		if (sequence != expectedSequence) {
+			return null;
+		}
+
+		crc.reset();
+		crc.update(buffer.duplicate().position(start).limit(start + CHECKED_SIZE));
+
+		if ((int) crc.getValue() != checksum) {
+			return null;
+		}
+
+		return new AuditRecord(sequence, Instant.ofEpochMilli(timestampMillis),
+			AuditAction.fromCode(action), entityId, skinnyDipperId);
+	}
+}
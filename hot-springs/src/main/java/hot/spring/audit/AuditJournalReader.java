@@ -0,0 +1,115 @@
+package hot.spring.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/* Reads the audit journal back, oldest record first. It can run while the application is
+ * writing: it simply stops at the last record written so far.
+ *
+ * From the command line it prints one record per line:
+ *   java -cp hot-springs.jar hot.spring.audit.AuditJournalReader audit [from sequence]
+ *
+ * In code, replay(directory, fromSequence, consumer) hands each record to the consumer, so
+ * the history can be fed into a report or another store. */
+
+public class AuditJournalReader {
+
+	private AuditJournalReader() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: AuditJournalReader <journal directory> [from sequence]");
+			System.exit(2);
+		}
+
+		long fromSequence = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+		long last = replay(Path.of(args[0]), fromSequence, record ->
+			System.out.printf("%d %s %s %d %d%n", record.sequence(), record.timestamp(),
+				record.action(), record.entityId(), record.skinnyDipperId()));
+
+		System.err.println("Last sequence: " + last);
+	}
+
+	/* Passes every record with a sequence of at least fromSequence to the consumer and
+	 * returns the last sequence read, or 0 if the journal is empty. A bad record anywhere
+	 * but at the end of the last segment means the journal is damaged. */
+
+	public static long replay(Path directory, long fromSequence, Consumer<AuditRecord> consumer)
+			throws IOException {
+		List<Path> segments = AuditJournalFile.segments(directory);
+		CRC32C crc = new CRC32C();
+		long expected = 0;
+
+		for (int i = 0; i < segments.size(); i++) {
+			Path path = segments.get(i);
+			boolean lastSegment = i == segments.size() - 1;
+
+			/* the next segment starts where this one ends, so it can be skipped entirely */
+			if (!lastSegment && firstSequence(segments.get(i + 1)) <= fromSequence) {
+				expected = firstSequence(segments.get(i + 1));
+				continue;
+			}
+
+			MappedByteBuffer buffer;
+
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			long first = AuditJournalFile.readHeader(buffer, path);
+
+			if (expected != 0 && first != expected) {
+				throw new IllegalStateException(path + " starts at sequence " + first
+					+ ", expected " + expected);
+			}
+
+			expected = first;
+
+			while (buffer.remaining() >= AuditJournalFile.RECORD_SIZE) {
+				int position = buffer.position();
+				AuditRecord record = AuditJournalFile.readRecord(buffer, expected, crc);
+
+				if (Objects.isNull(record)) {
+					if (!lastSegment && !isZero(buffer, position)) {
+						throw new IllegalStateException("Damaged record at sequence " + expected
+							+ " in " + path);
+					}
+
+					break;
+				}
+
+				if (record.sequence() >= fromSequence) {
+					consumer.accept(record);
+				}
+
+				expected++;
+			}
+		}
+
+		return Math.max(0, expected - 1);
+	}
+
+	private static long firstSequence(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring("audit-".length(), name.indexOf('.')));
+	}
+
+	private static boolean isZero(MappedByteBuffer buffer, int position) {
+		for (int i = 0; i < AuditJournalFile.RECORD_SIZE; i++) {
+			if (buffer.get(position + i) != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
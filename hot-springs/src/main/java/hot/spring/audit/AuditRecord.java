@@ -0,0 +1,10 @@
+package hot.spring.audit;
+
+import java.time.Instant;
+
+/* One journal entry as read back by AuditJournalReader. skinnyDipperId is the owner for hot
+ * spring records and the skinny dipper itself for skinny dipper records. */
+
+public record AuditRecord(long sequence, Instant timestamp, AuditAction action,
+	long entityId, long skinnyDipperId) {
+}
@@ -1,9 +1,18 @@
 package hot.spring.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,13 +20,35 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hot.spring.controller.export.CsvExportWriter;
+import hot.spring.controller.export.GeoJsonExportWriter;
+import hot.spring.controller.export.HotSpringExportWriter;
+import hot.spring.controller.model.BulkImportResult;
+import hot.spring.controller.model.CacheStatsData;
+import hot.spring.controller.model.CountyAggregateData;
+import hot.spring.controller.model.HotSpringAggregateData;
 import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.KeysetPage;
+import hot.spring.controller.model.MapClusterData;
+import hot.spring.controller.model.MapViewportData;
+import hot.spring.controller.model.NearbyHotSpringData;
+import hot.spring.controller.model.SearchHotSpringData;
 import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.service.HotSpringBulkImporter;
+import hot.spring.service.EntityTags;
 import hot.spring.service.HotSpringService;
+import hot.spring.service.IdempotencyStore;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
 /* tell Spring that this is a REST controller- every method will return a
@@ -39,19 +70,34 @@ public class HotSpringController {
 	
 	@Autowired
 	private HotSpringService hotSpringService;
+	
+	@Autowired
+	private HotSpringBulkImporter hotSpringBulkImporter;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Autowired
+	private IdempotencyStore idempotencyStore;
+	
+	private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
 
 	/*tell Spring to map POST. This method is going to get a POST request to 
-	 * "/hot_spring/skinny_dipper" */
+	 * "/hot_spring/skinny_dipper". A client that retries after a timeout can send the same 
+	 * Idempotency-Key header again and gets the first response back instead of a second 
+	 * skinny dipper. */
 	
 	@PostMapping("/skinny_dipper")
-	@ResponseStatus(code = HttpStatus.CREATED)
-	public SkinnyDipperData insertSkinnyDipper(
+	public ResponseEntity<SkinnyDipperData> insertSkinnyDipper(
+			@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
 			@RequestBody SkinnyDipperData skinnyDipperData) {
 		
 		/*{} is how you specify a replaceable parameter*/
 		
 		log.info("Creating skinny dipper {}", skinnyDipperData);
-		return hotSpringService.saveSkinnyDipper(skinnyDipperData);
+		return created(idempotencyStore.execute("skinny_dipper", idempotencyKey, 
+				skinnyDipperData, () -> hotSpringService.saveSkinnyDipper(skinnyDipperData)));
 	}
 	
 	/*Add update method right after the insert method because they’re very similar.*/
@@ -65,12 +111,21 @@ public class HotSpringController {
 	 * skinnyDipper.*/
 	
 	/*"/table_name/{javaFieldName}*/
+	/*An If-Match header makes the update conditional: it is refused with 412 if the skinny 
+	 * dipper changed since that ETag was read. The new ETag is returned. The ETags are weak 
+	 * so gzip still applies, and If-Match accepts them, which deviates from the strong 
+	 * comparison RFC 9110 asks for; see EntityTags.*/
 	@PutMapping("/skinny_dipper/{skinnyDipperId}")
-	public SkinnyDipperData updateSkinnyDipper(@PathVariable Long skinnyDipperId, 		
+	public ResponseEntity<SkinnyDipperData> updateSkinnyDipper(
+			@PathVariable Long skinnyDipperId, 		
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			@RequestBody SkinnyDipperData skinnyDipperData) {
 		skinnyDipperData.setSkinnyDipperId(skinnyDipperId);
 		log.info("Updating skinny dipper {}", skinnyDipperData);
-		return hotSpringService.saveSkinnyDipper(skinnyDipperData);
+		
+		SkinnyDipperData response = hotSpringService.saveSkinnyDipper(skinnyDipperData, ifMatch);
+		
+		return ResponseEntity.ok().eTag(EntityTags.skinnyDipperTag(response)).body(response);
 	}
 	
 	/*write skinnyDipper method. public, returns List of SkinnyDipperData called 
@@ -86,17 +141,75 @@ public class HotSpringController {
 		return hotSpringService.retrieveAllSkinnyDippers();
 	}
 	
+	/*Same resource, but paged: only used when the request has a "limit" parameter.
+	 * Pass nextAfterId from the response as afterId to get the next page.*/
+	
+	@GetMapping(value = "/skinny_dipper", params = "limit")
+	public KeysetPage<SkinnyDipperData> retrieveSkinnyDipperPage(
+			@RequestParam(required = false) Long afterId, @RequestParam int limit) {
+		log.info("Retrieve {} skinny dippers after ID = {}", limit, afterId);
+		
+		if(limit < 1 || limit > 1000) {
+			throw new IllegalArgumentException("Limit must be between 1 and 1000.");
+		}
+		
+		return hotSpringService.retrieveSkinnyDipperPage(afterId, limit);
+	}
+	
+	/*Same resource as newline delimited JSON (Accept: application/x-ndjson). Each skinny 
+	 * dipper is written to the response as soon as it is read from the database.*/
+	
+	@GetMapping(value = "/skinny_dipper", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public StreamingResponseBody streamAllSkinnyDippers() {
+		log.info("Stream all skinny dippers called.");
+		
+		return outputStream -> {
+			JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+			generator.setRootValueSeparator(null);
+			
+			hotSpringService.streamAllSkinnyDippers(skinnyDipper -> {
+				try {
+					generator.writeObject(skinnyDipper);
+					generator.writeRaw('\n');
+				}
+				catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			
+			generator.flush();
+		};
+	}
+	
 	/*"/skinny_dipper/" is a resource, pass in the variable name "{skinnyDipperId}"*/
 	
+	/*The ETag is checked first with a version-only query. If the client already has the 
+	 * current version (If-None-Match) it gets 304 Not Modified and no body. Otherwise the 
+	 * ETag sent is the one of the body actually returned, which may come from the cache.*/
+	
 	@GetMapping("/skinny_dipper/{skinnyDipperId}")
 	
 	/*tell Spring we're expecting the variable in the URL and then it will go into the 
 	 * skinny dipper Id parameter - use "@PathVariable"*/
 	/*log call*/
 	
-	public SkinnyDipperData retrieveSkinnyDipperById(@PathVariable Long skinnyDipperId) {
-		log.info("Retrieving skinny dipper with ID ={}" + skinnyDipperId);
-		return hotSpringService.retrieveSkinnyDipperById(skinnyDipperId);
+	public ResponseEntity<SkinnyDipperData> retrieveSkinnyDipperById(
+			@PathVariable Long skinnyDipperId,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) 
+			String ifNoneMatch) {
+		log.info("Retrieving skinny dipper with ID = {}", skinnyDipperId);
+		
+		String eTag = hotSpringService.retrieveSkinnyDipperETag(skinnyDipperId);
+		
+		if(EntityTags.matches(ifNoneMatch, eTag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+		}
+		
+		SkinnyDipperData skinnyDipper = 
+			hotSpringService.retrieveSkinnyDipperById(skinnyDipperId, eTag);
+		
+		return ResponseEntity.ok().eTag(EntityTags.skinnyDipperTag(skinnyDipper))
+			.body(skinnyDipper);
 	}
 	
 	/*deleteAll method to assure that delete all skinny dippers CANNOT happen.*/
@@ -119,7 +232,7 @@ public class HotSpringController {
 	
 	@DeleteMapping("/skinny_dipper/{skinnyDipperId}")
 	public Map<String, String> deleteSkinnyDipperById(@PathVariable Long skinnyDipperId){
-		log.info("Deleting skinny dipper with ID ={}" + skinnyDipperId);
+		log.info("Deleting skinny dipper with ID = {}", skinnyDipperId);
 		
 		hotSpringService.deleteSkinnyDipperById(skinnyDipperId);
 		
@@ -134,15 +247,50 @@ public class HotSpringController {
 	 * return HotSpringData object.*/
 	
 	@PostMapping("/skinny_dipper/{skinnyDipperId}/hot_spring")
-	@ResponseStatus(code = HttpStatus.CREATED)
-	public HotSpringData insertHotSpring(@PathVariable Long skinnyDipperId, 
+	public ResponseEntity<HotSpringData> insertHotSpring(@PathVariable Long skinnyDipperId, 
+		@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
 		@RequestBody HotSpringData hotSpringData) {
 		
 		log.info("Creating hot spring {} for skinny dipper with ID = {}", 
 				hotSpringData, skinnyDipperId);
 		
 		//return hot spring data object
-		return hotSpringService.savetHotSpring(skinnyDipperId, hotSpringData);
+		return created(idempotencyStore.execute("hot_spring/" + skinnyDipperId, 
+				idempotencyKey, hotSpringData, 
+				() -> hotSpringService.savetHotSpring(skinnyDipperId, hotSpringData)));
+	}
+	
+	/*Repeats of an idempotent request get the stored body and status, marked with a header 
+	 * so the client can tell it was not created again.*/
+	
+	private static <T> ResponseEntity<T> created(IdempotencyStore.Result<T> result) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+		
+		if(result.replayed()) {
+			response.header(IDEMPOTENT_REPLAYED, "true");
+		}
+		
+		return response.body(result.response());
+	}
+	
+	/*Bulk version of insertHotSpring. The body is either a JSON array of hot springs or 
+	 * newline delimited JSON, and is read one hot spring at a time instead of all at once.
+	 * Rows that fail are listed in the response; the rest are still imported.*/
+	
+	@PostMapping(value = "/skinny_dipper/{skinnyDipperId}/hot_spring/bulk", 
+		consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+	public BulkImportResult importHotSprings(@PathVariable Long skinnyDipperId,
+		@RequestParam(required = false) Integer batchSize,
+		@RequestParam(required = false) Integer commitInterval,
+		HttpServletRequest request) throws IOException {
+		
+		log.info("Bulk importing hot springs for skinny dipper with ID = {}", skinnyDipperId);
+		
+		try(MappingIterator<HotSpringData> rows = objectMapper.readerFor(HotSpringData.class)
+				.readValues(request.getInputStream())) {
+			return hotSpringBulkImporter.importHotSprings(skinnyDipperId, rows, batchSize, 
+					commitInterval);
+		}
 	}
 	
 	/* method to modify a hot spring*/
@@ -154,10 +302,13 @@ public class HotSpringController {
 	Add @ PathVariable Long hotSpringId,
 	Add hotSpringId into the hotSpringData by saying hotSpringData.setHotSpringId
 	(hotSpringId);*/
-	
+	/*Like the skinny dipper update, an If-Match header makes the update conditional and is 
+	 * compared with the weak ETag of the hot spring, not strongly as RFC 9110 asks; see 
+	 * EntityTags.*/
 	@PutMapping("/skinny_dipper/{skinnyDipperId}/hot_spring/{hotSpringId}")
-	public HotSpringData updateHotSpring(@PathVariable Long skinnyDipperId,
+	public ResponseEntity<HotSpringData> updateHotSpring(@PathVariable Long skinnyDipperId,
 		@PathVariable Long hotSpringId,	
+		@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 		@RequestBody HotSpringData hotSpringData) {
 		
 		hotSpringData.setHotSpringId(hotSpringId);
@@ -165,21 +316,270 @@ public class HotSpringController {
 		log.info("Updating hot spring {} for skinny dipper with ID = {}", 
 				hotSpringData, skinnyDipperId);
 		
-		//return hot spring data object
-		return hotSpringService.savetHotSpring(skinnyDipperId, hotSpringData);
+		//return hot spring data object, with its new ETag
+		HotSpringData response = 
+			hotSpringService.savetHotSpring(skinnyDipperId, hotSpringData, ifMatch);
+		
+		return ResponseEntity.ok().eTag(EntityTags.hotSpringTag(response)).body(response);
 	}
 
+	/*One skinny dipper's hot springs, a page at a time, for example 
+	 * /hot_spring/skinny_dipper/1/hot_spring?limit=100&fields=hotSpringName,county. Only 
+	 * the listed fields are read and returned, plus hotSpringId; without fields every field 
+	 * is. Fields are hotSpringName, latitude, longitude, county, directions and details. 
+	 * Pass nextAfterId from the response as afterId to get the next page.*/
+	
+	@GetMapping("/skinny_dipper/{skinnyDipperId}/hot_spring")
+	public KeysetPage<Map<String, Object>> retrieveHotSpringPage(
+			@PathVariable Long skinnyDipperId,
+			@RequestParam(required = false) Long afterId,
+			@RequestParam(defaultValue = "100") int limit,
+			@RequestParam(required = false) Set<String> fields) {
+		log.info("Retrieve {} hot springs after ID = {} for skinny dipper with ID = {}", limit, 
+				afterId, skinnyDipperId);
+		
+		if(limit < 1 || limit > 1000) {
+			throw new IllegalArgumentException("Limit must be between 1 and 1000.");
+		}
+		
+		return hotSpringService.retrieveHotSpringPage(skinnyDipperId, afterId, limit, fields);
+	}
+	
 	/*create retrieveHotSpringById method.
 	 * log it.
 	 * call service method hotSpringService.retrieveHotSpringById*/	
 	
 	@GetMapping("/skinny_dipper/{skinnyDipperId}/hot_spring/{hotSpringId}")
-	public HotSpringData retrieveHotSpringById(@PathVariable Long skinnyDipperId,
-			@PathVariable Long hotSpringId) {
+	public ResponseEntity<HotSpringData> retrieveHotSpringById(
+			@PathVariable Long skinnyDipperId,
+			@PathVariable Long hotSpringId,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) 
+			String ifNoneMatch) {
 		log.info("Retrieving hot spring with ID = {} for skinny dipper with ID = {}", 
 				hotSpringId, skinnyDipperId);
 		
-		return hotSpringService.retrieveHotSpringById(skinnyDipperId, hotSpringId);
+		String eTag = hotSpringService.retrieveHotSpringETag(skinnyDipperId, hotSpringId);
+		
+		if(Objects.nonNull(eTag) && EntityTags.matches(ifNoneMatch, eTag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+		}
+		
+		HotSpringData hotSpring = 
+			hotSpringService.retrieveHotSpringById(skinnyDipperId, hotSpringId, eTag);
+		
+		return ResponseEntity.ok().eTag(EntityTags.hotSpringTag(hotSpring)).body(hotSpring);
+		
+	}
+	
+	/*Find hot springs close to a point. Without radiusKm this returns the closest "limit"
+	 * hot springs, with it only the ones inside the radius. Closest first.*/
+	
+	@GetMapping("/nearby")
+	public List<NearbyHotSpringData> retrieveNearbyHotSprings(@RequestParam double lat, 
+			@RequestParam double lon, 
+			@RequestParam(required = false) Double radiusKm,
+			@RequestParam(defaultValue = "10") int limit) {
+		log.info("Retrieving up to {} hot springs within {} km of ({}, {})", 
+				limit, radiusKm, lat, lon);
+		
+		if(lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+			throw new IllegalArgumentException(
+				"Coordinates (" + lat + ", " + lon + ") are out of range.");
+		}
+		
+		if(limit < 1 || limit > 1000) {
+			throw new IllegalArgumentException("Limit must be between 1 and 1000.");
+		}
+		
+		if(radiusKm != null && radiusKm < 0) {
+			throw new IllegalArgumentException("Radius must not be negative.");
+		}
+		
+		return hotSpringService.retrieveNearbyHotSprings(lat, lon, radiusKm, limit);
+	}
+	
+	/*Every hot spring inside a map viewport, for example 
+	 * /hot_spring/map?minLat=42&minLon=-117&maxLat=45&maxLon=-113. Comes back as parallel 
+	 * arrays of IDs, fixed-point coordinates and detail bitmasks instead of one object per 
+	 * hot spring, to keep large viewports small and fast. all and none filter by detail 
+	 * like /filter. minLon greater than maxLon means the viewport crosses the antimeridian.*/
+	
+	@GetMapping("/map")
+	public MapViewportData retrieveMapViewport(@RequestParam double minLat, 
+			@RequestParam double minLon, @RequestParam double maxLat, 
+			@RequestParam double maxLon, 
+			@RequestParam(name = "all", required = false) Set<String> allOf,
+			@RequestParam(name = "none", required = false) Set<String> noneOf,
+			@RequestParam(defaultValue = "50000") int limit) {
+		log.info("Retrieving map viewport ({}, {}) to ({}, {})", minLat, minLon, maxLat, 
+				maxLon);
+		
+		if(minLat < -90 || maxLat > 90 || minLat > maxLat || minLon < -180 || minLon > 180 
+				|| maxLon < -180 || maxLon > 180) {
+			throw new IllegalArgumentException("Viewport (" + minLat + ", " + minLon + ") to (" 
+				+ maxLat + ", " + maxLon + ") is out of range.");
+		}
+		
+		if(limit < 1 || limit > 500000) {
+			throw new IllegalArgumentException("Limit must be between 1 and 500000.");
+		}
+		
+		return hotSpringService.retrieveMapViewport(minLat, minLon, maxLat, maxLon, allOf, 
+				noneOf, limit);
+	}
+	
+	/*Map markers for a viewport at a zoom level, for example 
+	 * /hot_spring/clusters?minLat=42&minLon=-117&maxLat=45&maxLon=-113&zoom=7. Each marker 
+	 * is the centroid of a cluster with its hot spring count; clusters of one carry the hot 
+	 * spring ID. Past the highest cluster zoom the markers are the hot springs themselves, 
+	 * up to limit of them. A viewport far larger than a screen at that zoom gets 400.*/
+	
+	@GetMapping("/clusters")
+	public MapClusterData retrieveMapClusters(@RequestParam double minLat, 
+			@RequestParam double minLon, @RequestParam double maxLat, 
+			@RequestParam double maxLon, @RequestParam int zoom, 
+			@RequestParam(defaultValue = "5000") int limit) {
+		log.info("Retrieving map clusters ({}, {}) to ({}, {}) at zoom {}", minLat, minLon, 
+				maxLat, maxLon, zoom);
+		
+		if(minLat < -90 || maxLat > 90 || minLat > maxLat || minLon < -180 || minLon > 180 
+				|| maxLon < -180 || maxLon > 180) {
+			throw new IllegalArgumentException("Viewport (" + minLat + ", " + minLon + ") to (" 
+				+ maxLat + ", " + maxLon + ") is out of range.");
+		}
+		
+		if(zoom < 0 || zoom > 22) {
+			throw new IllegalArgumentException("Zoom must be between 0 and 22.");
+		}
+		
+		if(limit < 1 || limit > 50000) {
+			throw new IllegalArgumentException("Limit must be between 1 and 50000.");
+		}
+		
+		return hotSpringService.retrieveMapClusters(minLat, minLon, maxLat, maxLon, zoom, 
+				limit);
+	}
+	
+	/*Search hot spring names, counties and directions, for example 
+	 * /hot_spring/search?q=boiling river. The last word also matches as a prefix, so this
+	 * can back a typeahead box. Best matches first.*/
+	
+	@GetMapping("/search")
+	public List<SearchHotSpringData> searchHotSprings(@RequestParam String q,
+			@RequestParam(defaultValue = "10") int limit) {
+		log.info("Searching hot springs for \"{}\"", q);
 		
+		if(q.isBlank()) {
+			throw new IllegalArgumentException("Search text must not be empty.");
+		}
+		
+		if(limit < 1 || limit > 100) {
+			throw new IllegalArgumentException("Limit must be between 1 and 100.");
+		}
+		
+		return hotSpringService.searchHotSprings(q, limit);
+	}
+	
+	/*Filter hot springs by details, for example 
+	 * /hot_spring/filter?all=free&all=natural&none=!TOO DANGEROUS! DO NOT ATTEMPT!
+	 * all = must have every one, any = must have at least one, none = must have none.
+	 * Results are ordered by ID and paged with afterId like the skinny dipper listing.*/
+	
+	@GetMapping("/filter")
+	public KeysetPage<HotSpringData> retrieveHotSpringsByDetails(
+			@RequestParam(name = "all", required = false) Set<String> allOf,
+			@RequestParam(name = "any", required = false) Set<String> anyOf,
+			@RequestParam(name = "none", required = false) Set<String> noneOf,
+			@RequestParam(required = false) Long afterId,
+			@RequestParam(defaultValue = "20") int limit) {
+		log.info("Filtering hot springs with all = {}, any = {}, none = {} after ID = {}", 
+				allOf, anyOf, noneOf, afterId);
+		
+		if(limit < 1 || limit > 1000) {
+			throw new IllegalArgumentException("Limit must be between 1 and 1000.");
+		}
+		
+		return hotSpringService.retrieveHotSpringsByDetails(allOf, anyOf, noneOf, afterId, 
+				limit);
+	}
+	
+	/*Export every hot spring with its owner and details, as GeoJSON (format=geojson) or CSV 
+	 * (format=csv). The file is written to the response while it is being read from the 
+	 * database, so memory use does not depend on how many hot springs there are. 
+	 * gzip=true compresses it on the fly.*/
+	
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportHotSprings(
+			@RequestParam(defaultValue = "geojson") String format,
+			@RequestParam(defaultValue = "false") boolean gzip) {
+		log.info("Exporting all hot springs as {} (gzip = {})", format, gzip);
+		
+		boolean csv = switch(format.toLowerCase()) {
+			case "geojson" -> false;
+			case "csv" -> true;
+			default -> throw new IllegalArgumentException(
+				"Export format must be geojson or csv, was " + format);
+		};
+		
+		String fileName = "hot-springs." + (csv ? "csv" : "geojson") + (gzip ? ".gz" : "");
+		
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+			.contentType(csv ? new MediaType("text", "csv") 
+				: new MediaType("application", "geo+json"))
+			.header(HttpHeaders.CONTENT_DISPOSITION, 
+				"attachment; filename=\"" + fileName + "\"");
+		
+		if(gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		
+		return response.body(outputStream -> {
+			OutputStream target = gzip 
+				? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+			
+			HotSpringExportWriter writer = csv ? new CsvExportWriter(target) 
+				: new GeoJsonExportWriter(objectMapper.getFactory(), target);
+			
+			writer.start();
+			
+			hotSpringService.exportAllHotSprings(hotSpring -> {
+				try {
+					writer.write(hotSpring);
+				}
+				catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			
+			writer.finish();
+			
+			if(target instanceof GZIPOutputStream gzipStream) {
+				gzipStream.finish();
+			}
+		});
+	}
+	
+	/*Hit, miss and eviction counts for the hot spring and skinny dipper caches.*/
+	
+	@GetMapping("/cache/stats")
+	public List<CacheStatsData> retrieveCacheStats() {
+		log.info("Retrieving cache statistics");
+		return hotSpringService.retrieveCacheStats();
+	}
+	
+	/*How many hot springs each county has, broken down by detail and rating. The counts 
+	 * are kept up to date as hot springs are saved and deleted, so this does not scan the 
+	 * hot springs.*/
+	
+	@GetMapping("/aggregates")
+	public HotSpringAggregateData retrieveAggregates() {
+		log.info("Retrieving hot spring aggregates");
+		return hotSpringService.retrieveAggregates();
+	}
+	
+	@GetMapping("/aggregates/{county}")
+	public CountyAggregateData retrieveCountyAggregates(@PathVariable String county) {
+		log.info("Retrieving hot spring aggregates for county {}", county);
+		return hotSpringService.retrieveCountyAggregates(county);
 	}
 }
@@ -0,0 +1,83 @@
+package hot.spring.controller;
+
+import java.io.IOException;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/* Binary alternatives to JSON for HotSpringController request and response bodies.
+ *
+ * Clients ask for application/cbor or application/x-jackson-smile with the Accept header,
+ * and send them with Content-Type. Spring MVC registers a converter for each as soon as
+ * its Jackson dataformat is on the classpath; these beans take their place, in the same
+ * position after JSON, so a wildcard Accept still gets JSON. Their ObjectMappers come from
+ * Spring Boot's builder, so they follow the same spring.jackson settings as JSON, and the
+ * Smile one writes a repeated string once and refers back to it, which suits the detail
+ * names every hot spring repeats.
+ *
+ * Gzip is configured separately, under server.compression. */
+
+@Configuration
+public class WireFormatConfiguration {
+
+	/* the builder bean is a prototype, so each converter gets its own ObjectMapper */
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+			Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(
+			builder.factory(new CBORFactory()).build());
+	}
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+			Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2SmileHttpMessageConverter(
+			builder.factory(smileFactory()).build());
+	}
+
+	/* Smile only back-references property names by default; values such as detail names are
+	 * checked too. */
+
+	public static SmileFactory smileFactory() {
+		return SmileFactory.builder()
+			.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+			.build();
+	}
+
+	/* The same URL now answers in several formats, and the ETag of a hot spring or skinny
+	 * dipper is the same in all of them, so caches must key responses by Accept as well. */
+
+	@Bean
+	public FilterRegistrationBean<OncePerRequestFilter> varyAcceptFilter() {
+		OncePerRequestFilter filter = new OncePerRequestFilter() {
+			@Override
+			protected void doFilterInternal(HttpServletRequest request,
+					HttpServletResponse response, FilterChain filterChain)
+					throws ServletException, IOException {
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+				filterChain.doFilter(request, response);
+			}
+		};
+
+		FilterRegistrationBean<OncePerRequestFilter> registration =
+			new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns("/hot_spring/*");
+		return registration;
+	}
+}
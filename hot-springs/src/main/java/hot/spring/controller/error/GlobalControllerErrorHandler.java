@@ -5,6 +5,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.NoSuchElementException;
 
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -51,6 +52,16 @@ public class GlobalControllerErrorHandler {
 				LogStatus.MESSAGE_ONLY);
 	}
 	
+	// exception handler for bad request parameters.
+	
+	@ExceptionHandler(IllegalArgumentException.class)
+	@ResponseStatus(code = HttpStatus.BAD_REQUEST)
+	public ExceptionMessage handleIllegalArgumentException(IllegalArgumentException ex, 
+			WebRequest webRequest) {
+		return buildExceptionMessage(ex, HttpStatus.BAD_REQUEST, webRequest, 
+				LogStatus.MESSAGE_ONLY);
+	}
+	
 	/*Write code to change the 500 error after trying to delete all contributors.*/
 	
 	@ExceptionHandler(UnsupportedOperationException.class)
@@ -96,6 +107,18 @@ public class GlobalControllerErrorHandler {
 	}
 	
 	
+	/*handles updates made with an out of date If-Match header, and updates that lost a race
+	 * with another update of the same row (version check at flush).*/
+	
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(code = HttpStatus.PRECONDITION_FAILED)
+	public ExceptionMessage handleOptimisticLockingFailureException(
+			OptimisticLockingFailureException ex, WebRequest webRequest) {
+		return buildExceptionMessage(ex, HttpStatus.PRECONDITION_FAILED, 
+				webRequest, LogStatus.MESSAGE_ONLY);
+	}
+	
+	
 	private ExceptionMessage buildExceptionMessage(Exception ex, 
 			HttpStatus status, WebRequest webRequest, LogStatus logStatus) {
 		
@@ -0,0 +1,80 @@
+package hot.spring.controller.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import hot.spring.controller.model.HotSpringData;
+
+/* Writes hot springs as RFC 4180 CSV with a header row. Details are joined with ';' into a
+ * single column. */
+
+public class CsvExportWriter implements HotSpringExportWriter {
+
+	private static final String HEADER = "hot_spring_id,hot_spring_name,latitude,longitude,"
+		+ "county,directions,skinny_dipper_id,skinny_dipper_name,details";
+
+	private final Writer writer;
+
+	public CsvExportWriter(OutputStream outputStream) {
+		writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8),
+			64 * 1024);
+	}
+
+	@Override
+	public void start() throws IOException {
+		writer.write(HEADER);
+		writer.write("\r\n");
+	}
+
+	@Override
+	public void write(HotSpringData hotSpring) throws IOException {
+		writer.write(String.valueOf(hotSpring.getHotSpringId()));
+		writer.write(',');
+		writeField(hotSpring.getHotSpringName());
+		writer.write(',');
+		writeField(Objects.isNull(hotSpring.getLatitude()) ? null
+			: hotSpring.getLatitude().toPlainString());
+		writer.write(',');
+		writeField(Objects.isNull(hotSpring.getLongitude()) ? null
+			: hotSpring.getLongitude().toPlainString());
+		writer.write(',');
+		writeField(hotSpring.getCounty());
+		writer.write(',');
+		writeField(hotSpring.getDirections());
+		writer.write(',');
+		writer.write(String.valueOf(hotSpring.getSkinnyDipper().getSkinnyDipperId()));
+		writer.write(',');
+		writeField(hotSpring.getSkinnyDipper().getSkinnyDipperName());
+		writer.write(',');
+		writeField(String.join(";", hotSpring.getDetails()));
+		writer.write("\r\n");
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writer.flush();
+	}
+
+	private void writeField(String value) throws IOException {
+		if (Objects.isNull(value)) {
+			return;
+		}
+
+		boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+			|| value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+
+		if (!quote) {
+			writer.write(value);
+			return;
+		}
+
+		writer.write('"');
+		writer.write(value.replace("\"", "\"\""));
+		writer.write('"');
+	}
+}
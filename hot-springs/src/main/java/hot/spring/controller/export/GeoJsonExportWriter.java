@@ -0,0 +1,79 @@
+package hot.spring.controller.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import hot.spring.controller.model.HotSpringData;
+
+/* Writes hot springs as a GeoJSON FeatureCollection with one Point feature per hot spring.
+ * Uses the streaming generator directly so nothing is buffered per feature. */
+
+public class GeoJsonExportWriter implements HotSpringExportWriter {
+
+	private final JsonGenerator generator;
+
+	public GeoJsonExportWriter(JsonFactory jsonFactory, OutputStream outputStream)
+			throws IOException {
+		generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	@Override
+	public void start() throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "FeatureCollection");
+		generator.writeArrayFieldStart("features");
+	}
+
+	@Override
+	public void write(HotSpringData hotSpring) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("type", "Feature");
+		generator.writeNumberField("id", hotSpring.getHotSpringId());
+
+		generator.writeFieldName("geometry");
+
+		if (Objects.isNull(hotSpring.getLatitude()) || Objects.isNull(hotSpring.getLongitude())) {
+			generator.writeNull();
+		}
+		else {
+			generator.writeStartObject();
+			generator.writeStringField("type", "Point");
+			generator.writeArrayFieldStart("coordinates");
+			generator.writeNumber(hotSpring.getLongitude());
+			generator.writeNumber(hotSpring.getLatitude());
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+
+		generator.writeObjectFieldStart("properties");
+		generator.writeStringField("hotSpringName", hotSpring.getHotSpringName());
+		generator.writeStringField("county", hotSpring.getCounty());
+		generator.writeStringField("directions", hotSpring.getDirections());
+		generator.writeNumberField("skinnyDipperId",
+			hotSpring.getSkinnyDipper().getSkinnyDipperId());
+		generator.writeStringField("skinnyDipperName",
+			hotSpring.getSkinnyDipper().getSkinnyDipperName());
+		generator.writeArrayFieldStart("details");
+
+		for (String detail : hotSpring.getDetails()) {
+			generator.writeString(detail);
+		}
+
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.writeEndObject();
+	}
+
+	@Override
+	public void finish() throws IOException {
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.close();
+	}
+}
@@ -0,0 +1,18 @@
+package hot.spring.controller.export;
+
+import java.io.IOException;
+
+import hot.spring.controller.model.HotSpringData;
+
+/* Writes exported hot springs to a stream in some file format: start() once, write() for
+ * each hot spring, then finish(). finish() flushes but does not close the stream. */
+
+public interface HotSpringExportWriter {
+
+	void start() throws IOException;
+
+	void write(HotSpringData hotSpring) throws IOException;
+
+	void finish() throws IOException;
+
+}
@@ -0,0 +1,32 @@
+package hot.spring.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Outcome of a bulk hot spring import. Rows are numbered from 1 in the order they were
+ * sent. Only the first errors are listed; failed always has the full count. */
+
+@Data
+@NoArgsConstructor
+public class BulkImportResult {
+
+	private int received;
+	private int imported;
+	private int failed;
+	private long elapsedMillis;
+	private double rowsPerSecond;
+	private List<RowError> errors = new ArrayList<>();
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class RowError {
+		private int row;
+		private String hotSpringName;
+		private String message;
+	}
+}
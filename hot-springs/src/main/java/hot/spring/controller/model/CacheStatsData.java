@@ -0,0 +1,22 @@
+package hot.spring.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Hit/miss/eviction counters for one of the in-memory caches. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsData {
+
+	private String cache;
+	private long size;
+	private long hitCount;
+	private long missCount;
+	private double hitRate;
+	private long evictionCount;
+	private long loadFailureCount;
+
+}
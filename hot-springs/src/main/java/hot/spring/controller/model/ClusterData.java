@@ -0,0 +1,20 @@
+package hot.spring.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* A map marker: the centroid of count hot springs. hotSpringId is set when the marker is a
+ * single hot spring. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterData {
+
+	private double latitude;
+	private double longitude;
+	private int count;
+	private Long hotSpringId;
+
+}
@@ -0,0 +1,21 @@
+package hot.spring.controller.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* How many hot springs a county has, and how many of them have each detail (including the
+ * A to F ratings). */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CountyAggregateData {
+
+	private String county;
+	private long hotSprings;
+	private Map<String, Long> details;
+
+}
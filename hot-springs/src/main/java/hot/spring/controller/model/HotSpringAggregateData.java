@@ -0,0 +1,23 @@
+package hot.spring.controller.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Hot spring counts for every county, plus when the counters were last checked against the
+ * database and how many hot springs had drifted in total. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotSpringAggregateData {
+
+	private long hotSprings;
+	private List<CountyAggregateData> counties;
+	private Instant reconciledAt;
+	private long driftCorrections;
+
+}
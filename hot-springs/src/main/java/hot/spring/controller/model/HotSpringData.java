@@ -29,6 +29,9 @@ public class HotSpringData {
 	 private String county;
 	 private String directions;
 	 
+	 //@Version of the row this was built from; the ETag is made from it
+	 private Long version;
+	 
 	 //change SkinnyDipper to HotSpringSkinnyDipper
 	 private HotSpringSkinnyDipper skinnyDipper;
 	 
@@ -42,6 +45,7 @@ public class HotSpringData {
 		 latitude = hotSpring.getLatitude();
 		 county = hotSpring.getCounty();
 		 directions = hotSpring.getDirections();
+		 version = hotSpring.getVersion();
 		 
 		 //need a new hot spring skinny dipper, not a new skinny dipper entity
 		 skinnyDipper = new HotSpringSkinnyDipper(hotSpring.getSkinnyDipper());
@@ -62,6 +66,7 @@ public class HotSpringData {
 		 private Long skinnyDipperId;
 		 private String skinnyDipperName;
 		 private String skinnyDipperEmail;
+		 private Long version;
 		 
 		 //constructor for hot spring skinny dipper that takes a skinny dipper
 		 public HotSpringSkinnyDipper(SkinnyDipper skinnyDipper) {
@@ -70,6 +75,7 @@ public class HotSpringData {
 			 skinnyDipperId = skinnyDipper.getSkinnyDipperId();
 			 skinnyDipperName = skinnyDipper.getSkinnyDipperName();
 			 skinnyDipperEmail = skinnyDipper.getSkinnyDipperEmail();
+			 version = skinnyDipper.getVersion();
 		 }
 	 }
 }
@@ -0,0 +1,21 @@
+package hot.spring.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* One page of a keyset (cursor) paginated listing. To get the next page, pass nextAfterId
+ * back as the afterId request parameter. nextAfterId is null on the last page. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+	private List<T> content = new ArrayList<>();
+	private Long nextAfterId;
+
+}
@@ -0,0 +1,24 @@
+package hot.spring.controller.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* The markers of a map viewport at one zoom level. Up to maxClusterZoom the markers are
+ * clusters; above it they are the hot springs themselves and leaves is true. truncated means
+ * more hot springs were in the viewport than the leaf limit allowed. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapClusterData {
+
+	private int zoom;
+	private int maxClusterZoom;
+	private boolean leaves;
+	private List<ClusterData> clusters;
+	private boolean truncated;
+
+}
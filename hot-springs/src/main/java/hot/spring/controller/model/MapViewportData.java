@@ -0,0 +1,28 @@
+package hot.spring.controller.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* The hot springs inside a map viewport as parallel arrays: element i of each array belongs
+ * to the same hot spring. Coordinates are fixed-point, divide by scale to get degrees.
+ * Bit n of a detail mask is set when the hot spring has the detail at detailBits[n].
+ * truncated means more hot springs matched than the limit allowed. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapViewportData {
+
+	private int count;
+	private int scale;
+	private long[] hotSpringIds;
+	private int[] latitudes;
+	private int[] longitudes;
+	private long[] detailMasks;
+	private Map<Integer, String> detailBits;
+	private boolean truncated;
+
+}
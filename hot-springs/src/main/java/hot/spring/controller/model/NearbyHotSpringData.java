@@ -0,0 +1,17 @@
+package hot.spring.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* A hot spring returned by the nearby search, along with how far away it is. */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyHotSpringData {
+
+	private double distanceKm;
+	private HotSpringData hotSpring;
+
+}
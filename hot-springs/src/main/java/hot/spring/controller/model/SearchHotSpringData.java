@@ -0,0 +1,17 @@
+package hot.spring.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* A hot spring returned by the text search, with its relevance score (higher is better). */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHotSpringData {
+
+	private double score;
+	private HotSpringData hotSpring;
+
+}
@@ -20,6 +20,9 @@ public class SkinnyDipperData {
     private String skinnyDipperName;
     private String skinnyDipperEmail;
     
+    //@Version of the row this was built from; the ETag is made from it and the hot springs'
+    private Long version;
+    
     //change HotSpring to HotSpringResponse
     private Set<HotSpringResponse> hotSprings = new HashSet<>();
     
@@ -28,6 +31,7 @@ public class SkinnyDipperData {
     	skinnyDipperId = skinnyDipper.getSkinnyDipperId();
     	skinnyDipperName = skinnyDipper.getSkinnyDipperName();
     	skinnyDipperEmail = skinnyDipper.getSkinnyDipperEmail();
+    	version = skinnyDipper.getVersion();
     	
     	for(HotSpring hotSpring : skinnyDipper.getHotSprings()) {
     		hotSprings.add(new HotSpringResponse(hotSpring));
@@ -39,13 +43,14 @@ public class SkinnyDipperData {
     
     @Data
     @NoArgsConstructor
-    static class HotSpringResponse {
+    public static class HotSpringResponse {
     	private Long hotSpringId;
     	private String hotSpringName;
     	private BigDecimal longitude;
     	private BigDecimal latitude;
     	private String county;
     	private String directions;
+    	private Long version;
     	
     	//change Detail to String
     	private Set<String> details = new HashSet<>();
@@ -57,6 +62,7 @@ public class SkinnyDipperData {
     		latitude = hotSpring.getLatitude();
     		county = hotSpring.getCounty();
     		directions = hotSpring.getDirections();
+    		version = hotSpring.getVersion();
     		
     		for(Detail detail : hotSpring.getDetails()) {
     			details.add(detail.getDetail());
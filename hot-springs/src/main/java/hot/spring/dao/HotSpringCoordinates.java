@@ -0,0 +1,16 @@
+package hot.spring.dao;
+
+import java.math.BigDecimal;
+
+/* Spring Data interface projection used to load only the columns the in-memory indexes
+ * need, instead of building a full HotSpring entity graph for every row. */
+
+public interface HotSpringCoordinates {
+
+	Long getHotSpringId();
+
+	BigDecimal getLatitude();
+
+	BigDecimal getLongitude();
+
+}
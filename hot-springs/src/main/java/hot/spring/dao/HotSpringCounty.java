@@ -0,0 +1,11 @@
+package hot.spring.dao;
+
+/* The county of a hot spring, used to rebuild the county aggregates. */
+
+public interface HotSpringCounty {
+
+	Long getHotSpringId();
+
+	String getCounty();
+
+}
@@ -1,9 +1,66 @@
 package hot.spring.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import hot.spring.entity.HotSpring;
+import jakarta.persistence.QueryHint;
+
+public interface HotSpringDao extends JpaRepository<HotSpring, Long>, HotSpringFieldsDao {
+
+	List<HotSpringCoordinates> findAllProjectedBy();
+
+	@Query("select h.hotSpringId as hotSpringId, h.hotSpringName as hotSpringName, "
+		+ "h.county as county, h.directions as directions from HotSpring h")
+	List<HotSpringText> findAllHotSpringText();
+
+	@Query("select h.hotSpringId as hotSpringId, h.county as county from HotSpring h")
+	List<HotSpringCounty> findAllHotSpringCounties();
+
+	@Query("select h.hotSpringId from HotSpring h")
+	List<Long> findAllHotSpringIds();
+
+	@Query("select h.hotSpringId as hotSpringId, d.detailId as detailId "
+		+ "from HotSpring h join h.details d")
+	List<HotSpringDetailId> findAllHotSpringDetailIds();
+
+	@Query("select h.hotSpringId as hotSpringId, d.detailId as detailId "
+		+ "from HotSpring h join h.details d where h.hotSpringId in :hotSpringIds")
+	List<HotSpringDetailId> findHotSpringDetailIdsByHotSpringIdIn(
+			@Param("hotSpringIds") Collection<Long> hotSpringIds);
+
+	@Query("select h.version as version, s.skinnyDipperId as skinnyDipperId, "
+		+ "s.version as skinnyDipperVersion "
+		+ "from HotSpring h join h.skinnyDipper s where h.hotSpringId = :hotSpringId")
+	Optional<HotSpringVersion> findVersionByHotSpringId(
+			@Param("hotSpringId") Long hotSpringId);
+
+	/* loads the hot spring with its owner and details in one query */
+	@EntityGraph(attributePaths = { "skinnyDipper", "details" })
+	Optional<HotSpring> findWithDetailsByHotSpringId(Long hotSpringId);
+
+	@EntityGraph(attributePaths = { "skinnyDipper", "details" })
+	List<HotSpring> findWithDetailsByHotSpringIdIn(Collection<Long> hotSpringIds);
 
-public interface HotSpringDao extends JpaRepository<HotSpring, Long> {
+	/* forward-only read of every hot spring for the export; must be consumed inside a
+	 * transaction and closed when done */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select h.hotSpringId as hotSpringId, h.hotSpringName as hotSpringName, "
+		+ "h.latitude as latitude, h.longitude as longitude, h.county as county, "
+		+ "h.directions as directions, s.skinnyDipperId as skinnyDipperId, "
+		+ "s.skinnyDipperName as skinnyDipperName, d.detail as detail "
+		+ "from HotSpring h join h.skinnyDipper s left join h.details d "
+		+ "order by h.hotSpringId")
+	Stream<HotSpringExportRow> streamAllForExport();
 
 }
@@ -0,0 +1,11 @@
+package hot.spring.dao;
+
+/* One row of the hot_spring_detail join table. */
+
+public interface HotSpringDetailId {
+
+	Long getHotSpringId();
+
+	Long getDetailId();
+
+}
@@ -0,0 +1,28 @@
+package hot.spring.dao;
+
+import java.math.BigDecimal;
+
+/* One row of the export query: a hot spring, its owner and one of its details. A hot spring
+ * with several details comes back as several consecutive rows. */
+
+public interface HotSpringExportRow {
+
+	Long getHotSpringId();
+
+	String getHotSpringName();
+
+	BigDecimal getLatitude();
+
+	BigDecimal getLongitude();
+
+	String getCounty();
+
+	String getDirections();
+
+	Long getSkinnyDipperId();
+
+	String getSkinnyDipperName();
+
+	String getDetail();
+
+}
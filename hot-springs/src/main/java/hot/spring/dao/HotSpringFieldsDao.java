@@ -0,0 +1,20 @@
+package hot.spring.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.Tuple;
+
+/* Custom HotSpringDao fragment for reads that pick their columns at run time, which a
+ * fixed Spring Data projection interface cannot do. */
+
+public interface HotSpringFieldsDao {
+
+	/* Up to limit hot springs of the skinny dipper with an ID above afterId, in ID order.
+	 * Each tuple holds hotSpringId plus the given HotSpring attributes, under their own
+	 * names; no other column is selected and no entity is built. */
+
+	List<Tuple> findFieldsBySkinnyDipperId(Long skinnyDipperId, Long afterId,
+			Collection<String> attributes, int limit);
+
+}
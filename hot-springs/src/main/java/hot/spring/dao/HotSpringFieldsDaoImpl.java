@@ -0,0 +1,51 @@
+package hot.spring.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import hot.spring.entity.HotSpring;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/* Found by Spring Data through the Impl suffix and mixed into HotSpringDao. */
+
+public class HotSpringFieldsDaoImpl implements HotSpringFieldsDao {
+
+	private static final String ID = "hotSpringId";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Tuple> findFieldsBySkinnyDipperId(Long skinnyDipperId, Long afterId,
+			Collection<String> attributes, int limit) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = builder.createTupleQuery();
+		Root<HotSpring> hotSpring = query.from(HotSpring.class);
+
+		List<Selection<?>> selections = new ArrayList<>();
+		selections.add(hotSpring.get(ID).alias(ID));
+
+		for (String attribute : attributes) {
+			if (!ID.equals(attribute)) {
+				selections.add(hotSpring.get(attribute).alias(attribute));
+			}
+		}
+
+		/* the owner's ID is the foreign key column, so the skinny dipper is not joined */
+		query.multiselect(selections)
+			.where(builder.equal(hotSpring.get("skinnyDipper").get("skinnyDipperId"),
+				skinnyDipperId), builder.greaterThan(hotSpring.get(ID), afterId))
+			.orderBy(builder.asc(hotSpring.get(ID)));
+
+		return entityManager.createQuery(query)
+			.setMaxResults(limit)
+			.getResultList();
+	}
+}
@@ -0,0 +1,15 @@
+package hot.spring.dao;
+
+/* The searchable text of a hot spring, used to build the full-text search index. */
+
+public interface HotSpringText {
+
+	Long getHotSpringId();
+
+	String getHotSpringName();
+
+	String getCounty();
+
+	String getDirections();
+
+}
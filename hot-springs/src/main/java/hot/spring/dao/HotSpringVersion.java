@@ -0,0 +1,13 @@
+package hot.spring.dao;
+
+/* Just enough of a hot spring and its owner to build an ETag. */
+
+public interface HotSpringVersion {
+
+	Long getVersion();
+
+	Long getSkinnyDipperId();
+
+	Long getSkinnyDipperVersion();
+
+}
@@ -1,13 +1,48 @@
 package hot.spring.dao;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import hot.spring.entity.SkinnyDipper;
+import jakarta.persistence.QueryHint;
 
 public interface SkinnyDipperDao extends JpaRepository<SkinnyDipper, Long> {
 
 	Optional<SkinnyDipper> findBySkinnyDipperEmail(String skinnyDipperEmail);
 
+	@Query("select s.skinnyDipperEmail from SkinnyDipper s "
+		+ "where s.skinnyDipperEmail is not null")
+	List<String> findAllSkinnyDipperEmails();
+
+	@Query("select s.version as version, count(h) as hotSpringCount, "
+		+ "coalesce(sum(h.hotSpringId), 0L) as hotSpringIdSum, "
+		+ "coalesce(sum(h.version), 0L) as hotSpringVersionSum "
+		+ "from SkinnyDipper s left join s.hotSprings h "
+		+ "where s.skinnyDipperId = :skinnyDipperId group by s.skinnyDipperId, s.version")
+	Optional<SkinnyDipperVersion> findVersionBySkinnyDipperId(
+			@Param("skinnyDipperId") Long skinnyDipperId);
+
+	/* loads the skinny dipper, their hot springs and the hot spring details in one query */
+	@EntityGraph(attributePaths = { "hotSprings", "hotSprings.details" })
+	Optional<SkinnyDipper> findWithHotSpringsBySkinnyDipperId(Long skinnyDipperId);
+
+	@EntityGraph(attributePaths = { "hotSprings", "hotSprings.details" })
+	List<SkinnyDipper> findAllWithHotSpringsBy();
+
+	List<SkinnyDipper> findBySkinnyDipperIdGreaterThan(Long skinnyDipperId,
+			Pageable pageable);
+
+	/* must be consumed inside a transaction and closed when done */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	Stream<SkinnyDipper> streamAllByOrderBySkinnyDipperIdAsc();
+
 }
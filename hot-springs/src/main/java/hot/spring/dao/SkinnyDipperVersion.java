@@ -0,0 +1,16 @@
+package hot.spring.dao;
+
+/* Just enough of a skinny dipper and their hot springs to build an ETag. A skinny dipper's
+ * response embeds their hot springs, so the hot springs have to be part of it. */
+
+public interface SkinnyDipperVersion {
+
+	Long getVersion();
+
+	Long getHotSpringCount();
+
+	Long getHotSpringIdSum();
+
+	Long getHotSpringVersionSum();
+
+}
@@ -0,0 +1,116 @@
+package hot.spring.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import hot.spring.datasource.ReadReplicaProperties.Replica;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/* Sends the read-only transactions of GET requests to read replicas.
+ *
+ * Replaces the DataSource that Spring Boot would create from spring.datasource. The primary
+ * and one pool per replica are created here, all with the spring.datasource.hikari
+ * settings, and the application sees a single DataSource that asks ReadReplicaRouter for
+ * each connection. Only that DataSource is a bean, so the statement metrics proxy wraps it
+ * once; the pools report their own hikaricp.* metrics tagged with pool primary or
+ * replica-n.
+ *
+ * Turned on with hot-spring.read-replicas.enabled. */
+
+@Configuration
+@ConditionalOnProperty(prefix = "hot-spring.read-replicas", name = "enabled")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+@Slf4j
+public class ReadReplicaConfiguration {
+
+	@Bean
+	public ReadReplicaRouter readReplicaRouter(DataSourceProperties dataSourceProperties,
+			ReadReplicaProperties properties, Environment environment,
+			MeterRegistry meterRegistry) {
+		if (properties.getReplicas().isEmpty()) {
+			throw new IllegalStateException(
+				"hot-spring.read-replicas.enabled is set but no replicas are configured");
+		}
+
+		HikariDataSource primary = pool("primary", dataSourceProperties.determineUrl(),
+			dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword(),
+			environment, meterRegistry);
+		List<HikariDataSource> replicas = new ArrayList<>();
+
+		for (Replica replica : properties.getReplicas()) {
+			HikariDataSource dataSource = pool("replica-" + (replicas.size() + 1),
+				replica.getUrl(),
+				Objects.requireNonNullElse(replica.getUsername(),
+					dataSourceProperties.determineUsername()),
+				Objects.requireNonNullElse(replica.getPassword(),
+					dataSourceProperties.determinePassword()),
+				environment, meterRegistry);
+
+			/* a replica that is down must not stall reads or keep the application from
+			 * starting */
+			dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+			dataSource.setInitializationFailTimeout(-1);
+			replicas.add(dataSource);
+		}
+
+		log.info("Routing read-only transactions to {} read replicas", replicas.size());
+
+		return new ReadReplicaRouter(primary, replicas, properties.getHealthCheckInterval(),
+			meterRegistry);
+	}
+
+	@Bean
+	public DataSource dataSource(ReadReplicaRouter readReplicaRouter) {
+		return new LazyConnectionDataSourceProxy(new ReadReplicaDataSource(readReplicaRouter));
+	}
+
+	@Bean
+	public ReadReplicaFilter readReplicaFilter(ReadReplicaProperties properties) {
+		return new ReadReplicaFilter(properties.getReadYourWrites());
+	}
+
+	/* Streamed responses are written on the MVC task executor; this keeps their reads on the
+	 * same side as the request that started them. */
+
+	@Bean
+	public TaskDecorator readRoutingTaskDecorator() {
+		return ReadRouting::propagate;
+	}
+
+	private static HikariDataSource pool(String name, String url, String username,
+			String password, Environment environment, MeterRegistry meterRegistry) {
+		HikariDataSource dataSource = DataSourceBuilder.create()
+			.type(HikariDataSource.class)
+			.url(url)
+			.username(username)
+			.password(password)
+			.build();
+
+		Binder.get(environment).bind("spring.datasource.hikari",
+			Bindable.ofInstance(dataSource));
+		dataSource.setPoolName(name);
+		dataSource.setMetricsTrackerFactory(
+			new MicrometerMetricsTrackerFactory(meterRegistry));
+
+		return dataSource;
+	}
+}
@@ -0,0 +1,31 @@
+package hot.spring.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/* Hands out connections chosen by the router. It is wrapped in a
+ * LazyConnectionDataSourceProxy, so getConnection() only runs at the first statement of a
+ * transaction, once it is known whether the transaction is read-only. */
+
+final class ReadReplicaDataSource extends AbstractDataSource {
+
+	private final ReadReplicaRouter router;
+
+	ReadReplicaDataSource(ReadReplicaRouter router) {
+		this.router = router;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return router.getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Credentials are configured per pool in "
+			+ "spring.datasource and hot-spring.read-replicas");
+	}
+}
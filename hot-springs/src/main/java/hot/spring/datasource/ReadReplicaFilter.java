@@ -0,0 +1,73 @@
+package hot.spring.datasource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/* Lets GET and HEAD requests read from a replica, unless the client wrote recently.
+ *
+ * Replicas lag behind the primary, so a client that creates a hot spring and reads it back
+ * straight away could get a 404 from a replica. Every write therefore sets a cookie that
+ * lives for hot-spring.read-replicas.read-your-writes, and reads that carry it stay on the
+ * primary. Clients that do not keep cookies may read a stale replica for a moment after
+ * their own writes. */
+
+public class ReadReplicaFilter extends OncePerRequestFilter {
+
+	public static final String RECENT_WRITE_COOKIE = "hot-spring-recent-write";
+
+	private static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+
+	private final int recentWriteSeconds;
+
+	public ReadReplicaFilter(Duration readYourWrites) {
+		/* a cookie's Max-Age is in whole seconds; round up so the window is never shorter */
+		recentWriteSeconds = (int) Math.min(Integer.MAX_VALUE,
+			(readYourWrites.toMillis() + 999) / 1000);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+		if (!READ_METHODS.contains(request.getMethod())) {
+			if (recentWriteSeconds > 0) {
+				Cookie cookie = new Cookie(RECENT_WRITE_COOKIE, "1");
+				cookie.setPath("/");
+				cookie.setHttpOnly(true);
+				cookie.setMaxAge(recentWriteSeconds);
+				response.addCookie(cookie);
+			}
+
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		if (!wroteRecently(request)) {
+			ReadRouting.allowReplica();
+		}
+
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			ReadRouting.clear();
+		}
+	}
+
+	private boolean wroteRecently(HttpServletRequest request) {
+		Cookie[] cookies = request.getCookies();
+
+		return recentWriteSeconds > 0 && Objects.nonNull(cookies) && Arrays.stream(cookies)
+			.anyMatch(cookie -> RECENT_WRITE_COOKIE.equals(cookie.getName()));
+	}
+}
@@ -0,0 +1,30 @@
+package hot.spring.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/* hot-spring.read-replicas in application.yaml. A replica without a username or password
+ * uses the ones of spring.datasource. */
+
+@Data
+@ConfigurationProperties("hot-spring.read-replicas")
+public class ReadReplicaProperties {
+
+	private boolean enabled;
+	private List<Replica> replicas = new ArrayList<>();
+	private Duration healthCheckInterval = Duration.ofSeconds(5);
+	private Duration connectionTimeout = Duration.ofSeconds(1);
+	private Duration readYourWrites = Duration.ofSeconds(5);
+
+	@Data
+	public static class Replica {
+		private String url;
+		private String username;
+		private String password;
+	}
+}
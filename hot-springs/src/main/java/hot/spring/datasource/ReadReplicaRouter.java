@@ -0,0 +1,163 @@
+package hot.spring.datasource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/* Picks the connection pool for each new connection.
+ *
+ * A read-only transaction on a thread that ReadRouting allows to use a replica gets a
+ * connection from the next healthy replica, round robin. Everything else, and a read when
+ * no replica is healthy, gets the primary.
+ *
+ * A replica is marked down as soon as it fails to hand out a connection, and the read
+ * falls back to the primary instead of failing. Replicas are checked every
+ * hot-spring.read-replicas.health-check-interval and come back once a check succeeds.
+ * The checks run on a thread of their own rather than on the shared @Scheduled thread: a
+ * replica that hangs can hold a check for seconds, and would hold up every other scheduled
+ * job with it.
+ *
+ * The decision is made when the connection is first used (see ReadReplicaDataSource), by
+ * which time the transaction manager has marked the transaction read-only. */
+
+@Slf4j
+public class ReadReplicaRouter implements Closeable {
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+	private final HikariDataSource primary;
+	private final List<Replica> replicas;
+	private final AtomicInteger next = new AtomicInteger();
+	private final Counter fallbacks;
+	private final ScheduledExecutorService healthChecks;
+
+	private static final class Replica {
+		private final HikariDataSource dataSource;
+		private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+		private Replica(HikariDataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+	}
+
+	public ReadReplicaRouter(HikariDataSource primary, List<HikariDataSource> replicas,
+			Duration healthCheckInterval, MeterRegistry meterRegistry) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+
+		fallbacks = Counter.builder("hot_spring.datasource.replica_fallbacks")
+			.description("Read-only transactions sent to the primary because no replica "
+				+ "was healthy")
+			.register(meterRegistry);
+
+		Gauge.builder("hot_spring.datasource.healthy_replicas", this,
+				ReadReplicaRouter::healthyReplicas)
+			.description("Read replicas currently receiving reads")
+			.register(meterRegistry);
+
+		healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "read-replica-health");
+			thread.setDaemon(true);
+			return thread;
+		});
+		healthChecks.scheduleWithFixedDelay(this::checkReplicas,
+			healthCheckInterval.toMillis(), healthCheckInterval.toMillis(),
+			TimeUnit.MILLISECONDS);
+	}
+
+	public Connection getConnection() throws SQLException {
+		if (ReadRouting.isReplicaAllowed()
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			for (int attempt = 0; attempt < replicas.size(); attempt++) {
+				Replica replica = nextHealthy();
+
+				if (Objects.isNull(replica)) {
+					break;
+				}
+
+				try {
+					return replica.dataSource.getConnection();
+				}
+				catch (SQLException e) {
+					markDown(replica, e);
+				}
+			}
+
+			fallbacks.increment();
+		}
+
+		return primary.getConnection();
+	}
+
+	/* A check that throws would cancel the later ones, so every failure marks the replica
+	 * down instead. */
+
+	public void checkReplicas() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+					throw new SQLException("Connection is not valid");
+				}
+
+				if (replica.healthy.compareAndSet(false, true)) {
+					log.info("Read replica {} is back, sending reads to it again",
+						replica.dataSource.getPoolName());
+				}
+			}
+			catch (SQLException | RuntimeException e) {
+				markDown(replica, e);
+			}
+		}
+	}
+
+	public int healthyReplicas() {
+		return (int) replicas.stream().filter(replica -> replica.healthy.get()).count();
+	}
+
+	/* Round robin over the replicas, skipping the ones that are down. */
+
+	private Replica nextHealthy() {
+		int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = replicas.get((start + i) % replicas.size());
+
+			if (replica.healthy.get()) {
+				return replica;
+			}
+		}
+
+		return null;
+	}
+
+	private void markDown(Replica replica, Exception e) {
+		if (replica.healthy.compareAndSet(true, false)) {
+			log.warn("Read replica {} is down, reading from the primary until it recovers: {}",
+				replica.dataSource.getPoolName(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void close() {
+		healthChecks.shutdownNow();
+		replicas.forEach(replica -> replica.dataSource.close());
+		primary.close();
+	}
+}
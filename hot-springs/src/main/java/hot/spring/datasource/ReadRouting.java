@@ -0,0 +1,47 @@
+package hot.spring.datasource;
+
+import java.util.Objects;
+
+/* Whether read-only transactions on the current thread may use a read replica. Only
+ * ReadReplicaFilter allows it, for reads from clients that did not just write; startup
+ * loads, scheduled jobs and writes always see the primary. */
+
+public final class ReadRouting {
+
+	private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+	private ReadRouting() {
+	}
+
+	static void allowReplica() {
+		REPLICA_ALLOWED.set(Boolean.TRUE);
+	}
+
+	static void clear() {
+		REPLICA_ALLOWED.remove();
+	}
+
+	public static boolean isReplicaAllowed() {
+		return Objects.nonNull(REPLICA_ALLOWED.get());
+	}
+
+	/* Carries the current thread's setting over to a task run on another thread, such as a
+	 * streamed response body. */
+
+	public static Runnable propagate(Runnable task) {
+		boolean allowed = isReplicaAllowed();
+
+		return () -> {
+			if (allowed) {
+				allowReplica();
+			}
+
+			try {
+				task.run();
+			}
+			finally {
+				clear();
+			}
+		};
+	}
+}
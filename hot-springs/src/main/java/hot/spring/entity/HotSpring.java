@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -13,6 +14,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -33,6 +35,13 @@ public class HotSpring {
     private String county;
     private String directions;
     
+    /*optimistic locking version, also used to build the ETag. Existing rows start at 0.
+     * Left out of equals/hashCode because it changes on every update.*/
+    @EqualsAndHashCode.Exclude
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     @ManyToOne(cascade = CascadeType.ALL)
@@ -42,8 +51,8 @@ public class HotSpring {
     
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
-    //if a HotSpring is deleted, don't delete the amenities table, use PERSIST
-    @ManyToMany(cascade = CascadeType.PERSIST)
+    //details are a fixed vocabulary, so nothing cascades to them; only join rows are written
+    @ManyToMany
     @JoinTable(name = "hot_spring_detail",
    		 joinColumns = @JoinColumn (name = "hot_spring_id"),
    		 inverseJoinColumns = @JoinColumn (name = "detail_id"))
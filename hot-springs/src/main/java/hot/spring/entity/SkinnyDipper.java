@@ -10,14 +10,22 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 @Entity
 @Data
+/*the email constraint is named so a violation of it can be told apart from other errors*/
+@Table(uniqueConstraints = @UniqueConstraint(name = SkinnyDipper.EMAIL_CONSTRAINT, 
+    columnNames = "skinny_dipper_email"))
 public class SkinnyDipper {
     
+    public static final String EMAIL_CONSTRAINT = "uk_skinny_dipper_email";
+    
     /*add fields that are in the relationship diagram
      * first tell JPA where primary key column is for each primary key field
      * */
@@ -31,11 +39,17 @@ public class SkinnyDipper {
     private String skinnyDipperName;
     
     /*unique key so that no emails can be contributed to more than one
-     * SkinnyDipper name
+     * SkinnyDipper name, see EMAIL_CONSTRAINT
      * */
-    @Column (unique = true)
     private String skinnyDipperEmail;
     
+    /*optimistic locking version, also used to build the ETag. Existing rows start at 0.
+     * Left out of equals/hashCode because it changes on every update.*/
+    @EqualsAndHashCode.Exclude
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     /*relationships*/
     
     /*to prevent recurion problems*/
@@ -0,0 +1,56 @@
+package hot.spring.metrics;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/* Metrics that Spring Boot does not set up on its own.
+ *
+ * Controller timers (http.server.requests), connection pool metrics (hikaricp.*) and
+ * Hibernate statistics (hibernate.*) come from the actuator. This adds timers for methods
+ * annotated with @Timed, and wraps the DataSource so every JDBC statement is counted per
+ * request and slow ones are logged. */
+
+@Configuration
+public class MetricsConfiguration {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+	/* static, so the post processor is registered before the DataSource is created */
+	@Bean
+	public static BeanPostProcessor statementMetricsPostProcessor(
+			ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+		Duration threshold = environment.getProperty("hot-spring.slow-query.threshold",
+			Duration.class, Duration.ofMillis(200));
+		double sampleRate = environment.getProperty("hot-spring.slow-query.sample-rate",
+			Double.class, 1.0);
+
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource) {
+					return ProxyDataSourceBuilder.create(dataSource)
+						.name(beanName)
+						.listener(new StatementMetricsListener(meterRegistry, threshold,
+							sampleRate))
+						.build();
+				}
+
+				return bean;
+			}
+		};
+	}
+}
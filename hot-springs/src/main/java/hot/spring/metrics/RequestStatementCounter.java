@@ -0,0 +1,32 @@
+package hot.spring.metrics;
+
+import java.util.Objects;
+
+/* Number of JDBC statements run by the current request thread. Statements run outside of a
+ * request (startup loads, scheduled jobs, streamed responses) are not counted. */
+
+final class RequestStatementCounter {
+
+	private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+	private RequestStatementCounter() {
+	}
+
+	static void start() {
+		COUNT.set(new int[1]);
+	}
+
+	static void increment() {
+		int[] count = COUNT.get();
+
+		if (Objects.nonNull(count)) {
+			count[0]++;
+		}
+	}
+
+	static int finish() {
+		int[] count = COUNT.get();
+		COUNT.remove();
+		return Objects.isNull(count) ? 0 : count[0];
+	}
+}
@@ -0,0 +1,48 @@
+package hot.spring.metrics;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/* Records how many JDBC statements each request ran, as hot_spring.request.statements
+ * tagged with the same method and uri as http.server.requests. A jump in the count for an
+ * endpoint usually means an N+1 query came back. */
+
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+		RequestStatementCounter.start();
+
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			int statements = RequestStatementCounter.finish();
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+			DistributionSummary.builder("hot_spring.request.statements")
+				.description("JDBC statements per request")
+				.tag("method", request.getMethod())
+				.tag("uri", Objects.isNull(pattern) ? "UNKNOWN" : pattern.toString())
+				.register(meterRegistry)
+				.record(statements);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package hot.spring.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/* Called after every JDBC statement. Counts the statement for the current request and, if
+ * it took longer than the threshold, counts it as slow and logs a sample of them.
+ *
+ * Only the SQL is logged, never the bound parameters, which can hold email addresses. */
+
+@Slf4j
+class StatementMetricsListener implements QueryExecutionListener {
+
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+	private final long thresholdMillis;
+	private final double sampleRate;
+
+	StatementMetricsListener(ObjectProvider<MeterRegistry> meterRegistry, Duration threshold,
+			double sampleRate) {
+		this.meterRegistry = meterRegistry;
+		this.thresholdMillis = threshold.toMillis();
+		this.sampleRate = sampleRate;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		RequestStatementCounter.increment();
+
+		long elapsedMillis = execInfo.getElapsedTime();
+
+		if (elapsedMillis < thresholdMillis) {
+			return;
+		}
+
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+
+		if (Objects.nonNull(registry)) {
+			registry.counter("hot_spring.jdbc.slow_statements").increment();
+		}
+
+		if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			String sql = queryInfoList.stream()
+				.map(QueryInfo::getQuery)
+				.collect(Collectors.joining("; "));
+
+			log.warn("Slow statement took {} ms (batch size {}): {}", elapsedMillis,
+				Math.max(1, execInfo.getBatchSize()), sql);
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package hot.spring.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import hot.spring.dao.DetailDao;
+import hot.spring.entity.Detail;
+import lombok.extern.slf4j.Slf4j;
+
+/* In-memory copy of the detail table.
+ *
+ * The detail vocabulary is a handful of rows that almost never change, so instead of
+ * querying it on every hot spring save, it is loaded once and reloaded on a fixed delay.
+ * Detail names are interned so every hot spring that mentions "free" shares one String.
+ *
+ * The Detail objects handed out are detached. They can be added to HotSpring.details
+ * directly: the join table only needs their IDs, so no query is issued for them. */
+
+@Component
+@Slf4j
+public class DetailDictionary {
+
+	/* bounds the remembered misses, so a stream of made-up names cannot grow them forever */
+	private static final int MAX_MISSES = 1000;
+
+	@Autowired
+	private DetailDao detailDao;
+
+	private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+	/* a lock rather than synchronized, so a request thread waiting on the reload query does
+	 * not pin a virtual thread */
+	private final Lock refreshLock = new ReentrantLock();
+
+	/* Names that were still unknown after a reload. They cause no further reload until the
+	 * next scheduled refresh, so a bulk import that repeats one misspelled detail on every
+	 * row costs one reload, not one per row. */
+	private final Set<String> misses = ConcurrentHashMap.newKeySet();
+
+	/* the same for detail IDs read from hot_spring_detail */
+	private final Set<Long> idMisses = ConcurrentHashMap.newKeySet();
+
+	private record Snapshot(Map<String, Detail> byName, Map<Long, Detail> byId) {
+	}
+
+	/* the indexes translate detail names through the dictionary, so it is loaded first */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	public void load() {
+		refresh();
+		log.info("Detail dictionary loaded {} details", snapshot.byName().size());
+	}
+
+	/* The detail table is tiny, so reloading it is cheaper than working out whether it
+	 * changed. The snapshot is only swapped when something actually differs. */
+
+	@Scheduled(fixedDelayString = "${hot-spring.detail-dictionary.refresh-interval:PT5M}",
+		initialDelayString = "${hot-spring.detail-dictionary.refresh-interval:PT5M}")
+	public void refresh() {
+		misses.clear();
+		idMisses.clear();
+		reloadLocked();
+	}
+
+	private void reloadLocked() {
+		refreshLock.lock();
+
+		try {
+			reload();
+		}
+		finally {
+			refreshLock.unlock();
+		}
+	}
+
+	private void reload() {
+		List<Detail> details = detailDao.findAll();
+		Map<String, Detail> byName = new HashMap<>();
+		Map<Long, Detail> byId = new HashMap<>();
+
+		for (Detail detail : details) {
+			Detail copy = new Detail();
+			copy.setDetailId(detail.getDetailId());
+			copy.setDetail(detail.getDetail().intern());
+
+			byName.put(copy.getDetail(), copy);
+			byId.put(copy.getDetailId(), copy);
+		}
+
+		if (!byId.equals(snapshot.byId())) {
+			if (!snapshot.byId().isEmpty()) {
+				log.info("Detail table changed, dictionary now has {} details", byId.size());
+			}
+
+			snapshot = new Snapshot(Map.copyOf(byName), Map.copyOf(byId));
+		}
+	}
+
+	/* Maps detail names to Detail references. Names that are not in the dictionary cause a
+	 * single reload in case they were just added, unless they already missed since the last
+	 * scheduled refresh; if they are still missing they are reported instead of being
+	 * dropped. */
+
+	public Set<Detail> resolve(Collection<String> names) {
+		if (Objects.isNull(names) || names.isEmpty()) {
+			return new HashSet<>();
+		}
+
+		Set<String> unknown = new TreeSet<>();
+		Set<Detail> details = lookup(names, unknown);
+
+		if (!unknown.isEmpty() && !misses.containsAll(unknown)
+				&& misses.size() < MAX_MISSES) {
+			reloadLocked();
+			unknown.clear();
+			details = lookup(names, unknown);
+			misses.addAll(unknown);
+		}
+
+		if (!unknown.isEmpty()) {
+			throw new IllegalArgumentException("Unknown hot spring details: " + unknown);
+		}
+
+		return details;
+	}
+
+	private Set<Detail> lookup(Collection<String> names, Set<String> unknown) {
+		Map<String, Detail> byName = snapshot.byName();
+		Set<Detail> details = new HashSet<>();
+
+		for (String name : names) {
+			Detail detail = Objects.isNull(name) ? null : byName.get(name);
+
+			if (Objects.isNull(detail)) {
+				unknown.add(String.valueOf(name));
+			}
+			else {
+				details.add(detail);
+			}
+		}
+
+		return details;
+	}
+
+	public Long detailId(String name) {
+		Detail detail = snapshot.byName().get(name);
+		return Objects.isNull(detail) ? null : detail.getDetailId();
+	}
+
+	public String detailName(Long detailId) {
+		Detail detail = snapshot.byId().get(detailId);
+		return Objects.isNull(detail) ? null : detail.getDetail();
+	}
+
+	/* The name of a detail ID read from the database. An ID the snapshot does not have yet,
+	 * because the detail was added by another instance or since the last refresh, causes
+	 * one reload like an unknown name in resolve; null if it is still missing. */
+
+	public String resolveName(Long detailId) {
+		String name = detailName(detailId);
+
+		if (Objects.isNull(name) && !idMisses.contains(detailId)
+				&& idMisses.size() < MAX_MISSES) {
+			reloadLocked();
+			name = detailName(detailId);
+
+			if (Objects.isNull(name)) {
+				idMisses.add(detailId);
+			}
+		}
+
+		return name;
+	}
+
+	public Set<String> detailNames() {
+		return snapshot.byName().keySet();
+	}
+}
@@ -0,0 +1,107 @@
+package hot.spring.service;
+
+import java.util.Objects;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.controller.model.SkinnyDipperData.HotSpringResponse;
+import hot.spring.dao.HotSpringVersion;
+import hot.spring.dao.SkinnyDipperVersion;
+import hot.spring.entity.HotSpring;
+
+/* Builds and compares the ETags used for conditional GETs and If-Match updates.
+ * A tag is made from @Version columns only, so it can be checked without loading or
+ * serializing the response. The same tag can also be built from a loaded entity or a
+ * response object, which carry the versions they were read at.
+ *
+ * The tags are weak (W/"..."), because Tomcat does not gzip a response with a strong ETag:
+ * a gzipped body is different bytes. The tag still changes exactly when the rows do.
+ *
+ * If-Match knowingly deviates from RFC 9110 here. The RFC asks for the strong comparison,
+ * under which a weak tag never matches, so conditional updates would always fail with 412.
+ * Instead If-Match compares the opaque value as If-None-Match does. That is safe for these
+ * tags because they are built from the @Version columns alone: two representations with the
+ * same tag are the same rows, and only the encoding of the bytes (gzip or not, JSON, CBOR
+ * or Smile) is not covered. A client that only accepts strong If-Match semantics should not
+ * rely on these tags. */
+
+public final class EntityTags {
+
+	private EntityTags() {
+	}
+
+	public static String hotSpringTag(Long hotSpringId, HotSpringVersion version) {
+		return hotSpringTag(hotSpringId, version.getVersion(), version.getSkinnyDipperId(),
+			version.getSkinnyDipperVersion());
+	}
+
+	public static String hotSpringTag(HotSpring hotSpring) {
+		return hotSpringTag(hotSpring.getHotSpringId(), hotSpring.getVersion(),
+			hotSpring.getSkinnyDipper().getSkinnyDipperId(),
+			hotSpring.getSkinnyDipper().getVersion());
+	}
+
+	public static String hotSpringTag(HotSpringData hotSpring) {
+		return hotSpringTag(hotSpring.getHotSpringId(), hotSpring.getVersion(),
+			hotSpring.getSkinnyDipper().getSkinnyDipperId(),
+			hotSpring.getSkinnyDipper().getVersion());
+	}
+
+	private static String hotSpringTag(Long hotSpringId, Long version, Long skinnyDipperId,
+			Long skinnyDipperVersion) {
+		return "W/\"hs-" + hotSpringId + "-" + version + "-" + skinnyDipperId + "-"
+			+ skinnyDipperVersion + "\"";
+	}
+
+	public static String skinnyDipperTag(Long skinnyDipperId, SkinnyDipperVersion version) {
+		return skinnyDipperTag(skinnyDipperId, version.getVersion(),
+			version.getHotSpringCount(), version.getHotSpringIdSum(),
+			version.getHotSpringVersionSum());
+	}
+
+	public static String skinnyDipperTag(SkinnyDipperData skinnyDipper) {
+		long hotSpringIdSum = 0;
+		long hotSpringVersionSum = 0;
+
+		for (HotSpringResponse hotSpring : skinnyDipper.getHotSprings()) {
+			hotSpringIdSum += hotSpring.getHotSpringId();
+			hotSpringVersionSum += Objects.requireNonNullElse(hotSpring.getVersion(), 0L);
+		}
+
+		return skinnyDipperTag(skinnyDipper.getSkinnyDipperId(), skinnyDipper.getVersion(),
+			skinnyDipper.getHotSprings().size(), hotSpringIdSum, hotSpringVersionSum);
+	}
+
+	private static String skinnyDipperTag(Long skinnyDipperId, Long version,
+			long hotSpringCount, long hotSpringIdSum, long hotSpringVersionSum) {
+		return "W/\"sd-" + skinnyDipperId + "-" + version + "-" + hotSpringCount + "-"
+			+ hotSpringIdSum + "-" + hotSpringVersionSum + "\"";
+	}
+
+	/* True if an If-None-Match or If-Match header value matches the tag. The header may be
+	 * "*" or a comma separated list of tags, with or without the W/ prefix, since some
+	 * clients and proxies drop it. This is the weak comparison for both headers; for
+	 * If-Match that deviates from RFC 9110, as explained above. */
+
+	public static boolean matches(String header, String tag) {
+		if (Objects.isNull(header) || Objects.isNull(tag)) {
+			return false;
+		}
+
+		String opaqueTag = opaque(tag);
+
+		for (String candidate : header.split(",")) {
+			String value = candidate.trim();
+
+			if (value.equals("*") || opaque(value).equals(opaqueTag)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static String opaque(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
+}
@@ -0,0 +1,344 @@
+package hot.spring.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.controller.model.CountyAggregateData;
+import hot.spring.controller.model.HotSpringAggregateData;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.dao.HotSpringCounty;
+import hot.spring.dao.HotSpringDao;
+import hot.spring.dao.HotSpringDetailId;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/* Running totals of hot springs per county and per detail within each county.
+ *
+ * The counters are adjusted by the committed save and delete events, so reading them never
+ * touches the hot_spring table. The events only carry the new state of a hot spring, so
+ * the county and details each hot spring is currently counted under are kept as well; an
+ * update takes the old membership out of the counters before adding the new one.
+ *
+ * Anything that changes the tables without going through HotSpringService (the bulk
+ * importer, manual SQL, a lost event) would make the counters drift, so they are
+ * periodically rebuilt from the database and compared. Events that arrive while the
+ * database is being read are buffered and replayed on top of what was read, so a save that
+ * commits during reconciliation is neither lost nor counted twice. */
+
+@Component
+@Slf4j
+public class HotSpringAggregates {
+
+	static final String UNKNOWN_COUNTY = "unknown";
+
+	@Autowired
+	private HotSpringDao hotSpringDao;
+
+	@Autowired
+	private DetailDictionary detailDictionary;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Long, Membership> memberships = new HashMap<>();
+	private final Map<String, CountyCounter> counties = new TreeMap<>();
+
+	/* non-null while a reconciliation is reading the database */
+	private List<Object> pending;
+
+	private Instant reconciledAt;
+	private long driftCorrections;
+
+	private record Membership(String county, Set<Long> detailIds) {
+	}
+
+	private static class CountyCounter {
+		private long hotSprings;
+		private final Map<Long, Long> details = new HashMap<>();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		synchronize(true);
+		log.info("County aggregates loaded {} hot springs across {} counties",
+			memberships.size(), counties.size());
+	}
+
+	@Scheduled(fixedDelayString = "${hot-spring.aggregates.reconcile-interval:PT15M}",
+		initialDelayString = "${hot-spring.aggregates.reconcile-interval:PT15M}")
+	public void reconcile() {
+		synchronize(false);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		lock.writeLock().lock();
+
+		try {
+			apply(event, memberships, counties);
+
+			if (Objects.nonNull(pending)) {
+				pending.add(event);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		lock.writeLock().lock();
+
+		try {
+			apply(event, memberships, counties);
+
+			if (Objects.nonNull(pending)) {
+				pending.add(event);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public HotSpringAggregateData all() {
+		lock.readLock().lock();
+
+		try {
+			List<CountyAggregateData> response = new ArrayList<>(counties.size());
+			counties.forEach((county, counter) -> response.add(toData(county, counter)));
+
+			return new HotSpringAggregateData(memberships.size(), response, reconciledAt,
+				driftCorrections);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public CountyAggregateData county(String county) {
+		lock.readLock().lock();
+
+		try {
+			CountyCounter counter = counties.get(county);
+
+			if (Objects.isNull(counter)) {
+				throw new NoSuchElementException("No hot springs in county " + county + ".");
+			}
+
+			return toData(county, counter);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* Reads every hot spring's county and details, replays the events that committed in the
+	 * meantime, and replaces the counters if they disagree. */
+
+	private void synchronize(boolean initial) {
+		lock.writeLock().lock();
+
+		try {
+			if (Objects.nonNull(pending)) {
+				return;
+			}
+
+			pending = new ArrayList<>();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+
+		Map<Long, Membership> expected;
+
+		try {
+			expected = readDatabase();
+		}
+		catch (RuntimeException e) {
+			lock.writeLock().lock();
+
+			try {
+				pending = null;
+			}
+			finally {
+				lock.writeLock().unlock();
+			}
+
+			throw e;
+		}
+
+		lock.writeLock().lock();
+
+		try {
+			Map<String, CountyCounter> expectedCounties = new TreeMap<>();
+			expected.forEach((hotSpringId, membership) -> add(membership, expectedCounties));
+
+			for (Object event : pending) {
+				apply(event, expected, expectedCounties);
+			}
+
+			int drifted = countDrift(expected);
+
+			if (drifted > 0) {
+				memberships.clear();
+				memberships.putAll(expected);
+				counties.clear();
+				counties.putAll(expectedCounties);
+
+				if (!initial) {
+					driftCorrections += drifted;
+					meterRegistry.counter("hot_spring.aggregates.drift").increment(drifted);
+					log.warn("County aggregates had drifted for {} hot springs and were rebuilt",
+						drifted);
+				}
+			}
+
+			reconciledAt = Instant.now();
+		}
+		finally {
+			pending = null;
+			lock.writeLock().unlock();
+		}
+	}
+
+	private Map<Long, Membership> readDatabase() {
+		Map<Long, Set<Long>> detailIds = new HashMap<>();
+
+		for (HotSpringDetailId row : hotSpringDao.findAllHotSpringDetailIds()) {
+			detailIds.computeIfAbsent(row.getHotSpringId(), key -> new HashSet<>())
+				.add(row.getDetailId());
+		}
+
+		Map<Long, Membership> expected = new HashMap<>();
+
+		for (HotSpringCounty row : hotSpringDao.findAllHotSpringCounties()) {
+			expected.put(row.getHotSpringId(), new Membership(countyKey(row.getCounty()),
+				detailIds.getOrDefault(row.getHotSpringId(), Set.of())));
+		}
+
+		return expected;
+	}
+
+	private int countDrift(Map<Long, Membership> expected) {
+		int drifted = 0;
+
+		for (Map.Entry<Long, Membership> entry : expected.entrySet()) {
+			if (!entry.getValue().equals(memberships.get(entry.getKey()))) {
+				drifted++;
+			}
+		}
+
+		for (Long hotSpringId : memberships.keySet()) {
+			if (!expected.containsKey(hotSpringId)) {
+				drifted++;
+			}
+		}
+
+		return drifted;
+	}
+
+	private void apply(Object event, Map<Long, Membership> memberships,
+			Map<String, CountyCounter> counties) {
+		if (event instanceof HotSpringSavedEvent saved) {
+			HotSpringData hotSpring = saved.hotSpring();
+			Membership membership = new Membership(countyKey(hotSpring.getCounty()),
+				detailIds(hotSpring.getDetails()));
+			Membership previous = memberships.put(hotSpring.getHotSpringId(), membership);
+
+			if (Objects.nonNull(previous)) {
+				remove(previous, counties);
+			}
+
+			add(membership, counties);
+		}
+		else if (event instanceof HotSpringDeletedEvent deleted) {
+			Membership previous = memberships.remove(deleted.hotSpringId());
+
+			if (Objects.nonNull(previous)) {
+				remove(previous, counties);
+			}
+		}
+	}
+
+	private static void add(Membership membership, Map<String, CountyCounter> counties) {
+		CountyCounter counter = counties.computeIfAbsent(membership.county(),
+			key -> new CountyCounter());
+		counter.hotSprings++;
+
+		for (Long detailId : membership.detailIds()) {
+			counter.details.merge(detailId, 1L, Long::sum);
+		}
+	}
+
+	private static void remove(Membership membership, Map<String, CountyCounter> counties) {
+		CountyCounter counter = counties.get(membership.county());
+
+		if (Objects.isNull(counter)) {
+			return;
+		}
+
+		for (Long detailId : membership.detailIds()) {
+			counter.details.computeIfPresent(detailId,
+				(key, count) -> count > 1 ? count - 1 : null);
+		}
+
+		if (--counter.hotSprings <= 0) {
+			counties.remove(membership.county());
+		}
+	}
+
+	private Set<Long> detailIds(Set<String> details) {
+		if (Objects.isNull(details) || details.isEmpty()) {
+			return Set.of();
+		}
+
+		Set<Long> detailIds = new HashSet<>();
+
+		for (String detail : details) {
+			Long detailId = detailDictionary.detailId(detail);
+
+			if (Objects.nonNull(detailId)) {
+				detailIds.add(detailId);
+			}
+		}
+
+		return detailIds;
+	}
+
+	private CountyAggregateData toData(String county, CountyCounter counter) {
+		Map<String, Long> details = new TreeMap<>();
+
+		counter.details.forEach((detailId, count) -> {
+			String detail = detailDictionary.detailName(detailId);
+			details.put(Objects.isNull(detail) ? "detail " + detailId : detail, count);
+		});
+
+		return new CountyAggregateData(county, counter.hotSprings,
+			Collections.unmodifiableMap(details));
+	}
+
+	private static String countyKey(String county) {
+		return Objects.isNull(county) || county.isBlank() ? UNKNOWN_COUNTY : county.trim();
+	}
+}
@@ -0,0 +1,365 @@
+package hot.spring.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import hot.spring.controller.model.BulkImportResult;
+import hot.spring.controller.model.BulkImportResult.RowError;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.HotSpringData.HotSpringSkinnyDipper;
+import hot.spring.dao.SkinnyDipperDao;
+import hot.spring.entity.Detail;
+import hot.spring.entity.SkinnyDipper;
+import lombok.extern.slf4j.Slf4j;
+
+/* Loads many hot springs for one skinny dipper.
+ *
+ * HotSpring IDs use an identity column, which stops Hibernate from batching inserts, so this
+ * goes around JPA and writes hot_spring and hot_spring_detail rows with JDBC batches. Rows
+ * are read one at a time from the request body, committed every commitInterval rows, and
+ * sent to the database batchSize rows at a time. A batch that fails is rolled back to a
+ * savepoint and retried row by row, so one bad row only costs that row. */
+
+@Service
+@Slf4j
+public class HotSpringBulkImporter {
+
+	private static final int MAX_REPORTED_ERRORS = 1000;
+
+	private static final String INSERT_HOT_SPRING = "INSERT INTO hot_spring "
+		+ "(hot_spring_name, latitude, longitude, county, directions, skinny_dipper_id, "
+		+ "version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+	private static final String INSERT_HOT_SPRING_DETAIL =
+		"INSERT INTO hot_spring_detail (hot_spring_id, detail_id) VALUES (?, ?)";
+
+	@Autowired
+	private SkinnyDipperDao skinnyDipperDao;
+
+	@Autowired
+	private DetailDictionary detailDictionary;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${hot-spring.bulk-import.batch-size:500}")
+	private int defaultBatchSize;
+
+	@Value("${hot-spring.bulk-import.commit-interval:5000}")
+	private int defaultCommitInterval;
+
+	/* the rows of one commit interval are held in memory, so callers cannot go past these */
+	@Value("${hot-spring.bulk-import.max-batch-size:5000}")
+	private int maxBatchSize;
+
+	@Value("${hot-spring.bulk-import.max-commit-interval:50000}")
+	private int maxCommitInterval;
+
+	/* A validated row waiting to be inserted. */
+
+	private record PendingRow(int row, HotSpringData hotSpring, Set<Detail> details) {
+	}
+
+	public BulkImportResult importHotSprings(Long skinnyDipperId,
+			MappingIterator<HotSpringData> rows, Integer batchSize, Integer commitInterval) {
+		int batch = Objects.isNull(batchSize) ? defaultBatchSize : batchSize;
+		int commit = Objects.isNull(commitInterval) ? defaultCommitInterval : commitInterval;
+
+		if (batch < 1 || commit < batch) {
+			throw new IllegalArgumentException(
+				"Batch size must be at least 1 and no larger than the commit interval.");
+		}
+
+		if (batch > maxBatchSize || commit > maxCommitInterval) {
+			throw new IllegalArgumentException("Batch size must be at most " + maxBatchSize
+				+ " and the commit interval at most " + maxCommitInterval + ".");
+		}
+
+		SkinnyDipper skinnyDipper = skinnyDipperDao.findById(skinnyDipperId)
+			.orElseThrow(() -> new NoSuchElementException(
+				"Skinny dipper with ID =" + skinnyDipperId + " was not found."));
+		HotSpringSkinnyDipper owner = new HotSpringSkinnyDipper(skinnyDipper);
+
+		BulkImportResult result = new BulkImportResult();
+		List<PendingRow> pending = new ArrayList<>();
+		long start = System.nanoTime();
+
+		while (true) {
+			HotSpringData hotSpring;
+
+			try {
+				if (!rows.hasNextValue()) {
+					break;
+				}
+
+				hotSpring = rows.nextValue();
+			}
+			catch (JsonMappingException e) {
+				/* the iterator skips the rest of the bad object, so keep reading */
+				result.setReceived(result.getReceived() + 1);
+				recordError(result, result.getReceived(), null, e.getOriginalMessage());
+				continue;
+			}
+			catch (IOException e) {
+				result.setReceived(result.getReceived() + 1);
+				recordError(result, result.getReceived(), null,
+					"Unreadable input, import stopped: " + e.getMessage());
+				break;
+			}
+
+			result.setReceived(result.getReceived() + 1);
+			PendingRow row = validate(result, result.getReceived(), hotSpring);
+
+			if (Objects.nonNull(row)) {
+				pending.add(row);
+			}
+
+			if (pending.size() >= commit) {
+				commitRows(pending, owner, batch, result);
+				pending.clear();
+			}
+		}
+
+		if (!pending.isEmpty()) {
+			commitRows(pending, owner, batch, result);
+		}
+
+		long elapsedNanos = System.nanoTime() - start;
+		result.setElapsedMillis(elapsedNanos / 1_000_000);
+		result.setRowsPerSecond(
+			elapsedNanos == 0 ? 0 : result.getImported() * 1_000_000_000.0 / elapsedNanos);
+
+		log.info("Bulk import for skinny dipper with ID = {}: {} received, {} imported, "
+			+ "{} failed in {} ms", skinnyDipperId, result.getReceived(), result.getImported(),
+			result.getFailed(), result.getElapsedMillis());
+
+		return result;
+	}
+
+	private PendingRow validate(BulkImportResult result, int row, HotSpringData hotSpring) {
+		String error = null;
+
+		if (Objects.isNull(hotSpring)) {
+			error = "Row is empty.";
+		}
+		else if (Objects.isNull(hotSpring.getHotSpringName())
+			|| hotSpring.getHotSpringName().isBlank()) {
+			error = "Hot spring name is required.";
+		}
+		else if (Objects.nonNull(hotSpring.getHotSpringId())) {
+			error = "Bulk import only creates hot springs; hotSpringId must not be set.";
+		}
+		else if (!inRange(hotSpring.getLatitude(), 90)
+			|| !inRange(hotSpring.getLongitude(), 180)) {
+			error = "Latitude and longitude are required and must be in range.";
+		}
+
+		if (Objects.nonNull(error)) {
+			recordError(result, row,
+				Objects.isNull(hotSpring) ? null : hotSpring.getHotSpringName(), error);
+			return null;
+		}
+
+		try {
+			return new PendingRow(row, hotSpring,
+				detailDictionary.resolve(hotSpring.getDetails()));
+		}
+		catch (IllegalArgumentException e) {
+			recordError(result, row, hotSpring.getHotSpringName(), e.getMessage());
+			return null;
+		}
+	}
+
+	private boolean inRange(BigDecimal value, int limit) {
+		return Objects.nonNull(value) && value.abs().compareTo(BigDecimal.valueOf(limit)) <= 0;
+	}
+
+	/* One transaction per commit interval. The saved events are published inside it, so
+	 * the in-memory indexes only see these rows once they are committed. */
+
+	private void commitRows(List<PendingRow> rows, HotSpringSkinnyDipper owner, int batchSize,
+			BulkImportResult result) {
+		transactionTemplate.executeWithoutResult(status -> {
+			List<HotSpringData> inserted = jdbcTemplate.execute(
+				(ConnectionCallback<List<HotSpringData>>) connection -> insertRows(connection,
+					rows, owner, batchSize, result));
+
+			for (HotSpringData hotSpring : inserted) {
+				eventPublisher.publishEvent(new HotSpringSavedEvent(hotSpring, null));
+			}
+
+			result.setImported(result.getImported() + inserted.size());
+		});
+	}
+
+	private List<HotSpringData> insertRows(Connection connection, List<PendingRow> rows,
+			HotSpringSkinnyDipper owner, int batchSize, BulkImportResult result)
+			throws SQLException {
+		List<HotSpringData> inserted = new ArrayList<>(rows.size());
+
+		try (PreparedStatement insertHotSpring = connection.prepareStatement(INSERT_HOT_SPRING,
+				Statement.RETURN_GENERATED_KEYS);
+				PreparedStatement insertDetail =
+					connection.prepareStatement(INSERT_HOT_SPRING_DETAIL)) {
+
+			for (int from = 0; from < rows.size(); from += batchSize) {
+				List<PendingRow> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+				Savepoint savepoint = connection.setSavepoint();
+
+				try {
+					inserted.addAll(insertBatch(insertHotSpring, insertDetail, batch, owner));
+					connection.releaseSavepoint(savepoint);
+				}
+				catch (SQLException e) {
+					connection.rollback(savepoint);
+					clearBatches(insertHotSpring, insertDetail);
+					log.warn("Bulk import batch failed, retrying {} rows one at a time: {}",
+						batch.size(), e.getMessage());
+
+					for (PendingRow row : batch) {
+						inserted.addAll(insertSingle(connection, insertHotSpring, insertDetail,
+							row, owner, result));
+					}
+				}
+			}
+		}
+
+		return inserted;
+	}
+
+	private List<HotSpringData> insertSingle(Connection connection,
+			PreparedStatement insertHotSpring, PreparedStatement insertDetail, PendingRow row,
+			HotSpringSkinnyDipper owner, BulkImportResult result) throws SQLException {
+		Savepoint savepoint = connection.setSavepoint();
+
+		try {
+			List<HotSpringData> inserted =
+				insertBatch(insertHotSpring, insertDetail, List.of(row), owner);
+			connection.releaseSavepoint(savepoint);
+			return inserted;
+		}
+		catch (SQLException e) {
+			connection.rollback(savepoint);
+			clearBatches(insertHotSpring, insertDetail);
+			recordError(result, row.row(), row.hotSpring().getHotSpringName(), e.getMessage());
+			return List.of();
+		}
+	}
+
+	private List<HotSpringData> insertBatch(PreparedStatement insertHotSpring,
+			PreparedStatement insertDetail, List<PendingRow> batch, HotSpringSkinnyDipper owner)
+			throws SQLException {
+		for (PendingRow row : batch) {
+			HotSpringData hotSpring = row.hotSpring();
+			insertHotSpring.setString(1, hotSpring.getHotSpringName());
+			insertHotSpring.setBigDecimal(2, hotSpring.getLatitude());
+			insertHotSpring.setBigDecimal(3, hotSpring.getLongitude());
+			setNullableString(insertHotSpring, 4, hotSpring.getCounty());
+			setNullableString(insertHotSpring, 5, hotSpring.getDirections());
+			insertHotSpring.setLong(6, owner.getSkinnyDipperId());
+			insertHotSpring.addBatch();
+		}
+
+		insertHotSpring.executeBatch();
+		List<HotSpringData> inserted = new ArrayList<>(batch.size());
+
+		try (ResultSet keys = insertHotSpring.getGeneratedKeys()) {
+			for (PendingRow row : batch) {
+				if (!keys.next()) {
+					throw new SQLException("The database did not return a generated hot spring ID.");
+				}
+
+				HotSpringData hotSpring = toHotSpringData(keys.getLong(1), row, owner);
+				inserted.add(hotSpring);
+
+				for (Detail detail : row.details()) {
+					insertDetail.setLong(1, hotSpring.getHotSpringId());
+					insertDetail.setLong(2, detail.getDetailId());
+					insertDetail.addBatch();
+				}
+			}
+		}
+
+		insertDetail.executeBatch();
+		return inserted;
+	}
+
+	private void clearBatches(PreparedStatement insertHotSpring,
+			PreparedStatement insertDetail) throws SQLException {
+		insertHotSpring.clearBatch();
+		insertDetail.clearBatch();
+	}
+
+	private void setNullableString(PreparedStatement statement, int index, String value)
+			throws SQLException {
+		if (Objects.isNull(value)) {
+			statement.setNull(index, Types.VARCHAR);
+		}
+		else {
+			statement.setString(index, value);
+		}
+	}
+
+	private HotSpringData toHotSpringData(Long hotSpringId, PendingRow row,
+			HotSpringSkinnyDipper owner) {
+		HotSpringData source = row.hotSpring();
+		HotSpringData hotSpring = new HotSpringData();
+
+		hotSpring.setHotSpringId(hotSpringId);
+		hotSpring.setVersion(0L);
+		hotSpring.setHotSpringName(source.getHotSpringName());
+		hotSpring.setLatitude(source.getLatitude());
+		hotSpring.setLongitude(source.getLongitude());
+		hotSpring.setCounty(source.getCounty());
+		hotSpring.setDirections(source.getDirections());
+		hotSpring.setSkinnyDipper(owner);
+
+		Set<String> details = new HashSet<>();
+
+		for (Detail detail : row.details()) {
+			details.add(detail.getDetail());
+		}
+
+		hotSpring.setDetails(details);
+		return hotSpring;
+	}
+
+	private void recordError(BulkImportResult result, int row, String hotSpringName,
+			String message) {
+		result.setFailed(result.getFailed() + 1);
+
+		if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+			result.getErrors().add(new RowError(row, hotSpringName, message));
+		}
+	}
+}
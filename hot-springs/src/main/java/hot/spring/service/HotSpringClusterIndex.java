@@ -0,0 +1,342 @@
+package hot.spring.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.dao.HotSpringCoordinates;
+import hot.spring.dao.HotSpringDao;
+import lombok.extern.slf4j.Slf4j;
+
+/* Precomputed map clusters for every zoom level up to maxZoom.
+ *
+ * Points are projected to Web Mercator, the projection map tiles use, as 32-bit fixed-point
+ * x and y. At zoom z the world is 2^z tiles of 256 pixels and each tile is cut into
+ * 4 x 4 cells of 64 pixels, so the cell of a point is just the top z + 2 bits of x and y.
+ * Every level keeps a count and the coordinate sums of each non-empty cell, which give the
+ * cluster centroid. Cells also keep the XOR of their hot spring IDs: when a cell holds a
+ * single hot spring, that is its ID.
+ *
+ * Adding, moving or removing a hot spring updates one cell per level, so the levels are
+ * patched from the committed save and delete events instead of being reclustered. Events
+ * that commit while the index loads are replayed over the rows it read. A
+ * cluster request reads the cells under the viewport at one level. A box covering more
+ * than MAXIMUM_CELLS cells at the requested zoom is refused, which bounds both the work
+ * and the number of clusters returned. */
+
+@Component
+@Slf4j
+public class HotSpringClusterIndex {
+
+	/* 4 x 4 cells per tile */
+	private static final int CELL_BITS = 2;
+	private static final int FIXED_BITS = 32;
+	private static final double MAXIMUM_LATITUDE = 85.05112878;
+
+	/* a viewport of about 8000 x 8000 pixels; a real screen at the matching zoom is far
+	 * below this */
+	private static final long MAXIMUM_CELLS = 16_384;
+
+	@Autowired
+	private HotSpringDao hotSpringDao;
+
+	private final int maxZoom;
+	private final List<Map<Long, Cell>> levels = new ArrayList<>();
+	private final Map<Long, Point> points = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final IndexLoadBuffer loadBuffer = new IndexLoadBuffer();
+
+	public HotSpringClusterIndex(@Value("${hot-spring.clusters.max-zoom:16}") int maxZoom) {
+		if (maxZoom < 0 || maxZoom > FIXED_BITS - CELL_BITS) {
+			throw new IllegalArgumentException("Cluster max zoom must be between 0 and "
+				+ (FIXED_BITS - CELL_BITS) + ", was " + maxZoom);
+		}
+
+		this.maxZoom = maxZoom;
+
+		for (int zoom = 0; zoom <= maxZoom; zoom++) {
+			levels.add(new HashMap<>());
+		}
+	}
+
+	/* A cluster centroid and how many hot springs it stands for. hotSpringId is only set for
+	 * a cluster of one. */
+
+	public record Cluster(double latitude, double longitude, int count, Long hotSpringId) {
+	}
+
+	private record Point(long x, long y) {
+	}
+
+	private static final class Cell {
+		private int count;
+		private long sumX;
+		private long sumY;
+		private long idXor;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		loadBuffer.start();
+		List<HotSpringCoordinates> coordinates;
+
+		try {
+			coordinates = hotSpringDao.findAllProjectedBy();
+		}
+		catch (RuntimeException e) {
+			loadBuffer.finish(() -> {}, this::apply);
+			throw e;
+		}
+
+		loadBuffer.finish(() -> install(coordinates), this::apply);
+
+		log.info("Cluster index loaded {} hot springs into {} zoom levels", coordinates.size(),
+			levels.size());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	private void install(List<HotSpringCoordinates> coordinates) {
+		lock.writeLock().lock();
+
+		try {
+			points.clear();
+			levels.forEach(Map::clear);
+
+			for (HotSpringCoordinates coordinate : coordinates) {
+				put(coordinate.getHotSpringId(), coordinate.getLatitude(),
+					coordinate.getLongitude());
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void apply(Object event) {
+		if (event instanceof HotSpringSavedEvent saved) {
+			HotSpringData hotSpring = saved.hotSpring();
+			put(hotSpring.getHotSpringId(), hotSpring.getLatitude(), hotSpring.getLongitude());
+		}
+		else if (event instanceof HotSpringDeletedEvent deleted) {
+			remove(deleted.hotSpringId());
+		}
+	}
+
+	public int maxZoom() {
+		return maxZoom;
+	}
+
+	public void put(Long hotSpringId, BigDecimal latitude, BigDecimal longitude) {
+		if (Objects.isNull(latitude) || Objects.isNull(longitude)) {
+			remove(hotSpringId);
+			return;
+		}
+
+		Point point = new Point(projectX(longitude.doubleValue()),
+			projectY(latitude.doubleValue()));
+		lock.writeLock().lock();
+
+		try {
+			Point previous = points.put(hotSpringId, point);
+
+			if (Objects.nonNull(previous)) {
+				update(hotSpringId, previous, -1);
+			}
+
+			update(hotSpringId, point, 1);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long hotSpringId) {
+		lock.writeLock().lock();
+
+		try {
+			Point previous = points.remove(hotSpringId);
+
+			if (Objects.nonNull(previous)) {
+				update(hotSpringId, previous, -1);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void update(Long hotSpringId, Point point, int delta) {
+		for (int zoom = 0; zoom <= maxZoom; zoom++) {
+			Map<Long, Cell> level = levels.get(zoom);
+			long key = cellKey(cellIndex(point.x(), zoom), cellIndex(point.y(), zoom));
+			Cell cell = level.computeIfAbsent(key, k -> new Cell());
+
+			cell.count += delta;
+			cell.sumX += delta * point.x();
+			cell.sumY += delta * point.y();
+			cell.idXor ^= hotSpringId;
+
+			if (cell.count == 0) {
+				level.remove(key);
+			}
+		}
+	}
+
+	/* The clusters at the given zoom (at most maxZoom) whose cells overlap the box. A box
+	 * with minLongitude > maxLongitude crosses the antimeridian. */
+
+	public List<Cluster> clusters(double minLatitude, double minLongitude, double maxLatitude,
+			double maxLongitude, int zoom) {
+		if (zoom < 0 || zoom > maxZoom) {
+			throw new IllegalArgumentException(
+				"Cluster zoom must be between 0 and " + maxZoom + ", was " + zoom);
+		}
+
+		/* y grows southwards */
+		long minY = cellIndex(projectY(maxLatitude), zoom);
+		long maxY = cellIndex(projectY(minLatitude), zoom);
+		long minX = cellIndex(projectX(minLongitude), zoom);
+		long maxX = cellIndex(projectX(maxLongitude), zoom);
+		long lastX = (1L << (zoom + CELL_BITS)) - 1;
+		long cells = minX <= maxX ? cellCount(minX, maxX, minY, maxY)
+			: saturatedAdd(cellCount(minX, lastX, minY, maxY), cellCount(0, maxX, minY, maxY));
+
+		if (cells > MAXIMUM_CELLS) {
+			throw new IllegalArgumentException("The box covers " + (cells == Long.MAX_VALUE
+				? "too many" : cells) + " cells at zoom " + zoom + ", more than "
+				+ MAXIMUM_CELLS + "; zoom out or shrink the box.");
+		}
+
+		List<Cluster> clusters = new ArrayList<>();
+		lock.readLock().lock();
+
+		try {
+			if (minX <= maxX) {
+				collect(zoom, minX, maxX, minY, maxY, clusters);
+			}
+			else {
+				collect(zoom, minX, lastX, minY, maxY, clusters);
+				collect(zoom, 0, maxX, minY, maxY, clusters);
+			}
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+
+		return clusters;
+	}
+
+	/* Looks up every cell in the range, unless the range has more cells than the level has
+	 * non-empty ones; then the level is scanned instead. */
+
+	private void collect(int zoom, long minX, long maxX, long minY, long maxY,
+			List<Cluster> clusters) {
+		Map<Long, Cell> level = levels.get(zoom);
+		long cellsInRange = cellCount(minX, maxX, minY, maxY);
+
+		if (cellsInRange > level.size()) {
+			for (Map.Entry<Long, Cell> entry : level.entrySet()) {
+				long x = entry.getKey() >>> FIXED_BITS;
+				long y = entry.getKey() & 0xffffffffL;
+
+				if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+					clusters.add(toCluster(entry.getValue()));
+				}
+			}
+
+			return;
+		}
+
+		for (long x = minX; x <= maxX; x++) {
+			for (long y = minY; y <= maxY; y++) {
+				Cell cell = level.get(cellKey(x, y));
+
+				if (Objects.nonNull(cell)) {
+					clusters.add(toCluster(cell));
+				}
+			}
+		}
+	}
+
+	/* Long.MAX_VALUE if the count does not fit in a long, which it can't at zoom 30 */
+	private static long cellCount(long minX, long maxX, long minY, long maxY) {
+		if (minX > maxX || minY > maxY) {
+			return 0;
+		}
+
+		try {
+			return Math.multiplyExact(maxX - minX + 1, maxY - minY + 1);
+		}
+		catch (ArithmeticException e) {
+			return Long.MAX_VALUE;
+		}
+	}
+
+	private static long saturatedAdd(long a, long b) {
+		long sum = a + b;
+		return sum < 0 ? Long.MAX_VALUE : sum;
+	}
+
+	private static Cluster toCluster(Cell cell) {
+		double x = (double) cell.sumX / cell.count;
+		double y = (double) cell.sumY / cell.count;
+
+		return new Cluster(latitude(y), longitude(x), cell.count,
+			cell.count == 1 ? cell.idXor : null);
+	}
+
+	private static long cellIndex(long fixed, int zoom) {
+		return fixed >>> (FIXED_BITS - zoom - CELL_BITS);
+	}
+
+	private static long cellKey(long x, long y) {
+		return x << FIXED_BITS | y;
+	}
+
+	private static long projectX(double longitude) {
+		return toFixed((longitude + 180) / 360);
+	}
+
+	private static long projectY(double latitude) {
+		double clamped = Math.max(-MAXIMUM_LATITUDE, Math.min(MAXIMUM_LATITUDE, latitude));
+		double sin = Math.sin(Math.toRadians(clamped));
+
+		return toFixed(0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI));
+	}
+
+	private static long toFixed(double unit) {
+		long max = (1L << FIXED_BITS) - 1;
+		return Math.max(0, Math.min(max, (long) (unit * (1L << FIXED_BITS))));
+	}
+
+	private static double longitude(double x) {
+		return x / (1L << FIXED_BITS) * 360 - 180;
+	}
+
+	private static double latitude(double y) {
+		double n = Math.PI - 2 * Math.PI * y / (1L << FIXED_BITS);
+		return Math.toDegrees(Math.atan(Math.sinh(n)));
+	}
+}
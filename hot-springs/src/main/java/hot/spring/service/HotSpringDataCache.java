@@ -0,0 +1,150 @@
+package hot.spring.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import hot.spring.controller.model.CacheStatsData;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+
+/* Read-through cache of the finished HotSpringData and SkinnyDipperData objects, keyed by
+ * ID. Entries are bounded by count and expire a fixed time after they were loaded.
+ *
+ * Entries are dropped after each committed write. A SkinnyDipperData embeds all of the
+ * dipper's hot springs and a HotSpringData embeds its owner, so a change on either side
+ * invalidates both. The expiry bounds how long a read that raced a write can serve stale
+ * data. Readers that know the current ETag of a row compare it with the cached entry
+ * and reload an entry that is behind, so a stale entry is not served for that long.
+ *
+ * Cached objects are shared between requests and must be treated as read-only.
+ *
+ * A miss is loaded on the calling thread, outside of any lock. Cache.get(key, loader)
+ * would run the loader, and so the database query, inside ConcurrentHashMap.compute, which
+ * pins a virtual thread to its carrier for the whole query. Here only a placeholder future
+ * is installed under the lock; concurrent readers of the same key wait on that future. */
+
+@Component
+public class HotSpringDataCache {
+
+	private final AsyncCache<Long, HotSpringData> hotSprings;
+	private final AsyncCache<Long, SkinnyDipperData> skinnyDippers;
+
+	public HotSpringDataCache(@Value("${hot-spring.cache.maximum-size:10000}") long maximumSize,
+			@Value("${hot-spring.cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+		hotSprings = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(expireAfterWrite)
+			.recordStats()
+			.buildAsync();
+
+		skinnyDippers = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(expireAfterWrite)
+			.recordStats()
+			.buildAsync();
+	}
+
+	public HotSpringData getHotSpring(Long hotSpringId, Function<Long, HotSpringData> loader) {
+		return get(hotSprings, hotSpringId, loader);
+	}
+
+	public SkinnyDipperData getSkinnyDipper(Long skinnyDipperId,
+			Function<Long, SkinnyDipperData> loader) {
+		return get(skinnyDippers, skinnyDipperId, loader);
+	}
+
+	private static <V> V get(AsyncCache<Long, V> cache, Long key, Function<Long, V> loader) {
+		CompletableFuture<V> placeholder = new CompletableFuture<>();
+		CompletableFuture<V> future = cache.get(key, (id, executor) -> placeholder);
+
+		if (future == placeholder) {
+			try {
+				placeholder.complete(loader.apply(key));
+			}
+			catch (RuntimeException e) {
+				/* a failed future is removed from the cache, so the next call retries */
+				placeholder.completeExceptionally(e);
+			}
+		}
+
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+
+			throw e;
+		}
+	}
+
+	/* Drops one entry that turned out to be older than the row it was loaded from. */
+
+	public void invalidateHotSpring(Long hotSpringId) {
+		hotSprings.synchronous().invalidate(hotSpringId);
+	}
+
+	public void invalidateSkinnyDipper(Long skinnyDipperId) {
+		skinnyDippers.synchronous().invalidate(skinnyDipperId);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		HotSpringData hotSpring = event.hotSpring();
+		hotSprings.synchronous().invalidate(hotSpring.getHotSpringId());
+
+		if (Objects.nonNull(hotSpring.getSkinnyDipper())) {
+			skinnyDippers.synchronous()
+				.invalidate(hotSpring.getSkinnyDipper().getSkinnyDipperId());
+		}
+
+		if (Objects.nonNull(event.previousSkinnyDipperId())) {
+			skinnyDippers.synchronous().invalidate(event.previousSkinnyDipperId());
+		}
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		hotSprings.synchronous().invalidate(event.hotSpringId());
+	}
+
+	@TransactionalEventListener
+	public void onSkinnyDipperSaved(SkinnyDipperSavedEvent event) {
+		SkinnyDipperData skinnyDipper = event.skinnyDipper();
+		skinnyDippers.synchronous().invalidate(skinnyDipper.getSkinnyDipperId());
+
+		skinnyDipper.getHotSprings().forEach(
+			hotSpring -> hotSprings.synchronous().invalidate(hotSpring.getHotSpringId()));
+	}
+
+	@TransactionalEventListener
+	public void onSkinnyDipperDeleted(SkinnyDipperDeletedEvent event) {
+		skinnyDippers.synchronous().invalidate(event.skinnyDipperId());
+	}
+
+	public List<CacheStatsData> stats() {
+		return List.of(toStats("hotSpring", hotSprings.synchronous()),
+			toStats("skinnyDipper", skinnyDippers.synchronous()));
+	}
+
+	private CacheStatsData toStats(String name, Cache<Long, ?> cache) {
+		CacheStats stats = cache.stats();
+
+		return new CacheStatsData(name, cache.estimatedSize(), stats.hitCount(),
+			stats.missCount(), stats.hitRate(), stats.evictionCount(), stats.loadFailureCount());
+	}
+}
@@ -0,0 +1,8 @@
+package hot.spring.service;
+
+/* Published by HotSpringService for every hot spring removed from the database, including
+ * the ones removed by cascade when their skinny dipper is deleted. skinnyDipperId is the
+ * owner the hot spring had. */
+
+public record HotSpringDeletedEvent(Long hotSpringId, Long skinnyDipperId) {
+}
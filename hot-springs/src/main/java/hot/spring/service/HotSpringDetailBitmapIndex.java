@@ -0,0 +1,228 @@
+package hot.spring.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.dao.HotSpringDao;
+import hot.spring.dao.HotSpringDetailId;
+import lombok.extern.slf4j.Slf4j;
+
+/* Bitmap index of hot springs by detail.
+ *
+ * For every detail there is a compressed bitmap with a bit set for each hot spring ID that
+ * has the detail, plus one bitmap of all hot spring IDs. A filter such as "free AND natural
+ * AND NOT dangerous" then becomes a few bitwise operations on the bitmaps instead of
+ * scanning the hot_spring_detail join table.
+ *
+ * Loaded when the application is ready and kept up to date from the committed save and
+ * delete events. Events that commit while the load reads are held back and replayed over
+ * the rows it read, so clearing the bitmaps for the load does not lose them. */
+
+@Component
+@Slf4j
+public class HotSpringDetailBitmapIndex {
+
+	@Autowired
+	private HotSpringDao hotSpringDao;
+
+	@Autowired
+	private DetailDictionary detailDictionary;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Long, RoaringBitmap> byDetail = new HashMap<>();
+	private final RoaringBitmap all = new RoaringBitmap();
+	private final IndexLoadBuffer loadBuffer = new IndexLoadBuffer();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		loadBuffer.start();
+		List<Long> hotSpringIds;
+		List<HotSpringDetailId> rows;
+
+		try {
+			hotSpringIds = hotSpringDao.findAllHotSpringIds();
+			rows = hotSpringDao.findAllHotSpringDetailIds();
+		}
+		catch (RuntimeException e) {
+			loadBuffer.finish(() -> {}, this::apply);
+			throw e;
+		}
+
+		loadBuffer.finish(() -> install(hotSpringIds, rows), this::apply);
+
+		log.info("Detail bitmap index loaded {} hot springs across {} details",
+			hotSpringIds.size(), byDetail.size());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	private void install(List<Long> hotSpringIds, List<HotSpringDetailId> rows) {
+		lock.writeLock().lock();
+
+		try {
+			all.clear();
+			byDetail.clear();
+
+			for (Long hotSpringId : hotSpringIds) {
+				all.add(toBit(hotSpringId));
+			}
+
+			for (HotSpringDetailId row : rows) {
+				bitmap(row.getDetailId()).add(toBit(row.getHotSpringId()));
+			}
+
+			all.runOptimize();
+			byDetail.values().forEach(RoaringBitmap::runOptimize);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void apply(Object event) {
+		if (event instanceof HotSpringSavedEvent saved) {
+			put(saved.hotSpring());
+		}
+		else if (event instanceof HotSpringDeletedEvent deleted) {
+			remove(deleted.hotSpringId());
+		}
+	}
+
+	private void put(HotSpringData hotSpring) {
+		int bit = toBit(hotSpring.getHotSpringId());
+		List<Long> detailIds = new ArrayList<>();
+
+		for (String detail : hotSpring.getDetails()) {
+			Long detailId = detailDictionary.detailId(detail);
+
+			if (Objects.nonNull(detailId)) {
+				detailIds.add(detailId);
+			}
+		}
+
+		lock.writeLock().lock();
+
+		try {
+			byDetail.values().forEach(bitmap -> bitmap.remove(bit));
+			all.add(bit);
+
+			for (Long detailId : detailIds) {
+				bitmap(detailId).add(bit);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void remove(Long hotSpringId) {
+		int bit = toBit(hotSpringId);
+		lock.writeLock().lock();
+
+		try {
+			all.remove(bit);
+			byDetail.values().forEach(bitmap -> bitmap.remove(bit));
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/* Hot springs that have every detail in allOf, at least one detail in anyOf (if any are
+	 * given) and none of the details in noneOf. */
+
+	public RoaringBitmap filter(Collection<Long> allOf, Collection<Long> anyOf,
+			Collection<Long> noneOf) {
+		lock.readLock().lock();
+
+		try {
+			RoaringBitmap result = all.clone();
+
+			for (Long detailId : allOf) {
+				result.and(bitmapOrEmpty(detailId));
+			}
+
+			if (!anyOf.isEmpty()) {
+				RoaringBitmap any = new RoaringBitmap();
+
+				for (Long detailId : anyOf) {
+					any.or(bitmapOrEmpty(detailId));
+				}
+
+				result.and(any);
+			}
+
+			for (Long detailId : noneOf) {
+				result.andNot(bitmapOrEmpty(detailId));
+			}
+
+			return result;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* Up to limit IDs from the bitmap that are greater than afterId, in ascending order. */
+
+	public static List<Long> page(RoaringBitmap bitmap, Long afterId, int limit) {
+		List<Long> hotSpringIds = new ArrayList<>(limit);
+		PeekableIntIterator iterator = bitmap.getIntIterator();
+
+		if (Objects.nonNull(afterId)) {
+			if (afterId >= Integer.MAX_VALUE) {
+				return hotSpringIds;
+			}
+
+			iterator.advanceIfNeeded((int) Math.max(0, afterId + 1));
+		}
+
+		while (iterator.hasNext() && hotSpringIds.size() < limit) {
+			hotSpringIds.add(Integer.toUnsignedLong(iterator.next()));
+		}
+
+		return hotSpringIds;
+	}
+
+	private RoaringBitmap bitmap(Long detailId) {
+		return byDetail.computeIfAbsent(detailId, key -> new RoaringBitmap());
+	}
+
+	private RoaringBitmap bitmapOrEmpty(Long detailId) {
+		RoaringBitmap bitmap = byDetail.get(detailId);
+		return Objects.isNull(bitmap) ? new RoaringBitmap() : bitmap;
+	}
+
+	/* hot spring IDs come from an identity column and stay well inside the int range */
+	private static int toBit(Long hotSpringId) {
+		if (hotSpringId < 0 || hotSpringId > Integer.MAX_VALUE) {
+			throw new IllegalStateException(
+				"Hot spring ID " + hotSpringId + " does not fit in the detail bitmap index.");
+		}
+
+		return hotSpringId.intValue();
+	}
+}
@@ -0,0 +1,331 @@
+package hot.spring.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.dao.HotSpringCoordinates;
+import hot.spring.dao.HotSpringDao;
+import hot.spring.dao.HotSpringDetailId;
+import lombok.extern.slf4j.Slf4j;
+
+/* Every hot spring with coordinates, stored column by column in parallel primitive arrays:
+ * the ID, the latitude and longitude as fixed-point ints (degrees times SCALE, about 1 cm)
+ * and a bitmask of its details.
+ *
+ * A map viewport query is a single pass over the two coordinate arrays. Nothing is boxed
+ * and no object is created per hot spring, so scanning the whole dataset is bound by memory
+ * bandwidth rather than by the garbage collector. The matching rows are copied into a
+ * handful of arrays for the response.
+ *
+ * Rows are packed: a removed hot spring is replaced by the last row. The slot of each ID is
+ * kept in a map that is only touched by writes. Like the other indexes the snapshot is
+ * loaded once the application is ready and then kept up to date from the committed save
+ * and delete events, with those that commit while the load reads replayed over its rows. */
+
+@Component
+@Slf4j
+public class HotSpringMapSnapshot {
+
+	/* fixed-point degrees; 180 * SCALE still fits in an int */
+	public static final int SCALE_DIGITS = 7;
+	public static final int SCALE = 10_000_000;
+
+	/* detail ID n is bit n - 1, so the first 64 details fit in a long */
+	public static final int MAXIMUM_DETAIL_ID = Long.SIZE;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	@Autowired
+	private HotSpringDao hotSpringDao;
+
+	@Autowired
+	private DetailDictionary detailDictionary;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Long, Integer> slots = new HashMap<>();
+	private final IndexLoadBuffer loadBuffer = new IndexLoadBuffer();
+
+	private long[] ids = new long[INITIAL_CAPACITY];
+	private int[] latitudes = new int[INITIAL_CAPACITY];
+	private int[] longitudes = new int[INITIAL_CAPACITY];
+	private long[] detailMasks = new long[INITIAL_CAPACITY];
+	private int size;
+
+	/* The hot springs inside a viewport, as parallel arrays of length count. */
+
+	public record Viewport(int count, long[] hotSpringIds, int[] latitudes, int[] longitudes,
+		long[] detailMasks, boolean truncated) {
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		loadBuffer.start();
+		List<HotSpringCoordinates> coordinates;
+		Map<Long, Long> masks = new HashMap<>();
+
+		try {
+			coordinates = hotSpringDao.findAllProjectedBy();
+
+			for (HotSpringDetailId row : hotSpringDao.findAllHotSpringDetailIds()) {
+				long bit = detailBit(row.getDetailId());
+
+				if (bit != 0) {
+					masks.merge(row.getHotSpringId(), bit, (a, b) -> a | b);
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			loadBuffer.finish(() -> {}, this::apply);
+			throw e;
+		}
+
+		loadBuffer.finish(() -> install(coordinates, masks), this::apply);
+
+		log.info("Map snapshot loaded {} hot springs", size());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	/* Replaces the rows with the loaded ones. The write lock is held throughout, so a query
+	 * never sees the snapshot half filled. */
+
+	private void install(List<HotSpringCoordinates> coordinates, Map<Long, Long> masks) {
+		lock.writeLock().lock();
+
+		try {
+			slots.clear();
+			size = 0;
+
+			for (HotSpringCoordinates coordinate : coordinates) {
+				put(coordinate.getHotSpringId(), coordinate.getLatitude(),
+					coordinate.getLongitude(),
+					masks.getOrDefault(coordinate.getHotSpringId(), 0L));
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void apply(Object event) {
+		if (event instanceof HotSpringSavedEvent saved) {
+			HotSpringData hotSpring = saved.hotSpring();
+			put(hotSpring.getHotSpringId(), hotSpring.getLatitude(), hotSpring.getLongitude(),
+				detailMask(hotSpring.getDetails()));
+		}
+		else if (event instanceof HotSpringDeletedEvent deleted) {
+			remove(deleted.hotSpringId());
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+
+		try {
+			return size;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* Adds, moves or re-tags a hot spring. One without coordinates cannot be drawn and is
+	 * removed instead. So is one whose coordinates are off the map: saves reject them, but
+	 * rows written some other way are logged and skipped rather than failing the load. */
+
+	public void put(Long hotSpringId, BigDecimal latitude, BigDecimal longitude,
+			long detailMask) {
+		if (Objects.isNull(latitude) || Objects.isNull(longitude)) {
+			remove(hotSpringId);
+			return;
+		}
+
+		if (!inRange(latitude, 90) || !inRange(longitude, 180)) {
+			log.warn("Hot spring {} left off the map: latitude {}, longitude {} out of range",
+				hotSpringId, latitude, longitude);
+			remove(hotSpringId);
+			return;
+		}
+
+		int lat = toFixed(latitude);
+		int lon = toFixed(longitude);
+		lock.writeLock().lock();
+
+		try {
+			Integer slot = slots.get(hotSpringId);
+
+			if (Objects.isNull(slot)) {
+				ensureCapacity(size + 1);
+				slot = size++;
+				slots.put(hotSpringId, slot);
+			}
+
+			ids[slot] = hotSpringId;
+			latitudes[slot] = lat;
+			longitudes[slot] = lon;
+			detailMasks[slot] = detailMask;
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long hotSpringId) {
+		lock.writeLock().lock();
+
+		try {
+			Integer slot = slots.remove(hotSpringId);
+
+			if (Objects.isNull(slot)) {
+				return;
+			}
+
+			int last = --size;
+
+			if (slot != last) {
+				ids[slot] = ids[last];
+				latitudes[slot] = latitudes[last];
+				longitudes[slot] = longitudes[last];
+				detailMasks[slot] = detailMasks[last];
+				slots.put(ids[slot], slot);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/* Up to limit hot springs inside the box that have every detail in allOf and none in
+	 * noneOf (both bitmasks, 0 for no filter). A box with minLongitude > maxLongitude
+	 * crosses the antimeridian. The order is the storage order, which is arbitrary. */
+
+	public Viewport query(double minLatitude, double minLongitude, double maxLatitude,
+			double maxLongitude, long allOf, long noneOf, int limit) {
+		int minLat = (int) Math.floor(minLatitude * SCALE);
+		int maxLat = (int) Math.ceil(maxLatitude * SCALE);
+		int minLon = (int) Math.floor(minLongitude * SCALE);
+		int maxLon = (int) Math.ceil(maxLongitude * SCALE);
+		boolean wraps = minLon > maxLon;
+
+		lock.readLock().lock();
+
+		try {
+			int capacity = Math.min(limit, size);
+			long[] foundIds = new long[capacity];
+			int[] foundLatitudes = new int[capacity];
+			int[] foundLongitudes = new int[capacity];
+			long[] foundMasks = new long[capacity];
+			int count = 0;
+			boolean truncated = false;
+
+			for (int i = 0; i < size; i++) {
+				int lat = latitudes[i];
+
+				if (lat < minLat || lat > maxLat) {
+					continue;
+				}
+
+				int lon = longitudes[i];
+
+				if (wraps ? lon < minLon && lon > maxLon : lon < minLon || lon > maxLon) {
+					continue;
+				}
+
+				long mask = detailMasks[i];
+
+				if ((mask & allOf) != allOf || (mask & noneOf) != 0) {
+					continue;
+				}
+
+				if (count == capacity) {
+					truncated = true;
+					break;
+				}
+
+				foundIds[count] = ids[i];
+				foundLatitudes[count] = lat;
+				foundLongitudes[count] = lon;
+				foundMasks[count] = mask;
+				count++;
+			}
+
+			if (count < capacity) {
+				foundIds = Arrays.copyOf(foundIds, count);
+				foundLatitudes = Arrays.copyOf(foundLatitudes, count);
+				foundLongitudes = Arrays.copyOf(foundLongitudes, count);
+				foundMasks = Arrays.copyOf(foundMasks, count);
+			}
+
+			return new Viewport(count, foundIds, foundLatitudes, foundLongitudes, foundMasks,
+				truncated);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* Bitmask of the given detail names. Names not in the dictionary, or past the 64th
+	 * detail, are left out. */
+
+	public long detailMask(Set<String> details) {
+		long mask = 0;
+
+		for (String detail : Objects.isNull(details) ? Set.<String>of() : details) {
+			Long detailId = detailDictionary.detailId(detail);
+
+			if (Objects.nonNull(detailId)) {
+				mask |= detailBit(detailId);
+			}
+		}
+
+		return mask;
+	}
+
+	/* 0 for a detail that has no bit */
+	public static long detailBit(Long detailId) {
+		return detailId >= 1 && detailId <= MAXIMUM_DETAIL_ID ? 1L << (detailId - 1) : 0;
+	}
+
+	private static boolean inRange(BigDecimal degrees, int limit) {
+		return degrees.abs().compareTo(BigDecimal.valueOf(limit)) <= 0;
+	}
+
+	private static int toFixed(BigDecimal degrees) {
+		return degrees.movePointRight(SCALE_DIGITS).setScale(0, RoundingMode.HALF_UP).intValueExact();
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= ids.length) {
+			return;
+		}
+
+		int grown = Math.max(capacity, ids.length * 2);
+		ids = Arrays.copyOf(ids, grown);
+		latitudes = Arrays.copyOf(latitudes, grown);
+		longitudes = Arrays.copyOf(longitudes, grown);
+		detailMasks = Arrays.copyOf(detailMasks, grown);
+	}
+}
@@ -0,0 +1,10 @@
+package hot.spring.service;
+
+import hot.spring.controller.model.HotSpringData;
+
+/* Published by HotSpringService whenever a hot spring is created or modified. Listeners
+ * use @TransactionalEventListener so they only see changes that were committed.
+ * previousSkinnyDipperId is the owner before the change, or null for a new hot spring. */
+
+public record HotSpringSavedEvent(HotSpringData hotSpring, Long previousSkinnyDipperId) {
+}
@@ -0,0 +1,385 @@
+package hot.spring.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.dao.HotSpringDao;
+import hot.spring.dao.HotSpringText;
+import lombok.extern.slf4j.Slf4j;
+
+/* Inverted index over hot spring name, county and directions.
+ *
+ * Text is lower-cased, stripped of accents and split into words; a few very common words
+ * are dropped. Each term maps to the hot springs that contain it and a weight: a word in
+ * the name counts three times as much as one in the county, which counts twice as much as
+ * one in the directions.
+ *
+ * A query matches hot springs that contain every query word. The last word is also
+ * matched as a prefix so results show up while typing ("boil" finds "Boiling River").
+ * Terms are kept sorted, so a prefix is a range lookup instead of a scan. Matches are
+ * ranked by the summed weights, with rare terms counting more than common ones.
+ *
+ * The rarest query word is looked up first and the others only checked against the hot
+ * springs it matched, so a query costs about as much as its rarest word. Only the best
+ * limit matches are kept while ranking, instead of sorting all of them.
+ *
+ * Loaded from HotSpringDao when the application is ready and kept up to date from the
+ * committed save and delete events. Events that commit while the load reads are held back
+ * and replayed over the rows it read, so they are not undone by older rows. */
+
+@Component
+@Slf4j
+public class HotSpringSearchIndex {
+
+	private static final int NAME_WEIGHT = 3;
+	private static final int COUNTY_WEIGHT = 2;
+	private static final int DIRECTIONS_WEIGHT = 1;
+
+	/* prefix matches score a little lower than the whole word */
+	private static final double PREFIX_FACTOR = 0.8;
+
+	/* bounds the work for one-letter prefixes; the completions in the most hot springs are
+	 * kept, as they are the likeliest to be what is being typed */
+	private static final int MAX_PREFIX_TERMS = 200;
+
+	/* best first, then by ID so equal scores come back in a stable order */
+	private static final Comparator<Match> RANKING = Comparator
+		.comparingDouble(Match::score).reversed()
+		.thenComparing(Match::hotSpringId);
+
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "at", "by", "for",
+		"from", "in", "into", "near", "of", "off", "on", "or", "the", "to", "with");
+
+	@Autowired
+	private HotSpringDao hotSpringDao;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final IndexLoadBuffer loadBuffer = new IndexLoadBuffer();
+
+	/* term -> hot spring ID -> weight of the term in that hot spring */
+	private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+	/* hot spring ID -> its terms, so a changed or deleted hot spring can be taken out */
+	private final Map<Long, Set<String>> terms = new HashMap<>();
+
+	/* A hot spring ID and how well it matched. */
+
+	public record Match(Long hotSpringId, double score) {
+	}
+
+	/* The hot springs of one index term, and what a hit on it is worth. */
+
+	private record Term(Map<Long, Integer> hotSprings, double weight) {
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		loadBuffer.start();
+		List<HotSpringText> rows;
+
+		try {
+			rows = hotSpringDao.findAllHotSpringText();
+		}
+		catch (RuntimeException e) {
+			loadBuffer.finish(() -> {}, this::apply);
+			throw e;
+		}
+
+		loadBuffer.finish(() -> install(rows), this::apply);
+
+		log.info("Search index loaded {} hot springs with {} terms", rows.size(),
+			postings.size());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	private void install(List<HotSpringText> rows) {
+		lock.writeLock().lock();
+
+		try {
+			postings.clear();
+			terms.clear();
+
+			for (HotSpringText row : rows) {
+				put(row.getHotSpringId(), row.getHotSpringName(), row.getCounty(),
+					row.getDirections());
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void apply(Object event) {
+		lock.writeLock().lock();
+
+		try {
+			if (event instanceof HotSpringSavedEvent saved) {
+				HotSpringData hotSpring = saved.hotSpring();
+				remove(hotSpring.getHotSpringId());
+				put(hotSpring.getHotSpringId(), hotSpring.getHotSpringName(),
+					hotSpring.getCounty(), hotSpring.getDirections());
+			}
+			else if (event instanceof HotSpringDeletedEvent deleted) {
+				remove(deleted.hotSpringId());
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/* Up to limit hot springs matching every word of the query, best first. */
+
+	public List<Match> search(String query, int limit) {
+		List<String> words = tokenize(query);
+
+		if (words.isEmpty() || limit < 1) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+
+		try {
+			int documents = Math.max(1, terms.size());
+			List<List<Term>> matched = new ArrayList<>(words.size());
+
+			for (int i = 0; i < words.size(); i++) {
+				boolean last = i == words.size() - 1;
+				List<Term> wordTerms = terms(words.get(i), last, documents);
+
+				if (wordTerms.isEmpty()) {
+					return List.of();
+				}
+
+				matched.add(wordTerms);
+			}
+
+			matched.sort(Comparator.comparingLong(HotSpringSearchIndex::documentCount));
+			Map<Long, Double> scores = scores(matched.get(0));
+
+			/* every word must match, so the other words only look up the hot springs left */
+			for (List<Term> wordTerms : matched.subList(1, matched.size())) {
+				Iterator<Map.Entry<Long, Double>> candidates = scores.entrySet().iterator();
+
+				while (candidates.hasNext()) {
+					Map.Entry<Long, Double> candidate = candidates.next();
+					double score = score(wordTerms, candidate.getKey());
+
+					if (score > 0) {
+						candidate.setValue(candidate.getValue() + score);
+					}
+					else {
+						candidates.remove();
+					}
+				}
+
+				if (scores.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			return top(scores, limit);
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/* The terms a query word matches: the word itself, or, for the last word of the query,
+	 * also up to MAX_PREFIX_TERMS terms starting with it. */
+
+	private List<Term> terms(String word, boolean prefix, int documents) {
+		List<Term> matched = new ArrayList<>();
+		Map<Long, Integer> exact = postings.get(word);
+
+		if (Objects.nonNull(exact)) {
+			matched.add(term(exact, documents, 1));
+		}
+
+		if (!prefix) {
+			return matched;
+		}
+
+		/* keeps the completions in the most hot springs; the head is the least frequent */
+		PriorityQueue<Term> completions = new PriorityQueue<>(
+			Comparator.comparingInt((Term term) -> term.hotSprings().size()));
+
+		for (Map.Entry<String, Map<Long, Integer>> entry : postings
+				.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+			completions.add(term(entry.getValue(), documents, PREFIX_FACTOR));
+
+			if (completions.size() > MAX_PREFIX_TERMS) {
+				completions.poll();
+			}
+		}
+
+		matched.addAll(completions);
+		return matched;
+	}
+
+	private static Term term(Map<Long, Integer> hotSprings, int documents, double factor) {
+		double idf = Math.log(1 + (double) documents / hotSprings.size());
+		return new Term(hotSprings, idf * factor);
+	}
+
+	/* at most this many hot springs match the word */
+	private static long documentCount(List<Term> wordTerms) {
+		long count = 0;
+
+		for (Term term : wordTerms) {
+			count += term.hotSprings().size();
+		}
+
+		return count;
+	}
+
+	/* Scores of every hot spring one word matches. */
+
+	private static Map<Long, Double> scores(List<Term> wordTerms) {
+		Map<Long, Double> scores = new HashMap<>();
+
+		for (Term term : wordTerms) {
+			for (Map.Entry<Long, Integer> posting : term.hotSprings().entrySet()) {
+				/* a hot spring matching several completions keeps the best one */
+				scores.merge(posting.getKey(), posting.getValue() * term.weight(), Math::max);
+			}
+		}
+
+		return scores;
+	}
+
+	/* Score of one hot spring for one word, or 0 if the word does not match it. */
+
+	private static double score(List<Term> wordTerms, Long hotSpringId) {
+		double best = 0;
+
+		for (Term term : wordTerms) {
+			Integer weight = term.hotSprings().get(hotSpringId);
+
+			if (Objects.nonNull(weight)) {
+				best = Math.max(best, weight * term.weight());
+			}
+		}
+
+		return best;
+	}
+
+	/* The limit best matches, ranked; a heap of limit entries whose head is the worst. */
+
+	private static List<Match> top(Map<Long, Double> scores, int limit) {
+		PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+
+		for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+			Match match = new Match(entry.getKey(), entry.getValue());
+
+			if (best.size() < limit) {
+				best.add(match);
+			}
+			else if (RANKING.compare(match, best.peek()) < 0) {
+				best.poll();
+				best.add(match);
+			}
+		}
+
+		List<Match> ranked = new ArrayList<>(best);
+		ranked.sort(RANKING);
+		return ranked;
+	}
+
+	/* callers hold the write lock */
+	private void put(Long hotSpringId, String name, String county, String directions) {
+		Map<String, Integer> weights = new HashMap<>();
+		addWeights(weights, name, NAME_WEIGHT);
+		addWeights(weights, county, COUNTY_WEIGHT);
+		addWeights(weights, directions, DIRECTIONS_WEIGHT);
+
+		for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+			postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>())
+				.put(hotSpringId, entry.getValue());
+		}
+
+		terms.put(hotSpringId, Set.copyOf(weights.keySet()));
+	}
+
+	private void remove(Long hotSpringId) {
+		Set<String> previous = terms.remove(hotSpringId);
+
+		if (Objects.isNull(previous)) {
+			return;
+		}
+
+		for (String term : previous) {
+			Map<Long, Integer> hotSprings = postings.get(term);
+
+			if (Objects.nonNull(hotSprings)) {
+				hotSprings.remove(hotSpringId);
+
+				if (hotSprings.isEmpty()) {
+					postings.remove(term);
+				}
+			}
+		}
+	}
+
+	private static void addWeights(Map<String, Integer> weights, String text, int weight) {
+		for (String term : new HashSet<>(tokenize(text))) {
+			/* index terms are shared by many hot springs, so keep one copy of each */
+			weights.merge(term.intern(), weight, Integer::sum);
+		}
+	}
+
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+
+		if (Objects.isNull(text)) {
+			return tokens;
+		}
+
+		String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+			.replaceAll("")
+			.toLowerCase(Locale.ROOT);
+
+		for (String token : SEPARATORS.split(normalized)) {
+			if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+				tokens.add(token);
+			}
+		}
+
+		return tokens;
+	}
+}
@@ -1,53 +1,223 @@
 package hot.spring.service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.hibernate.Hibernate;
+import org.hibernate.exception.ConstraintViolationException;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import hot.spring.controller.model.CacheStatsData;
+import hot.spring.controller.model.ClusterData;
+import hot.spring.controller.model.CountyAggregateData;
+import hot.spring.controller.model.HotSpringAggregateData;
 import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.KeysetPage;
+import hot.spring.controller.model.MapClusterData;
+import hot.spring.controller.model.MapViewportData;
+import hot.spring.controller.model.NearbyHotSpringData;
+import hot.spring.controller.model.SearchHotSpringData;
 import hot.spring.controller.model.SkinnyDipperData;
-import hot.spring.dao.DetailDao;
 import hot.spring.dao.HotSpringDao;
+import hot.spring.dao.HotSpringDetailId;
+import hot.spring.dao.HotSpringExportRow;
+import hot.spring.dao.HotSpringVersion;
 import hot.spring.dao.SkinnyDipperDao;
+import hot.spring.dao.SkinnyDipperVersion;
 import hot.spring.entity.Detail;
 import hot.spring.entity.HotSpring;
 import hot.spring.entity.SkinnyDipper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
 
 /* will create this bean and then inject it into the hotSpringService instance variable*/
+/* every public method is timed as hot_spring.service, tagged with its method name */
 @Service
+@Timed("hot_spring.service")
 public class HotSpringService {
 	
+	/* matches hibernate.default_batch_fetch_size so each chunk loads its collections in a
+	 * handful of batched queries */
+	private static final int STREAM_CHUNK_SIZE = 500;
+	
+	/* fields of the hot spring listing, in response order; hotSpringId is always sent */
+	private static final String HOT_SPRING_ID = "hotSpringId";
+	private static final String DETAILS = "details";
+	private static final List<String> HOT_SPRING_FIELDS = List.of(HOT_SPRING_ID, 
+		"hotSpringName", "latitude", "longitude", "county", "directions", DETAILS);
+	
 	@Autowired
 	private HotSpringDao hotSpringDao;
 
 	@Autowired
 	private SkinnyDipperDao skinnyDipperDao;
 	
-	/*Add the DetailDao we just created as an instance variable in HotSpringService.*/
+	/*Details come from an in-memory dictionary instead of a DetailDao query per save.*/
 	
 	@Autowired
-	private DetailDao detailDao;
+	private DetailDictionary detailDictionary;
+	
+	@Autowired
+	private SkinnyDipperEmailFilter emailFilter;
+	
+	@Autowired
+	private HotSpringSpatialIndex spatialIndex;
+	
+	@Autowired
+	private HotSpringDetailBitmapIndex detailBitmapIndex;
+	
+	@Autowired
+	private HotSpringSearchIndex searchIndex;
+	
+	@Autowired
+	private HotSpringAggregates aggregates;
+	
+	@Autowired
+	private HotSpringMapSnapshot mapSnapshot;
+	
+	@Autowired
+	private HotSpringClusterIndex clusterIndex;
+	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Autowired
+	private HotSpringDataCache hotSpringDataCache;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	private TransactionTemplate readOnlyTransaction;
+	
+	@PostConstruct
+	void createReadOnlyTransaction() {
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+	}
 	
 	/* I want to either create an empty skinny dipper object or find one in the database. 
 	 * checking whether the skinnyDipperId is null or not*/
 	/* start transaction */
 	@Transactional(readOnly = false)
 	public SkinnyDipperData saveSkinnyDipper(SkinnyDipperData skinnyDipperData) {
+		return saveSkinnyDipper(skinnyDipperData, null);
+	}
+	
+	/* ifMatch is the If-Match header of an update, or null. If it no longer matches the 
+	 * skinny dipper's ETag someone else changed it first, and the update is refused. */
+	
+	@Transactional(readOnly = false)
+	public SkinnyDipperData saveSkinnyDipper(SkinnyDipperData skinnyDipperData, 
+			String ifMatch) {
 		Long skinnyDipperId = skinnyDipperData.getSkinnyDipperId();
 		
 		// declare SkinnyDipper entity object
 		SkinnyDipper skinnyDipper = findOrCreateSkinnyDipper(skinnyDipperId, 			skinnyDipperData.getSkinnyDipperEmail());
 
+		if(Objects.nonNull(skinnyDipperId) && Objects.nonNull(ifMatch)) {
+			checkIfMatch(skinnyDipper, ifMatch);
+		}
+		
 		setFieldsInSkinnyDipper(skinnyDipper, skinnyDipperData);
-		return new SkinnyDipperData(skinnyDipperDao.save(skinnyDipper));
+		SkinnyDipperData response = new SkinnyDipperData(saveAndFlush(skinnyDipper));
+		
+		eventPublisher.publishEvent(
+			new SkinnyDipperSavedEvent(response, Objects.isNull(skinnyDipperId)));
+		
+		return response;
+	}
+
+	/* The tag covers the dipper's hot springs too, so it is read with the version query. 
+	 * The dipper's own version must also be the one just loaded: the update is written 
+	 * "where version = loaded version", so of two updates that pass this check with the 
+	 * same ETag, the second fails at the flush with 412 instead of overwriting the first. */
+	
+	private void checkIfMatch(SkinnyDipper skinnyDipper, String ifMatch) {
+		Long skinnyDipperId = skinnyDipper.getSkinnyDipperId();
+		SkinnyDipperVersion version = skinnyDipperDao
+			.findVersionBySkinnyDipperId(skinnyDipperId)
+			.orElseThrow(() -> new NoSuchElementException(
+				"Skinny dipper with ID =" + skinnyDipperId + " was not found."));
+		
+		if(!Objects.equals(version.getVersion(), skinnyDipper.getVersion()) 
+				|| !EntityTags.matches(ifMatch, 
+					EntityTags.skinnyDipperTag(skinnyDipperId, version))) {
+			throw new OptimisticLockingFailureException("Skinny dipper with ID =" 
+				+ skinnyDipperId + " has been modified since it was read.");
+		}
+	}
+
+	/* The unique constraint on the email is what actually keeps emails unique, so the 
+	 * write is flushed here to turn a violation into the usual DuplicateKeyException 
+	 * instead of a failed commit. Other integrity errors, such as a value too long for 
+	 * its column, are not duplicates and are rethrown as they are. */
+	
+	private SkinnyDipper saveAndFlush(SkinnyDipper skinnyDipper) {
+		try {
+			return skinnyDipperDao.saveAndFlush(skinnyDipper);
+		}
+		catch(DataIntegrityViolationException e) {
+			if(isDuplicateEmail(e)) {
+				throw new DuplicateKeyException("Skinny dipper with email " 
+					+ skinnyDipper.getSkinnyDipperEmail() + " already exists.", e);
+			}
+			
+			throw e;
+		}
+	}
+	
+	/* A unique violation (SQLState 23505, or 23000 with MySQL's duplicate entry code 1062) 
+	 * of the email constraint. MySQL reports the constraint name and H2 the column, and 
+	 * both contain skinny_dipper_email. */
+	
+	private static boolean isDuplicateEmail(DataIntegrityViolationException e) {
+		for(Throwable cause = e; Objects.nonNull(cause); cause = cause.getCause()) {
+			if(cause instanceof ConstraintViolationException violation) {
+				boolean unique = "23505".equals(violation.getSQLState()) 
+					|| ("23000".equals(violation.getSQLState()) 
+						&& violation.getErrorCode() == 1062);
+				String names = (violation.getConstraintName() + " " 
+					+ violation.getSQLException().getMessage()).toLowerCase(Locale.ROOT);
+				
+				return unique && names.contains("skinny_dipper_email");
+			}
+		}
+		
+		return false;
 	}
 
 	private void setFieldsInSkinnyDipper(SkinnyDipper skinnyDipper, 
@@ -65,16 +235,21 @@ public class HotSpringService {
 
 		if (Objects.isNull(skinnyDipperId)) {
 			
-			Optional<SkinnyDipper> opSkinDip= skinnyDipperDao
-					.findBySkinnyDipperEmail(skinnyDipperEmail);
-			
-		/* Once we’ve gotten the optional, it will either be empty or it will have a skinny 
-		 * dipper object in it. If it has a skinny dipper, it’s a duplicate, so*/
+			/* An email the filter has never seen cannot belong to anyone yet, so most 
+			 * signups skip this SELECT and rely on the unique constraint alone. */
 			
-			if(opSkinDip.isPresent()) {
-				throw new DuplicateKeyException(
-					"Skinny dipper with email " + skinnyDipperEmail + " already exists.");
+			if(emailFilter.mightContain(skinnyDipperEmail)) {
+				Optional<SkinnyDipper> opSkinDip= skinnyDipperDao
+						.findBySkinnyDipperEmail(skinnyDipperEmail);
 				
+			/* Once we’ve gotten the optional, it will either be empty or it will have a 
+			 * skinny dipper object in it. If it has a skinny dipper, it’s a duplicate, so*/
+				
+				if(opSkinDip.isPresent()) {
+					throw new DuplicateKeyException(
+						"Skinny dipper with email " + skinnyDipperEmail + " already exists.");
+					
+				}
 			}
 			
 			skinnyDipper = new SkinnyDipper();
@@ -100,7 +275,7 @@ public class HotSpringService {
 	
 	@Transactional(readOnly = true)
 	public List<SkinnyDipperData> retrieveAllSkinnyDippers() {
-		List<SkinnyDipper> skinnyDippers = skinnyDipperDao.findAll();
+		List<SkinnyDipper> skinnyDippers = skinnyDipperDao.findAllWithHotSpringsBy();
 		List<SkinnyDipperData> response = new LinkedList<>();
 
 		for (SkinnyDipper skinnyDipper : skinnyDippers) {
@@ -119,10 +294,165 @@ public class HotSpringService {
 		// @formatter: on
 	}
 
+	/* Keyset pagination: instead of an offset, the caller passes the last ID it saw and we
+	 * continue from there using the primary key index. One extra row is read to find out
+	 * whether there is another page. */
+	
+	@Transactional(readOnly = true)
+	public KeysetPage<SkinnyDipperData> retrieveSkinnyDipperPage(Long afterId, int limit) {
+		List<SkinnyDipper> skinnyDippers = skinnyDipperDao.findBySkinnyDipperIdGreaterThan(
+			Objects.isNull(afterId) ? 0L : afterId, 
+			PageRequest.of(0, limit + 1, Sort.by("skinnyDipperId")));
+		
+		KeysetPage<SkinnyDipperData> page = new KeysetPage<>();
+		
+		for(SkinnyDipper skinnyDipper : skinnyDippers.subList(0, 
+				Math.min(limit, skinnyDippers.size()))) {
+			page.getContent().add(new SkinnyDipperData(skinnyDipper));
+		}
+		
+		if(skinnyDippers.size() > limit) {
+			page.setNextAfterId(skinnyDippers.get(limit - 1).getSkinnyDipperId());
+		}
+		
+		return page;
+	}
+	
+	/* Keyset page of one skinny dipper's hot springs with only the requested fields. The 
+	 * columns come from a tuple query that selects nothing else, and the details from the 
+	 * join table, named through the detail dictionary, so no HotSpring entity is built. */
+	
+	@Transactional(readOnly = true)
+	public KeysetPage<Map<String, Object>> retrieveHotSpringPage(Long skinnyDipperId, 
+			Long afterId, int limit, Set<String> fields) {
+		List<String> selected = selectHotSpringFields(fields);
+		List<String> columns = selected.stream()
+			.filter(field -> !DETAILS.equals(field))
+			.toList();
+		
+		List<Tuple> rows = hotSpringDao.findFieldsBySkinnyDipperId(skinnyDipperId, 
+			Objects.isNull(afterId) ? 0L : afterId, columns, limit + 1);
+		
+		if(rows.isEmpty() && !skinnyDipperDao.existsById(skinnyDipperId)) {
+			throw new NoSuchElementException(
+				"Skinny dipper with ID =" + skinnyDipperId + " was not found.");
+		}
+		
+		Map<Long, Set<String>> detailsById = new LinkedHashMap<>();
+		KeysetPage<Map<String, Object>> page = new KeysetPage<>();
+		
+		for(Tuple row : rows.subList(0, Math.min(limit, rows.size()))) {
+			Map<String, Object> hotSpring = new LinkedHashMap<>();
+			
+			for(String column : columns) {
+				hotSpring.put(column, row.get(column));
+			}
+			
+			if(selected.contains(DETAILS)) {
+				Set<String> details = new TreeSet<>();
+				hotSpring.put(DETAILS, details);
+				detailsById.put(row.get(HOT_SPRING_ID, Long.class), details);
+			}
+			
+			page.getContent().add(hotSpring);
+		}
+		
+		if(!detailsById.isEmpty()) {
+			for(HotSpringDetailId link : 
+					hotSpringDao.findHotSpringDetailIdsByHotSpringIdIn(detailsById.keySet())) {
+				String detail = detailDictionary.resolveName(link.getDetailId());
+				
+				/*a detail missing even after a reload is still listed, as HotSpringAggregates 
+				 * does, rather than putting a null into the sorted set*/
+				detailsById.get(link.getHotSpringId()).add(Objects.isNull(detail) 
+					? "detail " + link.getDetailId() : detail);
+			}
+		}
+		
+		if(rows.size() > limit) {
+			page.setNextAfterId(rows.get(limit - 1).get(HOT_SPRING_ID, Long.class));
+		}
+		
+		return page;
+	}
+	
+	/* the requested fields in response order, or all of them if none were requested */
+	private List<String> selectHotSpringFields(Set<String> fields) {
+		if(Objects.isNull(fields) || fields.isEmpty()) {
+			return HOT_SPRING_FIELDS;
+		}
+		
+		Set<String> unknown = new TreeSet<>(fields);
+		unknown.removeAll(HOT_SPRING_FIELDS);
+		
+		if(!unknown.isEmpty()) {
+			throw new IllegalArgumentException("Unknown hot spring fields: " + unknown 
+				+ ". Fields are " + HOT_SPRING_FIELDS + ".");
+		}
+		
+		return HOT_SPRING_FIELDS.stream()
+			.filter(field -> HOT_SPRING_ID.equals(field) || fields.contains(field))
+			.toList();
+	}
+	
+	/* Hands every skinny dipper to the consumer while the database cursor is open. Rows are 
+	 * converted a chunk at a time so batch fetching can load the hot springs and details of 
+	 * the whole chunk together, then the persistence context is cleared so it does not grow 
+	 * with the table. */
+	
 	@Transactional(readOnly = true)
+	public void streamAllSkinnyDippers(Consumer<SkinnyDipperData> consumer) {
+		try(Stream<SkinnyDipper> skinnyDippers = 
+				skinnyDipperDao.streamAllByOrderBySkinnyDipperIdAsc()) {
+			Iterator<SkinnyDipper> iterator = skinnyDippers.iterator();
+			List<SkinnyDipper> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+			
+			while(iterator.hasNext()) {
+				chunk.add(iterator.next());
+				
+				if(chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+					for(SkinnyDipper skinnyDipper : chunk) {
+						consumer.accept(new SkinnyDipperData(skinnyDipper));
+					}
+					
+					chunk.clear();
+					entityManager.clear();
+				}
+			}
+		}
+	}
+
+	/* Not @Transactional on purpose: a cache hit should not even borrow a connection. On a 
+	 * miss the loader runs in its own read-only transaction. */
+	
 	public SkinnyDipperData retrieveSkinnyDipperById(Long skinnyDipperId) {
-		SkinnyDipper skinnyDipper = findSkinnyDipperById(skinnyDipperId);
-		return new SkinnyDipperData(skinnyDipper);
+		return retrieveSkinnyDipperById(skinnyDipperId, null);
+	}
+	
+	/* currentTag is the skinny dipper's ETag as just read by retrieveSkinnyDipperETag, or 
+	 * null. A cached response whose own tag differs was loaded before a write it missed, 
+	 * so it is dropped and loaded again. */
+	
+	public SkinnyDipperData retrieveSkinnyDipperById(Long skinnyDipperId, String currentTag) {
+		SkinnyDipperData skinnyDipper = loadSkinnyDipper(skinnyDipperId);
+		
+		if(Objects.nonNull(currentTag) 
+				&& !currentTag.equals(EntityTags.skinnyDipperTag(skinnyDipper))) {
+			hotSpringDataCache.invalidateSkinnyDipper(skinnyDipperId);
+			skinnyDipper = loadSkinnyDipper(skinnyDipperId);
+		}
+		
+		return skinnyDipper;
+	}
+	
+	private SkinnyDipperData loadSkinnyDipper(Long skinnyDipperId) {
+		return hotSpringDataCache.getSkinnyDipper(skinnyDipperId, 
+			id -> readOnlyTransaction.execute(status -> {
+				SkinnyDipper skinnyDipper = skinnyDipperDao.findWithHotSpringsBySkinnyDipperId(id)
+					.orElseThrow(() -> new NoSuchElementException(
+						"Skinny dipper with ID =" + id + " was not found."));
+				return new SkinnyDipperData(skinnyDipper);
+			}));
 	}
 	
 	 /*Create deleteSkinnyDipperById
@@ -133,7 +463,15 @@ public class HotSpringService {
 	@Transactional(readOnly = false)
 	public void deleteSkinnyDipperById(Long skinnyDipperId) {
 		SkinnyDipper skinnyDipper = findSkinnyDipperById(skinnyDipperId);
+		
+		//the skinny dipper's hot springs are removed by cascade, so tell the indexes about them
+		for(HotSpring hotSpring : skinnyDipper.getHotSprings()) {
+			eventPublisher.publishEvent(
+				new HotSpringDeletedEvent(hotSpring.getHotSpringId(), skinnyDipperId));
+		}
+		
 		skinnyDipperDao.delete(skinnyDipper);
+		eventPublisher.publishEvent(new SkinnyDipperDeletedEvent(skinnyDipperId));
 	}
 
 	/* Retrieve skinny dipper by ID
@@ -146,29 +484,85 @@ public class HotSpringService {
 	
 	@Transactional(readOnly = false)
 	public HotSpringData savetHotSpring(Long skinnyDipperId, HotSpringData hotSpringData) {
+		return savetHotSpring(skinnyDipperId, hotSpringData, null);
+	}
+	
+	@Transactional(readOnly = false)
+	public HotSpringData savetHotSpring(Long skinnyDipperId, HotSpringData hotSpringData, 
+			String ifMatch) {
+		Long hotSpringId = hotSpringData.getHotSpringId();
+		
+		checkCoordinates(hotSpringData);
+		
 		SkinnyDipper skinnyDipper = findSkinnyDipperById(skinnyDipperId);
 		
-		Set<Detail> details = detailDao.findAllByDetailIn(hotSpringData.getDetails());
+		Set<Detail> details = detailDictionary.resolve(hotSpringData.getDetails());
+		
+		HotSpring hotSpring = findOrCreateHotSpring(hotSpringId);
+		
+		/*If-Match is compared with the hot spring as it was loaded. The update is written 
+		 * "where version = loaded version", so of two updates that pass this check with 
+		 * the same ETag, the second fails at the flush with 412 instead of overwriting the 
+		 * first.*/
+		if(Objects.nonNull(hotSpringId) && Objects.nonNull(ifMatch) 
+				&& !EntityTags.matches(ifMatch, EntityTags.hotSpringTag(hotSpring))) {
+			throw new OptimisticLockingFailureException("Hot spring with ID = " 
+				+ hotSpringId + " has been modified since it was read.");
+		}
 		
-		HotSpring hotSpring = findOrCreateHotSpring(hotSpringData.getHotSpringId());
+		Long previousSkinnyDipperId = Objects.isNull(hotSpring.getSkinnyDipper()) 
+			? null : hotSpring.getSkinnyDipper().getSkinnyDipperId();
 		setHotSpringFields(hotSpring, hotSpringData);
 		
 		//Set Relationships
 		
-		//set skinny dipper
+		/*set skinny dipper. Only the owning side (HotSpring.skinnyDipper) writes the foreign 
+		 * key, so the owner's hot spring set is not loaded just to add this one to it.*/
 		hotSpring.setSkinnyDipper(skinnyDipper);
-		skinnyDipper.getHotSprings().add(hotSpring);
 		
-		//set details
+		/*set details. Only the owning side (HotSpring.details) is written to the join table,
+		 * so the detail side is left alone rather than loading every hot spring it has. The 
+		 * set is this hot spring's own join rows; Hibernate inserts only the ones added.*/
 		for(Detail detail : details) {
-			detail.getHotSprings().add(hotSpring);
 			hotSpring.getDetails().add(detail);
 		}
 		/*new object variable dbHotSpring so that if it was an insert operation, it will 
-		return an object with the primary key*/
-		HotSpring dbHotSpring = hotSpringDao.save(hotSpring);
+		return an object with the primary key. An existing hot spring is already managed, 
+		so its changes are flushed at commit without a merge.*/
+		HotSpring dbHotSpring = Objects.isNull(hotSpring.getHotSpringId()) 
+			? hotSpringDao.save(hotSpring) : hotSpring;
+		
+		/*keep the inverse side right for the rest of this transaction, but only if it was 
+		 * already loaded. Added after the save so the new hot spring has its ID (and hash).*/
+		if(Hibernate.isInitialized(skinnyDipper.getHotSprings())) {
+			skinnyDipper.getHotSprings().add(dbHotSpring);
+		}
+		
+		/*flushed now rather than at commit, so the response carries the version the update 
+		 * was written with, and its ETag is the one the next GET will return*/
+		hotSpringDao.flush();
+		HotSpringData response = new HotSpringData(dbHotSpring);
+		
+		eventPublisher.publishEvent(new HotSpringSavedEvent(response, previousSkinnyDipperId));
 		
-		return new HotSpringData(dbHotSpring);
+		return response;
+	}
+
+	/* Coordinates are optional, but ones that are given must be on the map. The map 
+	 * snapshot and the spatial indexes assume it. */
+	
+	private void checkCoordinates(HotSpringData hotSpringData) {
+		BigDecimal latitude = hotSpringData.getLatitude();
+		BigDecimal longitude = hotSpringData.getLongitude();
+		
+		if(Objects.nonNull(latitude) && latitude.abs().compareTo(BigDecimal.valueOf(90)) > 0) {
+			throw new IllegalArgumentException("Latitude must be between -90 and 90.");
+		}
+		
+		if(Objects.nonNull(longitude) 
+				&& longitude.abs().compareTo(BigDecimal.valueOf(180)) > 0) {
+			throw new IllegalArgumentException("Longitude must be between -180 and 180.");
+		}
 	}
 
 	private void setHotSpringFields(HotSpring hotSpring, HotSpringData hotSpringData) {
@@ -198,19 +592,322 @@ public class HotSpringService {
 				"Hot spring with ID = " + hotSpringId + " does not exist."));
 	}
 
-	@Transactional(readOnly = true)
+	/* Cached like retrieveSkinnyDipperById. The cached hot spring already says who owns it,
+	 * so the skinny dipper only has to be looked up when the owner does not match, to tell 
+	 * "no such skinny dipper" apart from "not their hot spring". */
+	
 	public HotSpringData retrieveHotSpringById(Long skinnyDipperId, Long hotSpringId) {
-		//validate that the skinny dipper Id exists
-		findSkinnyDipperById(skinnyDipperId);
-		HotSpring hotSpring = findHotSpringById(hotSpringId);
+		return retrieveHotSpringById(skinnyDipperId, hotSpringId, null);
+	}
+	
+	/* currentTag works as in retrieveSkinnyDipperById. */
+	
+	public HotSpringData retrieveHotSpringById(Long skinnyDipperId, Long hotSpringId, 
+			String currentTag) {
+		HotSpringData hotSpring = loadHotSpring(hotSpringId);
+		
+		if(Objects.nonNull(currentTag) 
+				&& !currentTag.equals(EntityTags.hotSpringTag(hotSpring))) {
+			hotSpringDataCache.invalidateHotSpring(hotSpringId);
+			hotSpring = loadHotSpring(hotSpringId);
+		}
 		
 		//check skinnyDipperId in hotSpring is the same as what was passed in as a parameter
-		if(hotSpring.getSkinnyDipper().getSkinnyDipperId() != skinnyDipperId) {
+		if(!Objects.equals(hotSpring.getSkinnyDipper().getSkinnyDipperId(), skinnyDipperId)) {
+			//validate that the skinny dipper Id exists
+			if(!skinnyDipperDao.existsById(skinnyDipperId)) {
+				throw new NoSuchElementException(
+					"Skinny dipper with ID =" + skinnyDipperId + " was not found.");
+			}
+			
 			throw new IllegalStateException("Hot spring with ID = " 
 			+ hotSpringId + " is not owned by skinny dipper with ID = " + skinnyDipperId);
 		}
 		
-		return new HotSpringData(hotSpring);
+		return hotSpring;
+	}
+	
+	private HotSpringData loadHotSpring(Long hotSpringId) {
+		return hotSpringDataCache.getHotSpring(hotSpringId, 
+			id -> readOnlyTransaction.execute(status -> new HotSpringData(
+				hotSpringDao.findWithDetailsByHotSpringId(id)
+					.orElseThrow(() -> new NoSuchElementException(
+						"Hot spring with ID = " + id + " does not exist.")))));
+	}
+	
+	/* ETags come from a version-only query, so a conditional GET that ends in 304 never 
+	 * builds or serializes the response. */
+	
+	public String retrieveSkinnyDipperETag(Long skinnyDipperId) {
+		SkinnyDipperVersion version = skinnyDipperDao
+			.findVersionBySkinnyDipperId(skinnyDipperId)
+			.orElseThrow(() -> new NoSuchElementException(
+				"Skinny dipper with ID =" + skinnyDipperId + " was not found."));
+		
+		return EntityTags.skinnyDipperTag(skinnyDipperId, version);
+	}
+	
+	/* Returns null when the hot spring does not exist or belongs to someone else, so the 
+	 * caller falls through to retrieveHotSpringById and its error handling. */
+	
+	public String retrieveHotSpringETag(Long skinnyDipperId, Long hotSpringId) {
+		Optional<HotSpringVersion> version = hotSpringDao.findVersionByHotSpringId(hotSpringId);
+		
+		if(version.isEmpty() 
+				|| !Objects.equals(version.get().getSkinnyDipperId(), skinnyDipperId)) {
+			return null;
+		}
+		
+		return EntityTags.hotSpringTag(hotSpringId, version.get());
+	}
+	
+	public List<CacheStatsData> retrieveCacheStats() {
+		return hotSpringDataCache.stats();
+	}
+	
+	/* Answered from running counters, not from the hot_spring table. */
+	
+	public HotSpringAggregateData retrieveAggregates() {
+		return aggregates.all();
+	}
+	
+	public CountyAggregateData retrieveCountyAggregates(String county) {
+		return aggregates.county(county.trim());
+	}
+
+	/* Ask the spatial index which hot springs are closest, then load just those rows.
+	 * Hot springs deleted since the index answered are skipped. */
+	
+	@Transactional(readOnly = true)
+	public List<NearbyHotSpringData> retrieveNearbyHotSprings(double latitude, 
+			double longitude, Double radiusKm, int limit) {
+		List<HotSpringSpatialIndex.Neighbor> neighbors = 
+			spatialIndex.nearest(latitude, longitude, radiusKm, limit);
+		
+		Map<Long, HotSpring> hotSprings = hotSpringDao
+			.findWithDetailsByHotSpringIdIn(neighbors.stream().map(HotSpringSpatialIndex.Neighbor::hotSpringId)
+				.toList())
+			.stream()
+			.collect(Collectors.toMap(HotSpring::getHotSpringId, Function.identity()));
+		
+		List<NearbyHotSpringData> response = new ArrayList<>();
+		
+		for(HotSpringSpatialIndex.Neighbor neighbor : neighbors) {
+			HotSpring hotSpring = hotSprings.get(neighbor.hotSpringId());
+			
+			if(Objects.nonNull(hotSpring)) {
+				response.add(new NearbyHotSpringData(neighbor.distanceKm(), 
+					new HotSpringData(hotSpring)));
+			}
+		}
+		
+		return response;
+	}
+	
+	/* Full-text search answered by the search index; only the matching rows are loaded.
+	 * Hot springs deleted since the index answered are skipped. */
+	
+	@Transactional(readOnly = true)
+	public List<SearchHotSpringData> searchHotSprings(String query, int limit) {
+		List<HotSpringSearchIndex.Match> matches = searchIndex.search(query, limit);
+		
+		Map<Long, HotSpring> hotSprings = hotSpringDao
+			.findWithDetailsByHotSpringIdIn(matches.stream()
+				.map(HotSpringSearchIndex.Match::hotSpringId).toList())
+			.stream()
+			.collect(Collectors.toMap(HotSpring::getHotSpringId, Function.identity()));
+		
+		List<SearchHotSpringData> response = new ArrayList<>();
+		
+		for(HotSpringSearchIndex.Match match : matches) {
+			HotSpring hotSpring = hotSprings.get(match.hotSpringId());
+			
+			if(Objects.nonNull(hotSpring)) {
+				response.add(new SearchHotSpringData(match.score(), 
+					new HotSpringData(hotSpring)));
+			}
+		}
+		
+		return response;
+	}
+	
+	/* Boolean filter on details, answered by the bitmap index. Only the IDs on the requested
+	 * page are loaded from the database. */
+	
+	@Transactional(readOnly = true)
+	public KeysetPage<HotSpringData> retrieveHotSpringsByDetails(Set<String> allOf, 
+			Set<String> anyOf, Set<String> noneOf, Long afterId, int limit) {
+		RoaringBitmap matches = detailBitmapIndex.filter(toDetailIds(allOf), 
+			toDetailIds(anyOf), toDetailIds(noneOf));
+		List<Long> hotSpringIds = HotSpringDetailBitmapIndex.page(matches, afterId, limit + 1);
+		
+		Map<Long, HotSpring> hotSprings = hotSpringDao
+			.findWithDetailsByHotSpringIdIn(hotSpringIds.subList(0, 
+				Math.min(limit, hotSpringIds.size())))
+			.stream()
+			.collect(Collectors.toMap(HotSpring::getHotSpringId, Function.identity()));
+		
+		KeysetPage<HotSpringData> page = new KeysetPage<>();
+		
+		for(Long hotSpringId : hotSpringIds.subList(0, Math.min(limit, hotSpringIds.size()))) {
+			HotSpring hotSpring = hotSprings.get(hotSpringId);
+			
+			if(Objects.nonNull(hotSpring)) {
+				page.getContent().add(new HotSpringData(hotSpring));
+			}
+		}
+		
+		if(hotSpringIds.size() > limit) {
+			page.setNextAfterId(hotSpringIds.get(limit - 1));
+		}
+		
+		return page;
+	}
+
+	/* Answered from the columnar map snapshot alone; no query and no per hot spring 
+	 * objects. */
+	
+	public MapViewportData retrieveMapViewport(double minLatitude, double minLongitude, 
+			double maxLatitude, double maxLongitude, Set<String> allOf, Set<String> noneOf, 
+			int limit) {
+		HotSpringMapSnapshot.Viewport viewport = mapSnapshot.query(minLatitude, minLongitude, 
+			maxLatitude, maxLongitude, toDetailMask(allOf), toDetailMask(noneOf), limit);
+		
+		Map<Integer, String> detailBits = new TreeMap<>();
+		
+		for(String detail : detailDictionary.detailNames()) {
+			long bit = HotSpringMapSnapshot.detailBit(detailDictionary.detailId(detail));
+			
+			if(bit != 0) {
+				detailBits.put(Long.numberOfTrailingZeros(bit), detail);
+			}
+		}
+		
+		return new MapViewportData(viewport.count(), HotSpringMapSnapshot.SCALE, 
+			viewport.hotSpringIds(), viewport.latitudes(), viewport.longitudes(), 
+			viewport.detailMasks(), detailBits, viewport.truncated());
+	}
+	
+	/* Up to the cluster index's max zoom this is one lookup per grid cell under the 
+	 * viewport. Above it clusters would hold one hot spring each, so the hot springs 
+	 * themselves come from the map snapshot instead. */
+	
+	public MapClusterData retrieveMapClusters(double minLatitude, double minLongitude, 
+			double maxLatitude, double maxLongitude, int zoom, int leafLimit) {
+		int maxClusterZoom = clusterIndex.maxZoom();
+		List<ClusterData> clusters = new ArrayList<>();
+		
+		if(zoom <= maxClusterZoom) {
+			for(HotSpringClusterIndex.Cluster cluster : clusterIndex.clusters(minLatitude, 
+					minLongitude, maxLatitude, maxLongitude, zoom)) {
+				clusters.add(new ClusterData(cluster.latitude(), cluster.longitude(), 
+					cluster.count(), cluster.hotSpringId()));
+			}
+			
+			return new MapClusterData(zoom, maxClusterZoom, false, clusters, false);
+		}
+		
+		HotSpringMapSnapshot.Viewport viewport = mapSnapshot.query(minLatitude, minLongitude, 
+			maxLatitude, maxLongitude, 0, 0, leafLimit);
+		
+		for(int i = 0; i < viewport.count(); i++) {
+			double latitude = (double)viewport.latitudes()[i] / HotSpringMapSnapshot.SCALE;
+			double longitude = (double)viewport.longitudes()[i] / HotSpringMapSnapshot.SCALE;
+			
+			clusters.add(new ClusterData(latitude, longitude, 1, viewport.hotSpringIds()[i]));
+		}
+		
+		return new MapClusterData(zoom, maxClusterZoom, true, clusters, viewport.truncated());
+	}
+	
+	private long toDetailMask(Set<String> details) {
+		long mask = 0;
+		
+		for(Long detailId : toDetailIds(details)) {
+			long bit = HotSpringMapSnapshot.detailBit(detailId);
+			
+			if(bit == 0) {
+				throw new IllegalArgumentException("Detail " 
+					+ detailDictionary.detailName(detailId) + " cannot be used as a map filter.");
+			}
+			
+			mask |= bit;
+		}
+		
+		return mask;
+	}
+
+	private List<Long> toDetailIds(Set<String> details) {
+		List<Long> detailIds = new ArrayList<>();
+		Set<String> unknown = new TreeSet<>();
+		
+		for(String detail : Objects.isNull(details) ? Set.<String>of() : details) {
+			Long detailId = detailDictionary.detailId(detail);
+			
+			if(Objects.isNull(detailId)) {
+				unknown.add(detail);
+			}else {
+				detailIds.add(detailId);
+			}
+		}
+		
+		if(!unknown.isEmpty()) {
+			throw new IllegalArgumentException("Unknown hot spring details: " + unknown);
+		}
+		
+		return detailIds;
+	}
+	
+	/* Hands every hot spring, with its owner and details, to the consumer while a single 
+	 * forward-only query is open. The query returns one row per detail, ordered by hot 
+	 * spring, so consecutive rows are folded together. Only the hot spring being built is 
+	 * kept in memory. Owner emails are left out of the export. */
+	
+	@Transactional(readOnly = true)
+	public void exportAllHotSprings(Consumer<HotSpringData> consumer) {
+		try(Stream<HotSpringExportRow> rows = hotSpringDao.streamAllForExport()) {
+			Iterator<HotSpringExportRow> iterator = rows.iterator();
+			HotSpringData current = null;
+			
+			while(iterator.hasNext()) {
+				HotSpringExportRow row = iterator.next();
+				
+				if(Objects.isNull(current) 
+						|| !current.getHotSpringId().equals(row.getHotSpringId())) {
+					if(Objects.nonNull(current)) {
+						consumer.accept(current);
+					}
+					
+					current = toExportData(row);
+				}
+				
+				if(Objects.nonNull(row.getDetail())) {
+					current.getDetails().add(row.getDetail());
+				}
+			}
+			
+			if(Objects.nonNull(current)) {
+				consumer.accept(current);
+			}
+		}
+	}
+
+	private HotSpringData toExportData(HotSpringExportRow row) {
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringId(row.getHotSpringId());
+		hotSpring.setHotSpringName(row.getHotSpringName());
+		hotSpring.setLatitude(row.getLatitude());
+		hotSpring.setLongitude(row.getLongitude());
+		hotSpring.setCounty(row.getCounty());
+		hotSpring.setDirections(row.getDirections());
+		hotSpring.setDetails(new LinkedHashSet<>());
+		
+		HotSpringData.HotSpringSkinnyDipper owner = new HotSpringData.HotSpringSkinnyDipper();
+		owner.setSkinnyDipperId(row.getSkinnyDipperId());
+		owner.setSkinnyDipperName(row.getSkinnyDipperName());
+		hotSpring.setSkinnyDipper(owner);
+		
+		return hotSpring;
 	}
 
 }
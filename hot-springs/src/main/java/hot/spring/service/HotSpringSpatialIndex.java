@@ -0,0 +1,331 @@
+package hot.spring.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.dao.HotSpringCoordinates;
+import hot.spring.dao.HotSpringDao;
+import lombok.extern.slf4j.Slf4j;
+
+/* In-memory grid index over hot spring coordinates.
+ *
+ * The globe is cut into square cells of cellDegrees x cellDegrees. Each cell keeps the IDs
+ * of the hot springs inside it, so a nearby query only has to look at the cells around the
+ * search point, ring by ring, instead of every row in the hot_spring table.
+ *
+ * The index is loaded from HotSpringDao once the application is ready and then kept up to
+ * date from the events HotSpringService publishes after each commit. Events that commit
+ * while the load reads are held back and replayed over the rows it read, so a move is not
+ * undone by an older row and a delete leaves no ghost. */
+
+@Component
+@Slf4j
+public class HotSpringSpatialIndex {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+
+	@Autowired
+	private HotSpringDao hotSpringDao;
+
+	private final double cellDegrees;
+	private final int rows;
+	private final int columns;
+
+	private final Map<Long, Point> points = new ConcurrentHashMap<>();
+	private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+	private final IndexLoadBuffer loadBuffer = new IndexLoadBuffer();
+
+	public HotSpringSpatialIndex(
+			@Value("${hot-spring.spatial-index.cell-degrees:0.1}") double cellDegrees) {
+		if (cellDegrees <= 0 || cellDegrees > 90) {
+			throw new IllegalArgumentException(
+				"Spatial index cell size must be between 0 and 90 degrees, was " + cellDegrees);
+		}
+
+		this.cellDegrees = cellDegrees;
+		this.rows = (int) Math.ceil(180 / cellDegrees);
+		this.columns = (int) Math.ceil(360 / cellDegrees);
+	}
+
+	/* A hot spring ID and how far it is from the search point. */
+
+	public record Neighbor(Long hotSpringId, double distanceKm) {
+	}
+
+	private record Point(double latitude, double longitude, long cell) {
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		loadBuffer.start();
+		List<HotSpringCoordinates> coordinates;
+
+		try {
+			coordinates = hotSpringDao.findAllProjectedBy();
+		}
+		catch (RuntimeException e) {
+			loadBuffer.finish(() -> {}, this::apply);
+			throw e;
+		}
+
+		loadBuffer.finish(() -> install(coordinates), this::apply);
+
+		log.info("Spatial index loaded {} hot springs into {} cells", points.size(),
+			cells.size());
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringSaved(HotSpringSavedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	@TransactionalEventListener
+	public void onHotSpringDeleted(HotSpringDeletedEvent event) {
+		loadBuffer.accept(event, this::apply);
+	}
+
+	/* Puts the loaded rows and drops any hot spring they do not have. Readers never lock,
+	 * so the index is not cleared first, which would show them an empty grid. */
+
+	private synchronized void install(List<HotSpringCoordinates> coordinates) {
+		Set<Long> loaded = new HashSet<>();
+
+		for (HotSpringCoordinates coordinate : coordinates) {
+			loaded.add(coordinate.getHotSpringId());
+			put(coordinate.getHotSpringId(), coordinate.getLatitude(),
+				coordinate.getLongitude());
+		}
+
+		for (Long hotSpringId : List.copyOf(points.keySet())) {
+			if (!loaded.contains(hotSpringId)) {
+				remove(hotSpringId);
+			}
+		}
+	}
+
+	private void apply(Object event) {
+		if (event instanceof HotSpringSavedEvent saved) {
+			HotSpringData hotSpring = saved.hotSpring();
+			put(hotSpring.getHotSpringId(), hotSpring.getLatitude(), hotSpring.getLongitude());
+		}
+		else if (event instanceof HotSpringDeletedEvent deleted) {
+			remove(deleted.hotSpringId());
+		}
+	}
+
+	public int size() {
+		return points.size();
+	}
+
+	/* Adds or moves a hot spring. Writes are rare compared to queries, so they are simply
+	 * serialized; readers never lock. */
+
+	public synchronized void put(Long hotSpringId, BigDecimal latitude, BigDecimal longitude) {
+		if (Objects.isNull(latitude) || Objects.isNull(longitude)) {
+			remove(hotSpringId);
+			return;
+		}
+
+		double lat = latitude.doubleValue();
+		double lon = longitude.doubleValue();
+		Point point = new Point(lat, lon, cellKey(row(lat), column(lon)));
+		Point previous = points.put(hotSpringId, point);
+
+		if (Objects.nonNull(previous) && previous.cell() != point.cell()) {
+			removeFromCell(previous.cell(), hotSpringId);
+		}
+
+		cells.computeIfAbsent(point.cell(), key -> ConcurrentHashMap.newKeySet())
+			.add(hotSpringId);
+	}
+
+	public synchronized void remove(Long hotSpringId) {
+		Point previous = points.remove(hotSpringId);
+
+		if (Objects.nonNull(previous)) {
+			removeFromCell(previous.cell(), hotSpringId);
+		}
+	}
+
+	private void removeFromCell(long cell, Long hotSpringId) {
+		Set<Long> ids = cells.get(cell);
+
+		if (Objects.nonNull(ids)) {
+			ids.remove(hotSpringId);
+
+			if (ids.isEmpty()) {
+				cells.remove(cell);
+			}
+		}
+	}
+
+	/* Returns up to limit hot springs ordered by distance from the given point. If radiusKm
+	 * is null the search is a plain k-nearest query, otherwise only hot springs within the
+	 * radius are returned.
+	 *
+	 * Cells are visited in square rings around the starting cell. The search stops as soon as
+	 * the closest possible point in the next ring is farther away than the radius or than the
+	 * worst of the limit neighbors found so far. If the rings would visit more cells than
+	 * there are hot springs, a straight scan of all points is cheaper and is used instead. */
+
+	public List<Neighbor> nearest(double latitude, double longitude, Double radiusKm,
+			int limit) {
+		PriorityQueue<Neighbor> best = new PriorityQueue<>(
+			Comparator.comparingDouble(Neighbor::distanceKm).reversed());
+
+		int row = row(latitude);
+		int column = column(longitude);
+		int maxRing = (columns - 1) / 2;
+		long visitedCells = 0;
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			double ringDistanceKm = ringLowerBoundKm(latitude, ring);
+
+			if (Objects.nonNull(radiusKm) && ringDistanceKm > radiusKm) {
+				return sorted(best);
+			}
+
+			if (best.size() >= limit && ringDistanceKm > best.peek().distanceKm()) {
+				return sorted(best);
+			}
+
+			visitedCells += ring == 0 ? 1 : 8L * ring;
+
+			if (visitedCells > points.size()) {
+				return scanAll(latitude, longitude, radiusKm, limit);
+			}
+
+			scanRing(row, column, ring, latitude, longitude, radiusKm, limit, best);
+		}
+
+		return sorted(best);
+	}
+
+	/* Baseline that computes the distance to every indexed hot spring. */
+
+	public List<Neighbor> scanAll(double latitude, double longitude, Double radiusKm,
+			int limit) {
+		PriorityQueue<Neighbor> best = new PriorityQueue<>(
+			Comparator.comparingDouble(Neighbor::distanceKm).reversed());
+
+		for (Map.Entry<Long, Point> entry : points.entrySet()) {
+			offer(best, entry.getKey(), entry.getValue(), latitude, longitude, radiusKm, limit);
+		}
+
+		return sorted(best);
+	}
+
+	private void scanRing(int row, int column, int ring, double latitude, double longitude,
+			Double radiusKm, int limit, PriorityQueue<Neighbor> best) {
+		for (int dRow = -ring; dRow <= ring; dRow++) {
+			int cellRow = row + dRow;
+
+			if (cellRow < 0 || cellRow >= rows) {
+				continue;
+			}
+
+			/* interior rows of the ring only contribute their two edge cells */
+			int step = Math.abs(dRow) == ring ? 1 : Math.max(1, 2 * ring);
+
+			for (int dColumn = -ring; dColumn <= ring; dColumn += step) {
+				Set<Long> ids = cells.get(cellKey(cellRow, column + dColumn));
+
+				if (Objects.isNull(ids)) {
+					continue;
+				}
+
+				for (Long hotSpringId : ids) {
+					Point point = points.get(hotSpringId);
+
+					if (Objects.nonNull(point)) {
+						offer(best, hotSpringId, point, latitude, longitude, radiusKm, limit);
+					}
+				}
+			}
+		}
+	}
+
+	private void offer(PriorityQueue<Neighbor> best, Long hotSpringId, Point point,
+			double latitude, double longitude, Double radiusKm, int limit) {
+		double distanceKm = distanceKm(latitude, longitude, point.latitude(),
+			point.longitude());
+
+		if (Objects.nonNull(radiusKm) && distanceKm > radiusKm) {
+			return;
+		}
+
+		if (best.size() < limit) {
+			best.add(new Neighbor(hotSpringId, distanceKm));
+		}
+		else if (distanceKm < best.peek().distanceKm()) {
+			best.poll();
+			best.add(new Neighbor(hotSpringId, distanceKm));
+		}
+	}
+
+	private List<Neighbor> sorted(PriorityQueue<Neighbor> best) {
+		List<Neighbor> neighbors = new ArrayList<>(best);
+		neighbors.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+		return Collections.unmodifiableList(neighbors);
+	}
+
+	/* Smallest possible distance from the search point to any point in the given ring. The
+	 * search point can sit anywhere in its own cell, so ring r is at least r - 1 whole cells
+	 * away, either north/south or east/west. */
+
+	private double ringLowerBoundKm(double latitude, int ring) {
+		if (ring <= 1) {
+			return 0;
+		}
+
+		double gapRadians = Math.toRadians((ring - 1) * cellDegrees);
+		double northSouthKm = gapRadians * EARTH_RADIUS_KM;
+
+		double maxLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * cellDegrees);
+		double eastWest = Math.cos(Math.toRadians(maxLatitude)) * Math.sin(gapRadians / 2);
+		double eastWestKm = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, eastWest));
+
+		return Math.min(northSouthKm, eastWestKm);
+	}
+
+	public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+			+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+			* Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	private int row(double latitude) {
+		int row = (int) Math.floor((latitude + 90) / cellDegrees);
+		return Math.max(0, Math.min(rows - 1, row));
+	}
+
+	private int column(double longitude) {
+		return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+	}
+
+	private long cellKey(int row, int column) {
+		return (long) row * columns + Math.floorMod(column, columns);
+	}
+}
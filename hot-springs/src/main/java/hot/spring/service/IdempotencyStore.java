@@ -0,0 +1,143 @@
+package hot.spring.service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/* Remembers the response of each write sent with an Idempotency-Key header, so a client
+ * that retries after a timeout gets the original response back instead of creating a
+ * second row (or, for a skinny dipper, running into the unique email check).
+ *
+ * Entries are bounded by count and expire a fixed time after they were stored. A response
+ * is only stored once the transaction that produced it has committed; if the write fails
+ * or rolls back the key is forgotten, so the client can retry it for real.
+ *
+ * Concurrent requests with the same key are collapsed like a cache miss in
+ * HotSpringDataCache: the first one installs a placeholder future and runs the write, the
+ * others wait on that future. A key reused with a different request body is rejected. */
+
+@Component
+public class IdempotencyStore {
+
+	public static final int MAXIMUM_KEY_LENGTH = 255;
+
+	private final Cache<String, CompletableFuture<Stored>> responses;
+
+	public IdempotencyStore(
+			@Value("${hot-spring.idempotency.maximum-size:100000}") long maximumSize,
+			@Value("${hot-spring.idempotency.expire-after-write:PT24H}") Duration expireAfterWrite) {
+		responses = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(expireAfterWrite)
+			.build();
+	}
+
+	/* The response and whether it was replayed from an earlier request. */
+
+	public record Result<T>(T response, boolean replayed) {
+	}
+
+	private record Stored(int requestHash, Object response) {
+	}
+
+	/* Runs the write unless a request with the same scope and key has already produced a
+	 * response. scope separates the endpoints (and owners) a key can be used with. */
+
+	public <T> Result<T> execute(String scope, String key, Object request, Supplier<T> write) {
+		if (Objects.isNull(key)) {
+			return new Result<>(write.get(), false);
+		}
+
+		if (key.isBlank() || key.length() > MAXIMUM_KEY_LENGTH) {
+			throw new IllegalArgumentException("Idempotency-Key must be between 1 and "
+				+ MAXIMUM_KEY_LENGTH + " characters.");
+		}
+
+		String cacheKey = scope + '\n' + key;
+		int requestHash = Objects.hashCode(request);
+
+		CompletableFuture<Stored> placeholder = new CompletableFuture<>();
+		CompletableFuture<Stored> future = responses.asMap().putIfAbsent(cacheKey, placeholder);
+
+		if (Objects.isNull(future)) {
+			return new Result<>(run(cacheKey, placeholder, requestHash, write), false);
+		}
+
+		Stored stored = join(future);
+
+		if (stored.requestHash() != requestHash) {
+			throw new IllegalArgumentException("Idempotency-Key " + key
+				+ " was already used for a different request.");
+		}
+
+		@SuppressWarnings("unchecked")
+		T response = (T) stored.response();
+		return new Result<>(response, true);
+	}
+
+	private <T> T run(String cacheKey, CompletableFuture<Stored> placeholder, int requestHash,
+			Supplier<T> write) {
+		T response;
+
+		try {
+			response = write.get();
+		}
+		catch (RuntimeException e) {
+			forget(cacheKey, placeholder, e);
+			throw e;
+		}
+
+		Stored stored = new Stored(requestHash, response);
+
+		/* called inside a caller's transaction, the response only counts once it commits */
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(
+				new TransactionSynchronization() {
+					@Override
+					public void afterCompletion(int status) {
+						if (status == STATUS_COMMITTED) {
+							placeholder.complete(stored);
+						}
+						else {
+							forget(cacheKey, placeholder, new IllegalStateException(
+								"The request with this Idempotency-Key was rolled back."));
+						}
+					}
+				});
+		}
+		else {
+			placeholder.complete(stored);
+		}
+
+		return response;
+	}
+
+	private void forget(String cacheKey, CompletableFuture<Stored> placeholder,
+			RuntimeException cause) {
+		responses.asMap().remove(cacheKey, placeholder);
+		placeholder.completeExceptionally(cause);
+	}
+
+	private static Stored join(CompletableFuture<Stored> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+
+			throw e;
+		}
+	}
+}
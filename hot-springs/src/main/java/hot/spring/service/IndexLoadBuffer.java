@@ -0,0 +1,78 @@
+package hot.spring.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/* Keeps an in-memory index consistent with the events that commit while it is loading.
+ *
+ * The indexes load when the application is ready, when requests are already being served.
+ * A save or delete that commits while the load query runs may or may not be in what the
+ * query read, and applying it straight away would be undone by the older rows the load then
+ * installs; a delete would leave a ghost hot spring until the next restart. So from start
+ * until finish the events are only kept, and finish installs what was read and then replays
+ * them on top of it, as HotSpringAggregates does when it reconciles. Replaying an event the
+ * query already saw just writes the same state again.
+ *
+ * Events are applied under the buffer's lock, so one that arrives during finish waits and
+ * is applied after the replayed ones rather than before them. */
+
+final class IndexLoadBuffer {
+
+	private final Lock lock = new ReentrantLock();
+
+	/* non-null while a load is reading the database */
+	private List<Object> events;
+
+	void start() {
+		lock.lock();
+
+		try {
+			events = new ArrayList<>();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* Applies the event now, or keeps it for finish while a load is reading. */
+
+	void accept(Object event, Consumer<Object> apply) {
+		lock.lock();
+
+		try {
+			if (Objects.nonNull(events)) {
+				events.add(event);
+			}
+			else {
+				apply.accept(event);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/* Runs install, which replaces the index contents with what the load read, then applies
+	 * the events kept since start. A load that failed passes an install that does nothing,
+	 * so the kept events still reach the index. */
+
+	void finish(Runnable install, Consumer<Object> apply) {
+		lock.lock();
+
+		try {
+			install.run();
+
+			for (Object event : events) {
+				apply.accept(event);
+			}
+		}
+		finally {
+			events = null;
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,7 @@
+package hot.spring.service;
+
+/* Published by HotSpringService when a skinny dipper is deleted. A HotSpringDeletedEvent is
+ * published for each of their hot springs as well. */
+
+public record SkinnyDipperDeletedEvent(Long skinnyDipperId) {
+}
@@ -0,0 +1,183 @@
+package hot.spring.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import hot.spring.dao.SkinnyDipperDao;
+import lombok.extern.slf4j.Slf4j;
+
+/* Bloom filter over the skinny dipper emails in the database.
+ *
+ * mightContain answers false only for an email that has never been stored, so a signup
+ * with such an email cannot be a duplicate and the uniqueness SELECT can be skipped. A true
+ * answer may be a false positive (at roughly the configured rate) and is confirmed with the
+ * SELECT as before. Either way the unique constraint on skinny_dipper_email has the last
+ * word, so an email the filter has not heard of yet (saved by another instance, or racing
+ * a rebuild) still ends up as a DuplicateKeyException.
+ *
+ * Emails are lower-cased because MySQL compares them case-insensitively. Bits cannot be
+ * removed, so emails of deleted or renamed skinny dippers linger until the filter is
+ * rebuilt from the database on a fixed delay, which also resizes it as the table grows. */
+
+@Component
+@Slf4j
+public class SkinnyDipperEmailFilter {
+
+	private static final int MINIMUM_CAPACITY = 1024;
+
+	@Autowired
+	private SkinnyDipperDao skinnyDipperDao;
+
+	private final boolean enabled;
+	private final double falsePositiveRate;
+
+	/* null until loaded; every email is then treated as a possible duplicate */
+	private volatile BloomFilter filter;
+
+	public SkinnyDipperEmailFilter(
+			@Value("${hot-spring.email-filter.enabled:true}") boolean enabled,
+			@Value("${hot-spring.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException(
+				"Email filter false positive rate must be between 0 and 1, was "
+					+ falsePositiveRate);
+		}
+
+		this.enabled = enabled;
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		rebuild();
+	}
+
+	@Scheduled(fixedDelayString = "${hot-spring.email-filter.rebuild-interval:PT1H}",
+		initialDelayString = "${hot-spring.email-filter.rebuild-interval:PT1H}")
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+
+		List<String> emails = skinnyDipperDao.findAllSkinnyDipperEmails();
+		BloomFilter rebuilt = new BloomFilter(Math.max(MINIMUM_CAPACITY, 2L * emails.size()),
+			falsePositiveRate);
+
+		for (String email : emails) {
+			rebuilt.add(normalize(email));
+		}
+
+		filter = rebuilt;
+		log.info("Email filter loaded {} emails into {} bits", emails.size(), rebuilt.bits());
+	}
+
+	@TransactionalEventListener
+	public void onSkinnyDipperSaved(SkinnyDipperSavedEvent event) {
+		BloomFilter current = filter;
+		String email = event.skinnyDipper().getSkinnyDipperEmail();
+
+		if (Objects.nonNull(current) && Objects.nonNull(email)) {
+			current.add(normalize(email));
+		}
+	}
+
+	/* false means no skinny dipper has this email */
+	public boolean mightContain(String email) {
+		BloomFilter current = filter;
+
+		if (Objects.isNull(current)) {
+			return true;
+		}
+
+		return Objects.nonNull(email) && current.mightContain(normalize(email));
+	}
+
+	private static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/* Standard Bloom filter: k bit positions per value from two 64-bit hashes
+	 * (h1 + i * h2), sized for the expected number of values and false positive rate.
+	 * Bits are set with compare-and-set, so adds need no lock. */
+
+	private static final class BloomFilter {
+		private final AtomicLongArray words;
+		private final long bitCount;
+		private final int hashCount;
+
+		BloomFilter(long expectedValues, double falsePositiveRate) {
+			long bits = (long) Math.ceil(
+				-expectedValues * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+			int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+
+			this.words = new AtomicLongArray(wordCount);
+			this.bitCount = wordCount * 64L;
+			this.hashCount = Math.max(1,
+				(int) Math.round((double) bitCount / expectedValues * Math.log(2)));
+		}
+
+		long bits() {
+			return bitCount;
+		}
+
+		void add(String value) {
+			long h1 = hash(value);
+			long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+
+			for (int i = 0; i < hashCount; i++) {
+				long bit = Math.floorMod(h1 + i * h2, bitCount);
+				int word = (int) (bit >>> 6);
+				long mask = 1L << bit;
+
+				long current = words.get(word);
+
+				while ((current & mask) == 0
+						&& !words.compareAndSet(word, current, current | mask)) {
+					current = words.get(word);
+				}
+			}
+		}
+
+		boolean mightContain(String value) {
+			long h1 = hash(value);
+			long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+
+			for (int i = 0; i < hashCount; i++) {
+				long bit = Math.floorMod(h1 + i * h2, bitCount);
+
+				if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/* FNV-1a over the chars, then a 64-bit finalizer to spread the bits */
+		private static long hash(String value) {
+			long hash = 0xcbf29ce484222325L;
+
+			for (int i = 0; i < value.length(); i++) {
+				hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+			}
+
+			return mix(hash);
+		}
+
+		private static long mix(long hash) {
+			hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+			hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+			return hash ^ (hash >>> 33);
+		}
+	}
+}
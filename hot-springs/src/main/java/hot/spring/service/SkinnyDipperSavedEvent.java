@@ -0,0 +1,9 @@
+package hot.spring.service;
+
+import hot.spring.controller.model.SkinnyDipperData;
+
+/* Published by HotSpringService whenever a skinny dipper is created or modified. created
+ * tells the two apart. */
+
+public record SkinnyDipperSavedEvent(SkinnyDipperData skinnyDipper, boolean created) {
+}
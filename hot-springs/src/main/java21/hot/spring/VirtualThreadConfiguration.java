@@ -0,0 +1,53 @@
+package hot.spring;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/* Runs every request on its own virtual thread instead of the Tomcat worker pool.
+ *
+ * HotSpringController and the @Transactional HotSpringService methods it calls run on the
+ * request thread, so they move to virtual threads as well. While one waits on JDBC it
+ * unmounts and its carrier thread serves other requests; concurrency is then bounded by the
+ * connection pool (spring.datasource.hikari.maximum-pool-size) rather than by
+ * server.tomcat.threads.max.
+ *
+ * Only compiled by the java21 profile. Turned on with hot-spring.virtual-threads.enabled. */
+
+@Configuration
+@ConditionalOnProperty(prefix = "hot-spring.virtual-threads", name = "enabled")
+@Slf4j
+public class VirtualThreadConfiguration {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		log.info("Tomcat requests will run on virtual threads");
+
+		return protocolHandler -> protocolHandler.setExecutor(
+			Executors.newVirtualThreadPerTaskExecutor());
+	}
+
+	/* StreamingResponseBody (NDJSON and export downloads) is written from the MVC async
+	 * executor, which reads the whole stream inside a transaction, so it gets virtual
+	 * threads too. A TaskDecorator bean is applied as Spring Boot would apply it to its own
+	 * executor. */
+
+	@Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+		"taskExecutor"})
+	public AsyncTaskExecutor applicationTaskExecutor(ObjectProvider<TaskDecorator> taskDecorator) {
+		TaskExecutorAdapter executor =
+			new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+		taskDecorator.ifUnique(executor::setTaskDecorator);
+		return executor;
+	}
+}
@@ -0,0 +1,52 @@
+package hot.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.ActiveProfiles;
+
+import hot.spring.controller.model.SkinnyDipperData;
+
+/* Only a violation of the unique email constraint is reported as a duplicate email (409).
+ * Updating a skinny dipper to another one's email reaches the constraint itself, since the
+ * email filter is only consulted for new skinny dippers. Any other integrity error, such as
+ * an email too long for its column, must come through as it is. */
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class HotSpringServiceEmailTest {
+
+	@Autowired
+	private HotSpringService hotSpringService;
+
+	@Test
+	void takenEmailIsADuplicate() {
+		save(null, "taken@example.com");
+		Long other = save(null, "other@example.com");
+
+		assertThatThrownBy(() -> save(other, "taken@example.com"))
+			.isInstanceOf(DuplicateKeyException.class)
+			.hasMessageContaining("taken@example.com");
+	}
+
+	@Test
+	void emailTooLongIsNotADuplicate() {
+		String email = "a".repeat(300) + "@example.com";
+
+		assertThatThrownBy(() -> save(null, email))
+			.isInstanceOf(DataIntegrityViolationException.class)
+			.isNotInstanceOf(DuplicateKeyException.class);
+	}
+
+	private Long save(Long skinnyDipperId, String email) {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperId(skinnyDipperId);
+		skinnyDipper.setSkinnyDipperName("Email Test");
+		skinnyDipper.setSkinnyDipperEmail(email);
+		return hotSpringService.saveSkinnyDipper(skinnyDipper).getSkinnyDipperId();
+	}
+}
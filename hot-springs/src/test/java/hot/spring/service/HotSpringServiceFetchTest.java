@@ -0,0 +1,168 @@
+package hot.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.KeysetPage;
+import hot.spring.controller.model.SkinnyDipperData;
+import jakarta.persistence.EntityManagerFactory;
+
+/* The retrieval paths of HotSpringService must build SkinnyDipperData and HotSpringData
+ * in a fixed number of statements, however many hot springs and details there are. Each
+ * test loads a small graph and a large one and compares the statements Hibernate
+ * statistics counted for each. */
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class HotSpringServiceFetchTest {
+
+	private static final List<String> DETAILS = List.of("natural", "free", "hike-in",
+		"public", "camping available", "skinny dipping friendly", "C Rating");
+
+	private static final AtomicInteger EMAIL_SEQUENCE = new AtomicInteger();
+
+	@Autowired
+	private HotSpringService hotSpringService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private record Measured<T>(T result, long statements) {
+	}
+
+	@BeforeEach
+	void enableStatistics() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	void skinnyDipperWithAllHotSpringsLoadsInFixedStatements() {
+		Long small = skinnyDipper(1, 1);
+		Long large = skinnyDipper(20, DETAILS.size());
+
+		Measured<SkinnyDipperData> few =
+			measure(() -> hotSpringService.retrieveSkinnyDipperById(small));
+		Measured<SkinnyDipperData> many =
+			measure(() -> hotSpringService.retrieveSkinnyDipperById(large));
+
+		assertThat(few.result().getHotSprings()).hasSize(1);
+		assertThat(many.result().getHotSprings()).hasSize(20)
+			.allSatisfy(hotSpring ->
+				assertThat(hotSpring.getDetails()).hasSize(DETAILS.size()));
+		assertThat(many.statements()).isEqualTo(few.statements()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void hotSpringWithAllDetailsLoadsInFixedStatements() {
+		Long small = skinnyDipper(1, 1);
+		Long large = skinnyDipper(1, DETAILS.size());
+		Long smallHotSpring = firstHotSpringId(small);
+		Long largeHotSpring = firstHotSpringId(large);
+
+		Measured<HotSpringData> few =
+			measure(() -> hotSpringService.retrieveHotSpringById(small, smallHotSpring));
+		Measured<HotSpringData> many =
+			measure(() -> hotSpringService.retrieveHotSpringById(large, largeHotSpring));
+
+		assertThat(few.result().getDetails()).hasSize(1);
+		assertThat(many.result().getDetails()).hasSize(DETAILS.size());
+		assertThat(many.statements()).isEqualTo(few.statements()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void skinnyDipperListLoadsInFixedStatements() {
+		skinnyDipper(1, 1);
+		Measured<List<SkinnyDipperData>> before =
+			measure(() -> hotSpringService.retrieveAllSkinnyDippers());
+
+		for (int i = 0; i < 10; i++) {
+			skinnyDipper(5, DETAILS.size());
+		}
+
+		Measured<List<SkinnyDipperData>> after =
+			measure(() -> hotSpringService.retrieveAllSkinnyDippers());
+
+		assertThat(after.result()).hasSize(before.result().size() + 10);
+		assertThat(after.statements()).isEqualTo(before.statements()).isLessThanOrEqualTo(2);
+	}
+
+	/* paged rows cannot fetch-join their collections, so these come from batch fetching */
+
+	@Test
+	void skinnyDipperPageLoadsInFixedStatements() {
+		Long smallFirst = skinnyDipper(1, 1);
+
+		for (int i = 1; i < 10; i++) {
+			skinnyDipper(1, 1);
+		}
+
+		Long largeFirst = skinnyDipper(10, DETAILS.size());
+
+		for (int i = 1; i < 10; i++) {
+			skinnyDipper(10, DETAILS.size());
+		}
+
+		Measured<KeysetPage<SkinnyDipperData>> few =
+			measure(() -> hotSpringService.retrieveSkinnyDipperPage(smallFirst - 1, 10));
+		Measured<KeysetPage<SkinnyDipperData>> many =
+			measure(() -> hotSpringService.retrieveSkinnyDipperPage(largeFirst - 1, 10));
+
+		assertThat(few.result().getContent()).hasSize(10);
+		assertThat(many.result().getContent()).hasSize(10)
+			.allSatisfy(skinnyDipper -> assertThat(skinnyDipper.getHotSprings()).hasSize(10));
+		assertThat(many.statements()).isEqualTo(few.statements()).isLessThanOrEqualTo(3);
+	}
+
+	private <T> Measured<T> measure(Supplier<T> retrieval) {
+		statistics.clear();
+		T result = retrieval.get();
+		return new Measured<>(result, statistics.getPrepareStatementCount());
+	}
+
+	/* a new skinny dipper with hotSprings hot springs, each with the first details of
+	 * DETAILS; returns the skinny dipper ID */
+
+	private Long skinnyDipper(int hotSprings, int details) {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Fetch Test");
+		skinnyDipper.setSkinnyDipperEmail(
+			"fetch" + EMAIL_SEQUENCE.incrementAndGet() + "@example.com");
+		Long skinnyDipperId =
+			hotSpringService.saveSkinnyDipper(skinnyDipper).getSkinnyDipperId();
+
+		for (int i = 0; i < hotSprings; i++) {
+			HotSpringData hotSpring = new HotSpringData();
+			hotSpring.setHotSpringName("Fetch Spring " + i);
+			hotSpring.setLatitude(new BigDecimal("42.7612866"));
+			hotSpring.setLongitude(new BigDecimal("-115.7392492"));
+			hotSpring.setCounty("Owyhee County");
+			hotSpring.setDirections("Created by the fetch test");
+			hotSpring.setDetails(new HashSet<>(DETAILS.subList(0, details)));
+			hotSpringService.savetHotSpring(skinnyDipperId, hotSpring);
+		}
+
+		return skinnyDipperId;
+	}
+
+	private Long firstHotSpringId(Long skinnyDipperId) {
+		return hotSpringService.retrieveSkinnyDipperById(skinnyDipperId).getHotSprings()
+			.iterator().next().getHotSpringId();
+	}
+}
@@ -0,0 +1,204 @@
+package hot.spring.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hot.spring.controller.model.BulkImportResult;
+import hot.spring.controller.model.HotSpringData;
+import hot.spring.controller.model.SkinnyDipperData;
+import hot.spring.entity.SkinnyDipper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/* Saving a hot spring must run the same number of statements and load the same number of
+ * rows however many hot springs there already are. A save must not load the owner's other
+ * hot springs, or every hot spring that shares one of its details. One skinny dipper is
+ * given more and more hot springs with the same details through the bulk import, and at
+ * each size new hot springs are created and then updated with one more detail. For each
+ * save Hibernate statistics give the statements, and the entities and collections loaded:
+ * a whole collection loads in a single statement, so statements alone would not show it. */
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class HotSpringServiceSaveTest {
+
+	private static final Set<String> DETAILS = Set.of("natural", "free");
+	private static final Set<String> UPDATED_DETAILS = Set.of("natural", "free", "hike-in");
+	private static final int[] SIZES = {0, 1000, 5000};
+	private static final int SAVES = 5;
+
+	/* well below the smallest size the skinny dipper grows to */
+	private static final long MAX_ENTITY_LOADS = 50;
+
+	@Autowired
+	private HotSpringService hotSpringService;
+
+	@Autowired
+	private HotSpringBulkImporter bulkImporter;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private Statistics statistics;
+
+	private record SaveCounts(long statements, long entityLoads, long collectionLoads) {
+	}
+
+	@BeforeEach
+	void enableStatistics() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	void statementsAndLoadsPerSaveDoNotGrowWithHotSprings() {
+		Long skinnyDipperId = skinnyDipper("save.statements@example.com");
+
+		/* the first saves resolve details and warm up the caches; not compared */
+		saveRound(skinnyDipperId);
+
+		List<SaveCounts> first = null;
+		int hotSprings = SAVES;
+
+		for (int size : SIZES) {
+			if (size > hotSprings) {
+				grow(skinnyDipperId, size - hotSprings);
+				hotSprings = size;
+			}
+
+			List<SaveCounts> round = saveRound(skinnyDipperId);
+			hotSprings += SAVES;
+
+			if (Objects.isNull(first)) {
+				first = round;
+			}
+
+			assertThat(round).as("counts per create and update with %d hot springs", size)
+				.containsExactlyElementsOf(first)
+				.allSatisfy(counts ->
+					assertThat(counts.entityLoads()).isLessThan(MAX_ENTITY_LOADS));
+		}
+	}
+
+	@Test
+	void saveDoesNotLoadTheOwnersHotSprings() {
+		Long skinnyDipperId = skinnyDipper("save.owner@example.com");
+		grow(skinnyDipperId, 10);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			HotSpringData created = hotSpringService.savetHotSpring(skinnyDipperId,
+				hotSpring("Owner Check Spring", DETAILS));
+			created.setDetails(UPDATED_DETAILS);
+			created.setSkinnyDipper(null);
+			hotSpringService.savetHotSpring(skinnyDipperId, created);
+
+			/* the same instance the saves used, as they joined this transaction */
+			SkinnyDipper owner = entityManager.find(SkinnyDipper.class, skinnyDipperId);
+			assertThat(Hibernate.isInitialized(owner.getHotSprings())).isFalse();
+		});
+	}
+
+	/* Creates SAVES hot springs, then updates each with one more detail, and returns the
+	 * counts of each create followed by those of each update. */
+
+	private List<SaveCounts> saveRound(Long skinnyDipperId) {
+		List<SaveCounts> counts = new ArrayList<>();
+		List<HotSpringData> created = new ArrayList<>();
+
+		for (int i = 0; i < SAVES; i++) {
+			statistics.clear();
+			created.add(hotSpringService.savetHotSpring(skinnyDipperId,
+				hotSpring("Checked Spring " + i, DETAILS)));
+			counts.add(counts());
+		}
+
+		for (HotSpringData hotSpring : created) {
+			hotSpring.setDetails(UPDATED_DETAILS);
+			hotSpring.setSkinnyDipper(null);
+
+			statistics.clear();
+			hotSpringService.savetHotSpring(skinnyDipperId, hotSpring);
+			counts.add(counts());
+		}
+
+		return counts;
+	}
+
+	private SaveCounts counts() {
+		return new SaveCounts(statistics.getPrepareStatementCount(),
+			statistics.getEntityLoadCount(),
+			statistics.getCollectionLoadCount() + statistics.getCollectionFetchCount());
+	}
+
+	/* Bulk imports count more hot springs for the skinny dipper. */
+
+	private void grow(Long skinnyDipperId, int count) {
+		StringBuilder body = new StringBuilder();
+
+		try {
+			for (int i = 0; i < count; i++) {
+				body.append(objectMapper.writeValueAsString(
+					hotSpring("Filler Spring " + i, DETAILS))).append('\n');
+			}
+
+			try (MappingIterator<HotSpringData> rows = objectMapper
+					.readerFor(HotSpringData.class)
+					.readValues(body.toString().getBytes(StandardCharsets.UTF_8))) {
+				BulkImportResult result =
+					bulkImporter.importHotSprings(skinnyDipperId, rows, null, null);
+				assertThat(result.getImported()).isEqualTo(count);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Long skinnyDipper(String email) {
+		SkinnyDipperData skinnyDipper = new SkinnyDipperData();
+		skinnyDipper.setSkinnyDipperName("Save Test");
+		skinnyDipper.setSkinnyDipperEmail(email);
+		return hotSpringService.saveSkinnyDipper(skinnyDipper).getSkinnyDipperId();
+	}
+
+	private static HotSpringData hotSpring(String name, Set<String> details) {
+		HotSpringData hotSpring = new HotSpringData();
+		hotSpring.setHotSpringName(name);
+		hotSpring.setLatitude(new BigDecimal("44.0822561"));
+		hotSpring.setLongitude(new BigDecimal("-115.6184011"));
+		hotSpring.setCounty("Boise County");
+		hotSpring.setDirections("Created by the save test");
+		hotSpring.setDetails(details);
+		return hotSpring;
+	}
+}